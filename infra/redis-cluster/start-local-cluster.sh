@@ -0,0 +1,34 @@
+#!/usr/bin/env bash
+# 在本机启动若干个 redis-server 进程并组成 Redis Cluster，用于验证 seckill-api 的集群模式。
+# 用法: ./start-local-cluster.sh [节点数, 默认 3] [起始端口, 默认 7001]
+# 之后以 spring.profiles.active=cluster 启动 seckill-api 即可。
+set -euo pipefail
+
+NODES="${1:-3}"
+BASE_PORT="${2:-7001}"
+WORK_DIR="${REDIS_CLUSTER_DIR:-/tmp/seckill-redis-cluster}"
+
+mkdir -p "$WORK_DIR"
+ADDRS=()
+for ((i = 0; i < NODES; i++)); do
+    PORT=$((BASE_PORT + i))
+    NODE_DIR="$WORK_DIR/$PORT"
+    mkdir -p "$NODE_DIR"
+    redis-server --port "$PORT" \
+        --cluster-enabled yes \
+        --cluster-config-file "nodes-$PORT.conf" \
+        --cluster-node-timeout 5000 \
+        --appendonly no \
+        --save "" \
+        --dir "$NODE_DIR" \
+        --daemonize yes \
+        --pidfile "$NODE_DIR/redis.pid" \
+        --logfile "$NODE_DIR/redis.log"
+    ADDRS+=("127.0.0.1:$PORT")
+done
+
+sleep 1
+redis-cli --cluster create "${ADDRS[@]}" --cluster-replicas 0 --cluster-yes
+
+echo "Redis Cluster ready: $(IFS=,; echo "${ADDRS[*]}")"
+echo "export REDIS_CLUSTER_NODES=$(IFS=,; echo "${ADDRS[*]}")"
@@ -0,0 +1,12 @@
+#!/usr/bin/env bash
+# 停止 start-local-cluster.sh 启动的 redis-server 进程并清理数据目录。
+set -euo pipefail
+
+WORK_DIR="${REDIS_CLUSTER_DIR:-/tmp/seckill-redis-cluster}"
+
+for PID_FILE in "$WORK_DIR"/*/redis.pid; do
+    [ -f "$PID_FILE" ] || continue
+    kill "$(cat "$PID_FILE")" 2>/dev/null || true
+done
+rm -rf "$WORK_DIR"
+echo "Local Redis Cluster stopped"
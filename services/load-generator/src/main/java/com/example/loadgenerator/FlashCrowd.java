@@ -0,0 +1,184 @@
+package com.example.loadgenerator;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 一次秒杀洪峰：{@code users} 个虚拟用户在 {@code rampSeconds} 内均匀到达，各自通过网关发起
+ * {@code POST /seckill/{productId}}。
+ * <ul>
+ *     <li>一部分用户会在首次点击后的短时间内重复点击（{@link ClickKind#DUPLICATE}），模拟连点。</li>
+ *     <li>首次点击收到 410/429/503 的用户会隔一段时间再试（{@link ClickKind#RETRY}），模拟售罄后的刷新重试。</li>
+ * </ul>
+ * 请求经 JDK {@link HttpClient#sendAsync} 非阻塞发送，单个调度线程负责按计划时间发出请求，
+ * 在途请求数由 {@code maxInFlight} 限制；调度线程因此被阻塞的时间记为调度延迟，用来判断压测端自身是否成为瓶颈。
+ */
+final class FlashCrowd {
+
+    enum ClickKind {
+        FIRST,
+        DUPLICATE,
+        RETRY
+    }
+
+    private final LoadConfig config;
+    private final HttpClient client;
+    private final String[] tokens;
+    private final URI target;
+
+    private final LatencyStats latencies = new LatencyStats();
+    private final Map<ClickKind, Map<Integer, AtomicLong>> statusesByKind = new EnumMap<>(ClickKind.class);
+    private final ConcurrentHashMap<Integer, Boolean> acceptedUsers = new ConcurrentHashMap<>();
+    private final AtomicLong doubleAccepted = new AtomicLong();
+    private final AtomicLong maxDispatchLagNanos = new AtomicLong();
+    private final AtomicLong outstanding = new AtomicLong();
+    private final CompletableFuture<Void> finished = new CompletableFuture<>();
+
+    private final ScheduledThreadPoolExecutor dispatcher;
+    private final Semaphore inFlight;
+    private long startNanos;
+
+    FlashCrowd(LoadConfig config, HttpClient client, String[] tokens) {
+        this.config = config;
+        this.client = client;
+        this.tokens = tokens;
+        this.target = URI.create(config.gatewayUrl + "/seckill/" + config.productId);
+        for (ClickKind kind : ClickKind.values()) {
+            statusesByKind.put(kind, new ConcurrentHashMap<>());
+        }
+        this.dispatcher = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "flash-crowd-dispatcher");
+            t.setDaemon(true);
+            return t;
+        });
+        this.inFlight = new Semaphore(Math.max(1, config.maxInFlight));
+    }
+
+    Report run() throws InterruptedException {
+        SplittableRandom random = new SplittableRandom(20240101L);
+        long rampNanos = (long) (config.rampSeconds * 1e9);
+        startNanos = System.nanoTime();
+
+        // 先把所有计划内的点击计入 outstanding，避免前几个请求完成时误判为全部结束
+        long planned = config.users;
+        int[] duplicateUsers = new int[config.users];
+        for (int i = 0; i < config.users; i++) {
+            if (random.nextDouble() < config.duplicateRatio) {
+                duplicateUsers[i] = Math.max(0, config.duplicateClicks);
+                planned += duplicateUsers[i];
+            }
+        }
+        outstanding.set(planned);
+
+        for (int i = 0; i < config.users; i++) {
+            long offset = config.users <= 1 ? 0 : rampNanos * i / (config.users - 1);
+            schedule(i, ClickKind.FIRST, config.retries, offset);
+            for (int d = 0; d < duplicateUsers[i]; d++) {
+                long delay = TimeUnit.MILLISECONDS.toNanos(1 + random.nextLong(Math.max(1, config.duplicateSpreadMillis)));
+                schedule(i, ClickKind.DUPLICATE, 0, offset + delay);
+            }
+        }
+
+        long maxWaitNanos = rampNanos + TimeUnit.MILLISECONDS.toNanos(
+                config.requestTimeoutMillis + (config.retries + 1L) * (config.retryDelayMillis + config.requestTimeoutMillis));
+        try {
+            finished.get(maxWaitNanos + TimeUnit.SECONDS.toNanos(30), TimeUnit.NANOSECONDS);
+        } catch (Exception e) {
+            System.out.printf("Flash crowd did not finish cleanly (%d clicks outstanding): %s%n", outstanding.get(), e);
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        dispatcher.shutdownNow();
+
+        Map<ClickKind, Map<Integer, Long>> kinds = new EnumMap<>(ClickKind.class);
+        statusesByKind.forEach((kind, statuses) -> {
+            Map<Integer, Long> counts = new TreeMap<>();
+            statuses.forEach((status, count) -> counts.put(status, count.get()));
+            kinds.put(kind, counts);
+        });
+        return new Report(latencies, kinds, acceptedUsers.size(), doubleAccepted.get(),
+                elapsedNanos, maxDispatchLagNanos.get());
+    }
+
+    private void schedule(int userIndex, ClickKind kind, int retriesLeft, long offsetNanos) {
+        long delay = offsetNanos - (System.nanoTime() - startNanos);
+        dispatcher.schedule(() -> fire(userIndex, kind, retriesLeft, offsetNanos),
+                Math.max(0, delay), TimeUnit.NANOSECONDS);
+    }
+
+    private void fire(int userIndex, ClickKind kind, int retriesLeft, long plannedOffsetNanos) {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            complete();
+            return;
+        }
+        long sent = System.nanoTime();
+        maxDispatchLagNanos.accumulateAndGet(sent - startNanos - plannedOffsetNanos, Math::max);
+
+        HttpRequest request = HttpRequest.newBuilder(target)
+                .timeout(Duration.ofMillis(config.requestTimeoutMillis))
+                .header("Authorization", "Bearer " + tokens[userIndex])
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    inFlight.release();
+                    int status = error == null ? response.statusCode() : -1;
+                    latencies.record(status, System.nanoTime() - sent);
+                    statusesByKind.get(kind).computeIfAbsent(status, s -> new AtomicLong()).incrementAndGet();
+
+                    if (status == 202 && acceptedUsers.putIfAbsent(userIndex, Boolean.TRUE) != null) {
+                        doubleAccepted.incrementAndGet();
+                    }
+                    if (kind != ClickKind.DUPLICATE && retriesLeft > 0 && isRetryable(status)) {
+                        outstanding.incrementAndGet();
+                        long retryOffset = System.nanoTime() - startNanos
+                                + TimeUnit.MILLISECONDS.toNanos(config.retryDelayMillis);
+                        schedule(userIndex, ClickKind.RETRY, retriesLeft - 1, retryOffset);
+                    }
+                    complete();
+                });
+    }
+
+    private void complete() {
+        if (outstanding.decrementAndGet() == 0) {
+            finished.complete(null);
+        }
+    }
+
+    private static boolean isRetryable(int status) {
+        return status == 410 || status == 429 || status == 503;
+    }
+
+    record Report(LatencyStats latencies,
+                  Map<ClickKind, Map<Integer, Long>> statusesByKind,
+                  int acceptedUsers,
+                  long doubleAccepted,
+                  long elapsedNanos,
+                  long maxDispatchLagNanos) {
+
+        void print() {
+            double seconds = elapsedNanos / 1e9;
+            long total = latencies.total();
+            System.out.printf("Requests: %d in %.2fs (%.0f req/s), max dispatch lag %.1fms%n",
+                    total, seconds, total / seconds, maxDispatchLagNanos / 1e6);
+            statusesByKind.forEach((kind, statuses) -> System.out.printf("  %-9s %s%n", kind, statuses));
+            System.out.printf("Accepted users: %d, users accepted more than once: %d%n", acceptedUsers, doubleAccepted);
+            latencies.print("Latency by response code:");
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.loadgenerator;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * 按 auth-service {@code JwtUtil#generateToken} 的同一格式在本地签发 token：
+ * subject 为 userId，claim 中带 username，HS256 签名，10 小时过期。
+ * 网关用相同的 {@code JWT_SECRET_KEY} 校验，因此这里签发的 token 与登录接口返回的等价。
+ */
+final class JwtTokenMinter {
+
+    private static final long EXPIRATION_MILLIS = 1000L * 60 * 60 * 10;
+
+    private final SecretKey secretKey;
+
+    JwtTokenMinter(String secret) {
+        if (secret == null || secret.isEmpty()) {
+            throw new IllegalArgumentException("JWT secret is empty; pass --jwt-secret-key or set JWT_SECRET_KEY");
+        }
+        // 与 JwtUtil 一致：使用平台默认编码的字节作为 HMAC 密钥（ASCII 密钥下与 UTF-8 相同）
+        this.secretKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    String mint(long userId) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("username", "load-user-" + userId);
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .setClaims(claims)
+                .setSubject(String.valueOf(userId))
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + EXPIRATION_MILLIS))
+                .signWith(secretKey)
+                .compact();
+    }
+
+    /**
+     * 为 {@code userIdBase .. userIdBase + count - 1} 并行签发 token，下标与用户序号一一对应。
+     */
+    String[] mintAll(long userIdBase, int count) {
+        String[] tokens = new String[count];
+        IntStream.range(0, count).parallel().forEach(i -> tokens[i] = mint(userIdBase + i));
+        return tokens;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.loadgenerator;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按响应状态码分组记录延迟（纳秒）。状态码 -1 表示客户端异常（超时、连接失败等）。
+ */
+final class LatencyStats {
+
+    private final Map<Integer, Recorder> byStatus = new ConcurrentHashMap<>();
+
+    void record(int status, long latencyNanos) {
+        byStatus.computeIfAbsent(status, s -> new Recorder()).add(latencyNanos);
+    }
+
+    long count(int status) {
+        Recorder recorder = byStatus.get(status);
+        return recorder == null ? 0 : recorder.size();
+    }
+
+    long total() {
+        return byStatus.values().stream().mapToLong(Recorder::size).sum();
+    }
+
+    void print(String title) {
+        System.out.println(title);
+        System.out.printf("  %6s %9s %10s %10s %10s %10s %10s%n", "status", "count", "p50(ms)", "p90(ms)", "p99(ms)", "p99.9(ms)", "max(ms)");
+        Map<Integer, Recorder> sorted = new TreeMap<>(byStatus);
+        sorted.forEach((status, recorder) -> {
+            long[] values = recorder.snapshot();
+            Arrays.sort(values);
+            System.out.printf("  %6d %9d %10.2f %10.2f %10.2f %10.2f %10.2f%n", status, values.length,
+                    percentile(values, 0.50), percentile(values, 0.90), percentile(values, 0.99),
+                    percentile(values, 0.999), values.length == 0 ? 0 : values[values.length - 1] / 1e6);
+        });
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(sorted.length * quantile) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private static final class Recorder {
+        private long[] values = new long[1024];
+        private int size;
+
+        synchronized void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized long[] snapshot() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
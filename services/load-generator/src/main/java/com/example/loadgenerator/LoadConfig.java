@@ -0,0 +1,119 @@
+package com.example.loadgenerator;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 压测参数，命令行格式为 {@code --name=value}，未指定的参数回退到同名环境变量（大写、下划线），再回退到默认值。
+ */
+final class LoadConfig {
+
+    final String gatewayUrl;
+    final long productId;
+    final int users;
+    final long userIdBase;
+    final double rampSeconds;
+    final String jwtSecret;
+
+    /**
+     * 会重复点击的用户比例，以及每个这样的用户额外点击的次数。
+     */
+    final double duplicateRatio;
+    final int duplicateClicks;
+    final long duplicateSpreadMillis;
+
+    /**
+     * 收到 410（售罄）、429（桶空/限流）、503（缓存加载中）后的重试次数与间隔。
+     */
+    final int retries;
+    final long retryDelayMillis;
+
+    final int maxInFlight;
+    final long requestTimeoutMillis;
+    final int loginSample;
+
+    final String jdbcUrl;
+    final String jdbcUser;
+    final String jdbcPassword;
+    final long settleTimeoutSeconds;
+    final long settleStableSeconds;
+
+    private LoadConfig(Map<String, String> args) {
+        Lookup lookup = new Lookup(args);
+        this.gatewayUrl = stripTrailingSlash(lookup.string("gateway-url", "http://localhost:80"));
+        this.productId = lookup.longValue("product-id", 1L);
+        this.users = (int) lookup.longValue("users", 100_000L);
+        this.userIdBase = lookup.longValue("user-id-base", 1_000_000L);
+        this.rampSeconds = lookup.doubleValue("ramp-seconds", 3.0);
+        this.jwtSecret = lookup.string("jwt-secret-key", "");
+
+        this.duplicateRatio = lookup.doubleValue("duplicate-ratio", 0.2);
+        this.duplicateClicks = (int) lookup.longValue("duplicate-clicks", 2L);
+        this.duplicateSpreadMillis = lookup.longValue("duplicate-spread-millis", 500L);
+
+        this.retries = (int) lookup.longValue("retries", 2L);
+        this.retryDelayMillis = lookup.longValue("retry-delay-millis", 300L);
+
+        this.maxInFlight = (int) lookup.longValue("max-in-flight", 20_000L);
+        this.requestTimeoutMillis = lookup.longValue("request-timeout-millis", 10_000L);
+        this.loginSample = (int) lookup.longValue("login-sample", 100L);
+
+        this.jdbcUrl = lookup.string("jdbc-url", "");
+        this.jdbcUser = lookup.string("jdbc-user", "root");
+        this.jdbcPassword = lookup.string("jdbc-password", "");
+        this.settleTimeoutSeconds = lookup.longValue("settle-timeout-seconds", 120L);
+        this.settleStableSeconds = lookup.longValue("settle-stable-seconds", 5L);
+    }
+
+    static LoadConfig parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return new LoadConfig(values);
+    }
+
+    boolean auditEnabled() {
+        return !jdbcUrl.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("gateway=%s product=%d users=%d ramp=%.1fs duplicates=%.0f%%x%d retries=%d maxInFlight=%d",
+                gatewayUrl, productId, users, rampSeconds, duplicateRatio * 100, duplicateClicks, retries, maxInFlight);
+    }
+
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    private static final class Lookup {
+        private final Map<String, String> args;
+
+        private Lookup(Map<String, String> args) {
+            this.args = args;
+        }
+
+        String string(String name, String defaultValue) {
+            String value = args.get(name);
+            if (value == null) {
+                value = System.getenv(name.toUpperCase().replace('-', '_'));
+            }
+            return value == null ? defaultValue : value;
+        }
+
+        long longValue(String name, long defaultValue) {
+            String value = string(name, null);
+            return value == null ? defaultValue : Long.parseLong(value);
+        }
+
+        double doubleValue(String name, double defaultValue) {
+            String value = string(name, null);
+            return value == null ? defaultValue : Double.parseDouble(value);
+        }
+    }
+}
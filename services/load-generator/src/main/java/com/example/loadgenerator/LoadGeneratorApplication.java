@@ -0,0 +1,92 @@
+package com.example.loadgenerator;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 端到端秒杀洪峰压测：经 gateway-service 访问 auth-service 与 seckill-api，单机运行。
+ * <pre>
+ * (cd services/load-generator &amp;&amp; mvn -q package)
+ * ulimit -n 200000
+ * JWT_SECRET_KEY=... java -jar services/load-generator/target/load-generator.jar \
+ *     --gateway-url=http://localhost:80 --product-id=1 --users=100000 --ramp-seconds=3 \
+ *     --jdbc-url=jdbc:mysql://localhost:3306/seckill_db --jdbc-password=...
+ * </pre>
+ * 流程：
+ * <ol>
+ *     <li>用与 auth-service 相同的 JwtUtil 格式、相同的 {@code JWT_SECRET_KEY} 为每个虚拟用户在本地签发 token。
+ *     auth-service 的登录接口目前是模拟实现（固定返回 userId 123），无法为 10 万个不同用户登录，
+ *     因此只对登录接口做 {@code --login-sample} 次抽样调用，用于确认网关 → auth-service 链路可用并记录其延迟。</li>
+ *     <li>按 {@link FlashCrowd} 的计划在爬坡时间内发出全部请求（含连点与售罄重试）。</li>
+ *     <li>输出吞吐、按状态码的延迟分位数；配置了 {@code --jdbc-url} 时等待订单落库稳定后核对超卖，核对失败以退出码 1 结束。</li>
+ * </ol>
+ */
+public final class LoadGeneratorApplication {
+
+    private LoadGeneratorApplication() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadConfig config = LoadConfig.parse(args);
+        System.out.println("Load config: " + config);
+
+        long mintStart = System.nanoTime();
+        String[] tokens = new JwtTokenMinter(config.jwtSecret).mintAll(config.userIdBase, config.users);
+        System.out.printf("Minted %d tokens in %.0fms%n", tokens.length, (System.nanoTime() - mintStart) / 1e6);
+
+        ExecutorService httpExecutor = Executors.newFixedThreadPool(
+                Math.max(2, Runtime.getRuntime().availableProcessors()));
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(httpExecutor)
+                .build();
+
+        if (config.loginSample > 0) {
+            probeLogin(client, config).print("Login sample via gateway (POST /auth/login):");
+        }
+
+        OrderAudit audit = config.auditEnabled() ? new OrderAudit(config) : null;
+        OrderAudit.Snapshot before = audit == null ? null : audit.snapshot();
+
+        FlashCrowd.Report report = new FlashCrowd(config, client, tokens).run();
+        report.print();
+
+        boolean passed = true;
+        if (audit != null) {
+            System.out.printf("Waiting for orders to settle (stable for %ds, at most %ds)...%n",
+                    config.settleStableSeconds, config.settleTimeoutSeconds);
+            OrderAudit.Snapshot after = audit.awaitSettled();
+            passed = audit.verify(before, after, report.acceptedUsers());
+        } else {
+            System.out.println("Oversell audit skipped (no --jdbc-url)");
+        }
+
+        httpExecutor.shutdownNow();
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static LatencyStats probeLogin(HttpClient client, LoadConfig config) {
+        LatencyStats stats = new LatencyStats();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(config.gatewayUrl + "/auth/login"))
+                .timeout(Duration.ofMillis(config.requestTimeoutMillis))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"user\",\"password\":\"123456\"}"))
+                .build();
+        CompletableFuture<?>[] calls = new CompletableFuture<?>[config.loginSample];
+        for (int i = 0; i < config.loginSample; i++) {
+            long sent = System.nanoTime();
+            calls[i] = client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) ->
+                            stats.record(error == null ? response.statusCode() : -1, System.nanoTime() - sent));
+        }
+        CompletableFuture.allOf(calls).exceptionally(e -> null).join();
+        return stats;
+    }
+}
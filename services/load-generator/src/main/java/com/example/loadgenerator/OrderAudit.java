@@ -0,0 +1,133 @@
+package com.example.loadgenerator;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 压测前后直接查询 MySQL，核对是否超卖：
+ * <ul>
+ *     <li>新增订单数不超过压测前的 {@code product.stock}；</li>
+ *     <li>{@code product.stock} 不为负，且减少量等于新增订单数；</li>
+ *     <li>同一用户在该商品上没有多于一笔订单。</li>
+ * </ul>
+ * 订单由 relay-service / order-service 异步落库，核对前先等待订单数在 {@code settleStableSeconds} 内不再变化。
+ */
+final class OrderAudit {
+
+    private final LoadConfig config;
+
+    OrderAudit(LoadConfig config) {
+        this.config = config;
+    }
+
+    Snapshot snapshot() throws SQLException {
+        try (Connection connection = connect()) {
+            return new Snapshot(stock(connection), orderCount(connection));
+        }
+    }
+
+    /**
+     * 等待订单数稳定（或超时），返回最终快照。
+     */
+    Snapshot awaitSettled() throws SQLException, InterruptedException {
+        long deadline = System.nanoTime() + config.settleTimeoutSeconds * 1_000_000_000L;
+        long stableNeeded = config.settleStableSeconds * 1_000_000_000L;
+        try (Connection connection = connect()) {
+            long last = orderCount(connection);
+            long stableSince = System.nanoTime();
+            while (System.nanoTime() < deadline) {
+                Thread.sleep(1000);
+                long current = orderCount(connection);
+                if (current != last) {
+                    last = current;
+                    stableSince = System.nanoTime();
+                } else if (System.nanoTime() - stableSince >= stableNeeded) {
+                    break;
+                }
+            }
+            return new Snapshot(stock(connection), last);
+        }
+    }
+
+    long duplicateBuyers() throws SQLException {
+        String sql = "SELECT COUNT(*) FROM (SELECT user_id FROM seckill_order "
+                + "WHERE product_id = ? AND user_id BETWEEN ? AND ? GROUP BY user_id HAVING COUNT(*) > 1) d";
+        try (Connection connection = connect();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, config.productId);
+            statement.setLong(2, config.userIdBase);
+            statement.setLong(3, config.userIdBase + config.users - 1);
+            return single(statement);
+        }
+    }
+
+    /**
+     * @return 是否通过核对
+     */
+    boolean verify(Snapshot before, Snapshot after, long acceptedUsers) throws SQLException {
+        long newOrders = after.orders - before.orders;
+        long stockConsumed = before.stock - after.stock;
+        long duplicates = duplicateBuyers();
+
+        System.out.printf("Orders: before=%d after=%d new=%d; product.stock: before=%d after=%d%n",
+                before.orders, after.orders, newOrders, before.stock, after.stock);
+        System.out.printf("Accepted (202) users=%d, accepted without an order=%d%n",
+                acceptedUsers, Math.max(0, acceptedUsers - newOrders));
+
+        boolean ok = true;
+        if (newOrders > before.stock) {
+            System.out.printf("OVERSELL: %d new orders for %d units of stock%n", newOrders, before.stock);
+            ok = false;
+        }
+        if (after.stock < 0) {
+            System.out.printf("OVERSELL: product.stock went negative (%d)%n", after.stock);
+            ok = false;
+        }
+        if (stockConsumed != newOrders) {
+            System.out.printf("MISMATCH: stock decreased by %d but %d orders were created%n", stockConsumed, newOrders);
+            ok = false;
+        }
+        if (duplicates > 0) {
+            System.out.printf("DUPLICATE: %d users hold more than one order%n", duplicates);
+            ok = false;
+        }
+        if (ok) {
+            System.out.println("Audit passed: no oversell, no duplicate buyers");
+        }
+        return ok;
+    }
+
+    private Connection connect() throws SQLException {
+        return DriverManager.getConnection(config.jdbcUrl, config.jdbcUser, config.jdbcPassword);
+    }
+
+    private long stock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT stock FROM product WHERE id = ?")) {
+            statement.setLong(1, config.productId);
+            return single(statement);
+        }
+    }
+
+    private long orderCount(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT COUNT(*) FROM seckill_order WHERE product_id = ?")) {
+            statement.setLong(1, config.productId);
+            return single(statement);
+        }
+    }
+
+    private static long single(PreparedStatement statement) throws SQLException {
+        try (ResultSet rs = statement.executeQuery()) {
+            if (!rs.next()) {
+                throw new SQLException("Query returned no rows: " + statement);
+            }
+            return rs.getLong(1);
+        }
+    }
+
+    record Snapshot(long stock, long orders) {
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.orderservice.consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * 解码 relay-service 转发过来的 outbox 载荷，同时兼容两种格式：
+ * <ul>
+ *     <li>v2 紧凑格式：首字节 {@code 0x02}，随后是 {@code requestId:userId:productId:bucket} 四个十进制字段（见 seckill.lua）。
+ *     直接在 byte[] 上逐位累加成 long，不创建中间 String，也不经过 Jackson。</li>
+ *     <li>旧版 cjson JSON：迁移期间 Stream/队列中残留的消息，交给 Jackson 解析。</li>
+ * </ul>
+ */
+@Component
+public class OrderPayloadDecoder {
+
+    static final byte ORDER_V2_MARKER = 0x02;
+    private static final byte SEPARATOR = ':';
+
+    private final ObjectMapper objectMapper;
+
+    public OrderPayloadDecoder(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public OrderStreamMessage decode(byte[] body) throws IOException {
+        if (body.length > 0 && body[0] == ORDER_V2_MARKER) {
+            return decodeCompact(body);
+        }
+        return objectMapper.readValue(body, OrderStreamMessage.class);
+    }
+
+    static OrderStreamMessage decodeCompact(byte[] body) {
+        OrderStreamMessage message = new OrderStreamMessage();
+        int pos = 1;
+        int field = 0;
+        long value = 0;
+        int digits = 0;
+        for (; pos <= body.length; pos++) {
+            byte b = pos < body.length ? body[pos] : SEPARATOR;
+            if (b == SEPARATOR) {
+                if (digits == 0) {
+                    throw new IllegalArgumentException("Empty field " + field + " in compact order payload");
+                }
+                switch (field) {
+                    case 0 -> message.setRequestIdValue(value);
+                    case 1 -> message.setUserId(value);
+                    case 2 -> message.setProductId(value);
+                    case 3 -> message.setBucket((int) value);
+                    default -> throw new IllegalArgumentException("Too many fields in compact order payload");
+                }
+                field++;
+                value = 0;
+                digits = 0;
+            } else if (b >= '0' && b <= '9') {
+                // 19 位以内的十进制不会溢出 long；更长的一定是坏数据
+                if (++digits > 19) {
+                    throw new IllegalArgumentException("Numeric field too long in compact order payload");
+                }
+                value = value * 10 + (b - '0');
+            } else {
+                throw new IllegalArgumentException("Unexpected byte " + b + " in compact order payload");
+            }
+        }
+        if (field != 4) {
+            throw new IllegalArgumentException("Expected 4 fields in compact order payload but got " + field);
+        }
+        return message;
+    }
+}
@@ -4,6 +4,8 @@ import com.example.orderservice.exception.SeckillBusinessException;
 import com.example.orderservice.model.SeckillOrder;
 import com.example.orderservice.repository.ProductRepository;
 import com.example.orderservice.repository.SeckillOrderRepository;
+import com.example.orderservice.result.OrderOutcome;
+import com.example.orderservice.result.OrderResultWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataIntegrityViolationException;
@@ -20,27 +22,34 @@ public class OrderProcessingService {
 
     private final SeckillOrderRepository orderRepository;
     private final ProductRepository productRepository;
+    private final OrderResultWriter resultWriter;
 
     public OrderProcessingService(SeckillOrderRepository orderRepository,
-                                  ProductRepository productRepository) {
+                                  ProductRepository productRepository,
+                                  OrderResultWriter resultWriter) {
         this.orderRepository = orderRepository;
         this.productRepository = productRepository;
+        this.resultWriter = resultWriter;
     }
 
     @Transactional
     public void handle(OrderStreamMessage message) {
         if (orderRepository.findByRequestId(message.getRequestId()).isPresent()) {
             log.info("Request {} already processed, skipping", message.getRequestId());
+            resultWriter.record(message.getRequestId(), message.getUserId(), OrderOutcome.CREATED);
             return;
         }
 
         if (orderRepository.findByUserIdAndProductId(message.getUserId(), message.getProductId()) != null) {
             log.warn("Duplicate purchase detected userId={} productId={}", message.getUserId(), message.getProductId());
+            resultWriter.record(message.getRequestId(), message.getUserId(), OrderOutcome.FAILED);
             return;
         }
 
         int updated = productRepository.deductStock(message.getProductId());
         if (updated == 0) {
+            // 事务会回滚，结果不依赖提交，直接写入
+            resultWriter.record(message.getRequestId(), message.getUserId(), OrderOutcome.REJECTED);
             throw new SeckillBusinessException("MySQL库存扣减失败或已售罄");
         }
 
@@ -58,6 +67,7 @@ public class OrderProcessingService {
             log.warn("Duplicate request detected at DB layer for requestId={}", message.getRequestId());
         }
 
+        resultWriter.recordAfterCommit(message.getRequestId(), message.getUserId(), OrderOutcome.CREATED);
         log.info("Order persisted for requestId={} userId={} productId={}",
                 message.getRequestId(), message.getUserId(), message.getProductId());
     }
@@ -1,23 +1,49 @@
 package com.example.orderservice.consumer;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonSetter;
+
+import java.util.UUID;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class OrderStreamMessage {
-    private String requestId;
+    /**
+     * seckill-api 生成的 64 位 Snowflake requestId。
+     */
+    private Long requestId;
     private Long userId;
     private Long productId;
     private Integer bucket;
     private String ts;
 
-    public String getRequestId() {
+    public Long getRequestId() {
         return requestId;
     }
 
-    public void setRequestId(String requestId) {
+    public void setRequestIdValue(long requestId) {
         this.requestId = requestId;
     }
 
+    /**
+     * outbox 中的 requestId 以字符串形式出现。迁移期间仍可能收到旧版 UUID，
+     * 此时折叠为 64 位（高低两半异或）以便写入 BIGINT 列，同一 UUID 始终映射到同一个值，幂等判断不受影响。
+     */
+    @JsonSetter("requestId")
+    public void setRequestId(String rawRequestId) {
+        this.requestId = parseRequestId(rawRequestId);
+    }
+
+    static Long parseRequestId(String rawRequestId) {
+        if (rawRequestId == null || rawRequestId.isEmpty()) {
+            return null;
+        }
+        if (rawRequestId.indexOf('-') < 0) {
+            return Long.parseLong(rawRequestId);
+        }
+        UUID legacy = UUID.fromString(rawRequestId);
+        return legacy.getMostSignificantBits() ^ legacy.getLeastSignificantBits();
+    }
+
     public Long getUserId() {
         return userId;
     }
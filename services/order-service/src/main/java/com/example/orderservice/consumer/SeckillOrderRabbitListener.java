@@ -1,25 +1,33 @@
 package com.example.orderservice.consumer;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
-import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
+/**
+ * 默认的 relay 模式：消费 relay-service 转发到 RabbitMQ 的订单消息；{@code order.ingest.mode=stream} 时由
+ * {@link com.example.orderservice.stream.OrderStreamConsumer} 直接读取 outbox stream，本监听器不注册。
+ */
 @Component
+@ConditionalOnProperty(name = "order.ingest.mode", havingValue = "rabbit", matchIfMissing = true)
 public class SeckillOrderRabbitListener {
 
-    private final ObjectMapper objectMapper;
+    private final OrderPayloadDecoder payloadDecoder;
     private final OrderProcessingService processingService;
 
-    public SeckillOrderRabbitListener(ObjectMapper objectMapper,
+    public SeckillOrderRabbitListener(OrderPayloadDecoder payloadDecoder,
                                       OrderProcessingService processingService) {
-        this.objectMapper = objectMapper;
+        this.payloadDecoder = payloadDecoder;
         this.processingService = processingService;
     }
 
+    /**
+     * 直接拿原始 AMQP 消息体解码，避免先转换成 String；v2 与旧版 JSON 载荷都由 {@link OrderPayloadDecoder} 识别。
+     */
     @RabbitListener(queues = "${order.rabbitmq.queue:seckill.order.queue}")
-    public void handle(@Payload String payload) throws Exception {
-        OrderStreamMessage message = objectMapper.readValue(payload, OrderStreamMessage.class);
+    public void handle(Message amqpMessage) throws Exception {
+        OrderStreamMessage message = payloadDecoder.decode(amqpMessage.getBody());
         processingService.handle(message);
     }
 }
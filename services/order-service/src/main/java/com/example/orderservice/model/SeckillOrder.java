@@ -12,8 +12,11 @@ public class SeckillOrder {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(name = "request_id", nullable = false, unique = true, length = 64)
-    private String requestId;
+    /**
+     * 64 位 Snowflake requestId（时间有序，BIGINT 唯一索引按序追加）。
+     */
+    @Column(name = "request_id", nullable = false, unique = true)
+    private Long requestId;
 
     private Long userId;
     private Long productId;
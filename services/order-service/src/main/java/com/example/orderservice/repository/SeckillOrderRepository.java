@@ -9,5 +9,5 @@ public interface SeckillOrderRepository extends JpaRepository<SeckillOrder, Long
     // 根据用户ID和商品ID查询订单，用于判断是否重复秒杀
     SeckillOrder findByUserIdAndProductId(Long userId, Long productId);
 
-    Optional<SeckillOrder> findByRequestId(String requestId);
+    Optional<SeckillOrder> findByRequestId(Long requestId);
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.example.orderservice.result;
+
+/**
+ * 写入结果通道的最终下单结果，以单个字符存储。
+ */
+public enum OrderOutcome {
+    /**
+     * 订单已落库。
+     */
+    CREATED('C'),
+    /**
+     * 处理失败（重复购买、重试耗尽等），不会再生成订单。
+     */
+    FAILED('F'),
+    /**
+     * MySQL 库存扣减失败（库存已被扣完），不会再生成订单。
+     */
+    REJECTED('R');
+
+    private final char code;
+
+    OrderOutcome(char code) {
+        this.code = code;
+    }
+
+    public char code() {
+        return code;
+    }
+}
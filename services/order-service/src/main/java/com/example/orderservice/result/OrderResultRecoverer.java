@@ -0,0 +1,51 @@
+package com.example.orderservice.result;
+
+import com.example.orderservice.consumer.OrderPayloadDecoder;
+import com.example.orderservice.consumer.OrderStreamMessage;
+import com.example.orderservice.exception.SeckillBusinessException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.retry.MessageRecoverer;
+import org.springframework.amqp.rabbit.retry.RejectAndDontRequeueRecoverer;
+import org.springframework.stereotype.Component;
+
+/**
+ * 监听器重试耗尽后的回调：先把失败结果写入结果通道，再按默认行为拒绝消息（不重新入队）。
+ * Spring Boot 会把唯一的 {@link MessageRecoverer} Bean 装配到 listener 的重试拦截器上。
+ */
+@Component
+public class OrderResultRecoverer implements MessageRecoverer {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderResultRecoverer.class);
+
+    private final OrderPayloadDecoder payloadDecoder;
+    private final OrderResultWriter resultWriter;
+    private final MessageRecoverer delegate = new RejectAndDontRequeueRecoverer();
+
+    public OrderResultRecoverer(OrderPayloadDecoder payloadDecoder, OrderResultWriter resultWriter) {
+        this.payloadDecoder = payloadDecoder;
+        this.resultWriter = resultWriter;
+    }
+
+    @Override
+    public void recover(Message message, Throwable cause) {
+        try {
+            OrderStreamMessage payload = payloadDecoder.decode(message.getBody());
+            OrderOutcome outcome = hasBusinessCause(cause) ? OrderOutcome.REJECTED : OrderOutcome.FAILED;
+            resultWriter.record(payload.getRequestId(), payload.getUserId(), outcome);
+        } catch (Exception e) {
+            log.warn("Could not record failure outcome for undeliverable message", e);
+        }
+        delegate.recover(message, cause);
+    }
+
+    private boolean hasBusinessCause(Throwable cause) {
+        for (Throwable t = cause; t != null; t = t.getCause()) {
+            if (t instanceof SeckillBusinessException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.orderservice.result;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 把每个 requestId 的最终结果写入 Redis，供 seckill-api 的结果查询接口读取。
+ * <p>
+ * 结构：按 requestId 中的时间戳分桶的 hash，{@code HSET <prefix><bucket> <requestId> "<C|F|R>:<userId>"}，
+ * 每个桶 key 整体设置 TTL。一分钟内的所有结果共用一个 key，比每个 requestId 一个 key 节省大量元数据开销。
+ * 分桶规则必须与 seckill-api 的 {@code OrderResultService} 一致。
+ */
+@Component
+public class OrderResultWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderResultWriter.class);
+
+    /**
+     * Snowflake requestId 中时间戳之后的位数（10 位 workerId + 12 位序列号），与 seckill-api 的生成器保持一致。
+     */
+    private static final int TIMESTAMP_SHIFT = 22;
+
+    private final StringRedisTemplate redisTemplate;
+    private final String keyPrefix;
+    private final long bucketMillis;
+    private final long ttlSeconds;
+
+    public OrderResultWriter(StringRedisTemplate redisTemplate,
+                             @Value("${order.result.key-prefix:seckill:result:}") String keyPrefix,
+                             @Value("${order.result.bucket-seconds:60}") long bucketSeconds,
+                             @Value("${order.result.ttl-seconds:1800}") long ttlSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+        this.bucketMillis = TimeUnit.SECONDS.toMillis(Math.max(1, bucketSeconds));
+        this.ttlSeconds = Math.max(1, ttlSeconds);
+    }
+
+    /**
+     * 在当前事务提交后写入结果；没有活动事务时立即写入。事务回滚时不写，交给重试或失败回调决定最终结果。
+     */
+    public void recordAfterCommit(Long requestId, Long userId, OrderOutcome outcome) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            record(requestId, userId, outcome);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                record(requestId, userId, outcome);
+            }
+        });
+    }
+
+    /**
+     * 立即写入结果（不依赖事务是否提交）。
+     */
+    public void record(Long requestId, Long userId, OrderOutcome outcome) {
+        if (requestId == null) {
+            return;
+        }
+        String key = bucketKey(requestId);
+        String value = outcome.code() + ":" + userId;
+        try {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                    RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                    ops.opsForHash().put(key, String.valueOf(requestId), value);
+                    ops.expire(key, ttlSeconds, TimeUnit.SECONDS);
+                    return null;
+                }
+            });
+        } catch (Exception e) {
+            // 结果通道只影响查询，不能影响订单处理本身
+            log.warn("Failed to record outcome {} for requestId={}", outcome, requestId, e);
+        }
+    }
+
+    private String bucketKey(long requestId) {
+        return keyPrefix + ((requestId >>> TIMESTAMP_SHIFT) / bucketMillis);
+    }
+}
@@ -0,0 +1,355 @@
+package com.example.orderservice.stream;
+
+import com.example.orderservice.consumer.OrderPayloadDecoder;
+import com.example.orderservice.consumer.OrderProcessingService;
+import com.example.orderservice.consumer.OrderStreamMessage;
+import com.example.orderservice.exception.SeckillBusinessException;
+import com.example.orderservice.result.OrderOutcome;
+import com.example.orderservice.result.OrderResultWriter;
+import com.example.streamsupport.StreamBookkeeping;
+import com.example.streamsupport.StreamScripts;
+import com.example.streamsupport.StreamTarget;
+import com.example.streamsupport.TrimOutcome;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 直连模式：不经过 relay-service 与 RabbitMQ，直接以消费组读取 seckill-api 写入的 outbox stream。
+ * <ul>
+ *     <li>从 {@code order.stream.registry-key} 与 {@code order.stream.keys} 发现 stream，每个 stream 一个常驻轮询线程，
+ *     循环执行 {@code XREADGROUP COUNT batchSize BLOCK blockTimeout}，繁忙的 stream 读完立即再读，不与其他 stream 排队。
+ *     线程数以 {@code order.stream.max-streams} 为上限，连接池大小在启动时按该上限校验；</li>
+ *     <li>每条记录复用 {@link OrderProcessingService#handle}，该方法是事务边界，返回即表示已提交；整批处理完后
+ *     用一次流水线 XACK，因此条目只会在数据库提交之后确认。提交后、XACK 前崩溃会导致重复投递，
+ *     由 {@code handle} 的 requestId 幂等判断吸收；</li>
+ *     <li>业务拒绝（库存不足）已由 {@code handle} 写入 REJECTED，直接确认；其他异常保留在 PEL 中并累计次数，
+ *     由 XAUTOCLAIM 在 {@code claimIdle} 后重新处理，达到 {@code maxAttempts} 后记为 FAILED 并移入 DLQ；</li>
+ *     <li>发现线程同时按所有消费组的确认进度裁剪 stream（见 {@code scripts/stream-trim.lua}）。</li>
+ *     <li>认领脚本、裁剪脚本与 PEL/重试计数/DLQ 记账来自与 relay-service 共用的 stream-support 模块。</li>
+ * </ul>
+ * 多个 order-service 实例使用同一个消费组，由 Redis 在组内分摊条目，不需要额外的分配协调。
+ * 从 relay 模式切换过来时应删除 stream 上不再使用的 {@code relay-group}；没有删除时它会在 {@code trimStaleGroupIdle}
+ * 之后被当作孤立组跳过，不再阻止裁剪，但每次裁剪都会告警。
+ */
+@Component
+@ConditionalOnProperty(name = "order.ingest.mode", havingValue = "stream")
+public class OrderStreamConsumer implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderStreamConsumer.class);
+    private static final String RECLAIM_CURSOR_SUFFIX = ":order-reclaim-cursor";
+    /**
+     * 轮询线程之外需要连接池连接的调用方（发现线程上的流水线、其他组件的阻塞命令）预留的连接数。
+     */
+    private static final int RESERVED_CONNECTIONS = 2;
+
+    private final StringRedisTemplate redisTemplate;
+    private final OrderStreamProperties properties;
+    private final OrderPayloadDecoder payloadDecoder;
+    private final OrderProcessingService processingService;
+    private final OrderResultWriter resultWriter;
+    private final String consumerName;
+    private final StreamBookkeeping bookkeeping;
+    private final DefaultRedisScript<List> autoClaimScript;
+    private final DefaultRedisScript<List> trimScript;
+
+    private final Map<String, Thread> pollers = new ConcurrentHashMap<>();
+    private final Set<String> overflowStreams = ConcurrentHashMap.newKeySet();
+    private volatile boolean running;
+    private ScheduledExecutorService discoveryExecutor;
+
+    public OrderStreamConsumer(StringRedisTemplate redisTemplate,
+                               OrderStreamProperties properties,
+                               OrderPayloadDecoder payloadDecoder,
+                               OrderProcessingService processingService,
+                               OrderResultWriter resultWriter,
+                               @Value("${spring.redis.lettuce.pool.max-active:8}") int poolMaxActive) {
+        if (poolMaxActive < properties.getMaxStreams() + RESERVED_CONNECTIONS) {
+            throw new IllegalStateException("spring.redis.lettuce.pool.max-active=" + poolMaxActive
+                    + " is too small for order.stream.max-streams=" + properties.getMaxStreams()
+                    + "; each stream poller holds a pooled connection while blocked, so at least "
+                    + (properties.getMaxStreams() + RESERVED_CONNECTIONS) + " are required");
+        }
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+        this.payloadDecoder = payloadDecoder;
+        this.processingService = processingService;
+        this.resultWriter = resultWriter;
+        this.consumerName = StringUtils.hasText(properties.getConsumerName())
+                ? properties.getConsumerName()
+                : defaultConsumerName();
+        this.bookkeeping = new StreamBookkeeping(redisTemplate);
+        this.autoClaimScript = StreamScripts.autoClaim();
+        this.trimScript = StreamScripts.trim();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        discoveryExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "order-stream-discovery");
+            t.setDaemon(true);
+            return t;
+        });
+        discoveryExecutor.scheduleWithFixedDelay(this::refresh, 0,
+                properties.getDiscoveryInterval().toMillis(), TimeUnit.MILLISECONDS);
+        log.info("Order stream consumer {} started (group {}, up to {} streams)",
+                consumerName, properties.getGroup(), properties.getMaxStreams());
+    }
+
+    /**
+     * 停止发现并等待各轮询线程处理完当前批次；阻塞读最多等待 {@code blockTimeout}，超时仍未结束的线程被中断。
+     */
+    @Override
+    public void stop() {
+        running = false;
+        discoveryExecutor.shutdownNow();
+        long waitMillis = properties.getBlockTimeout().toMillis() + TimeUnit.SECONDS.toMillis(10);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMillis);
+        try {
+            for (Thread poller : pollers.values()) {
+                poller.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+                if (poller.isAlive()) {
+                    log.warn("Order stream poller {} did not finish within {}ms", poller.getName(), waitMillis);
+                    poller.interrupt();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pollers.values().forEach(Thread::interrupt);
+        }
+        pollers.clear();
+        overflowStreams.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void refresh() {
+        try {
+            for (String streamKey : discover()) {
+                if (!running) {
+                    return;
+                }
+                if (pollers.containsKey(streamKey)) {
+                    continue;
+                }
+                if (pollers.size() >= properties.getMaxStreams()) {
+                    if (overflowStreams.add(streamKey)) {
+                        log.warn("Not consuming outbox stream {}: order.stream.max-streams={} streams already polled",
+                                streamKey, properties.getMaxStreams());
+                    }
+                    continue;
+                }
+                ensureConsumerGroup(streamKey);
+                Thread poller = new Thread(new Poller(streamKey), "order-stream-" + streamKey);
+                poller.setDaemon(true);
+                pollers.put(streamKey, poller);
+                poller.start();
+                log.info("Consuming outbox stream {} as {}", streamKey, consumerName);
+            }
+            String staleMillis = String.valueOf(properties.getTrimStaleGroupIdle().toMillis());
+            for (String streamKey : pollers.keySet()) {
+                TrimOutcome outcome = TrimOutcome.of(
+                        redisTemplate.execute(trimScript, Collections.singletonList(streamKey), staleMillis));
+                if (!outcome.skippedGroups().isEmpty()) {
+                    log.warn("Ignoring orphaned consumer groups {} on stream {} when trimming; delete them with XGROUP DESTROY",
+                            outcome.skippedGroups(), streamKey);
+                }
+            }
+        } catch (Exception ex) {
+            log.error("Order stream discovery failed", ex);
+        }
+    }
+
+    private Set<String> discover() {
+        Set<String> streams = new LinkedHashSet<>(properties.getKeys());
+        if (StringUtils.hasText(properties.getRegistryKey())) {
+            Set<String> registered = redisTemplate.opsForSet().members(properties.getRegistryKey());
+            if (registered != null) {
+                streams.addAll(registered);
+            }
+        }
+        return streams;
+    }
+
+    /**
+     * 一个 stream 的常驻轮询循环：反复阻塞读并处理，到期时再认领一次空闲条目，直到消费者停止。
+     */
+    private final class Poller implements Runnable {
+
+        private final String streamKey;
+        private long nextClaim = System.nanoTime() + properties.getClaimInterval().toNanos();
+
+        private Poller(String streamKey) {
+            this.streamKey = streamKey;
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    pollOnce();
+                } catch (Exception ex) {
+                    if (!running) {
+                        return;
+                    }
+                    log.error("Failed to consume outbox stream {}", streamKey, ex);
+                    sleepQuietly(properties.getBlockTimeout().toMillis());
+                }
+            }
+        }
+
+        private void pollOnce() {
+            List<MapRecord<String, String, String>> records = redisTemplate.<String, String>opsForStream().read(
+                    Consumer.from(properties.getGroup(), consumerName),
+                    StreamReadOptions.empty()
+                            .block(properties.getBlockTimeout())
+                            .count(properties.getBatchSize()),
+                    StreamOffset.create(streamKey, ReadOffset.lastConsumed()));
+            if (records != null && !records.isEmpty()) {
+                process(streamKey, records, false);
+            }
+            if (System.nanoTime() - nextClaim >= 0) {
+                reclaim(streamKey);
+                nextClaim = System.nanoTime() + properties.getClaimInterval().toNanos();
+            }
+        }
+    }
+
+    private void process(String streamKey, List<MapRecord<String, String, String>> records, boolean redelivery) {
+        StreamBookkeeping.Batch batch = bookkeeping.begin(
+                StreamTarget.of(streamKey, properties.getGroup(), properties.getMaxAttempts()), redelivery);
+        Map<RecordId, OrderStreamMessage> failedMessages = new HashMap<>();
+        for (MapRecord<String, String, String> record : records) {
+            String payload = record.getValue().get("payload");
+            if (payload == null) {
+                log.error("Stream entry {} missing payload field", record.getId());
+                batch.acked(record);
+                continue;
+            }
+            OrderStreamMessage message;
+            try {
+                message = payloadDecoder.decode(payload.getBytes(StandardCharsets.UTF_8));
+            } catch (Exception ex) {
+                log.error("Undecodable stream entry {} acknowledged without processing", record.getId(), ex);
+                batch.acked(record);
+                continue;
+            }
+            try {
+                processingService.handle(message);
+                batch.acked(record);
+            } catch (Exception ex) {
+                if (hasBusinessCause(ex)) {
+                    batch.acked(record);
+                } else {
+                    log.warn("Failed to process stream entry {} requestId={}", record.getId(), message.getRequestId(), ex);
+                    batch.failed(record, String.valueOf(ex.getMessage()));
+                    failedMessages.put(record.getId(), message);
+                }
+            }
+        }
+        // 一次流水线完成整批确认与失败计数；重试耗尽的条目已移入 DLQ，这里补写 FAILED 结果
+        for (StreamBookkeeping.DeadLetter deadLetter : bookkeeping.flush(batch)) {
+            OrderStreamMessage message = failedMessages.get(deadLetter.record().getId());
+            resultWriter.record(message.getRequestId(), message.getUserId(), OrderOutcome.FAILED);
+        }
+    }
+
+    /**
+     * XAUTOCLAIM 分页认领空闲超过 {@code claimIdle} 的条目，游标保存在 {@code <streamKey>:order-reclaim-cursor}。
+     */
+    @SuppressWarnings("unchecked")
+    private void reclaim(String streamKey) {
+        List<String> keys = List.of(streamKey, streamKey + RECLAIM_CURSOR_SUFFIX);
+        List<String> reply = (List<String>) redisTemplate.execute(autoClaimScript, keys,
+                properties.getGroup(), consumerName,
+                String.valueOf(properties.getClaimIdle().toMillis()),
+                String.valueOf(Math.max(1, properties.getClaimBatchSize())));
+        List<MapRecord<String, String, String>> claimed = StreamScripts.claimedRecords(streamKey, reply);
+        if (claimed.isEmpty()) {
+            return;
+        }
+        log.info("Reclaimed {} idle entries from stream {}{}", claimed.size(), streamKey,
+                StreamScripts.SWEEP_COMPLETE.equals(reply.get(0)) ? "" : " (more pending)");
+        process(streamKey, claimed, true);
+    }
+
+    private void ensureConsumerGroup(String streamKey) {
+        try {
+            redisTemplate.opsForStream().createGroup(streamKey, ReadOffset.from("0-0"), properties.getGroup());
+            log.info("Created consumer group {} for stream {}", properties.getGroup(), streamKey);
+        } catch (Exception ex) {
+            if (ex.getMessage() != null && ex.getMessage().contains("BUSYGROUP")) {
+                return;
+            }
+            if (ex.getMessage() != null && ex.getMessage().contains("does not exist")) {
+                RecordId id = redisTemplate.opsForStream().add(StreamRecords.newRecord()
+                        .in(streamKey)
+                        .ofMap(Collections.singletonMap("bootstrap", "1")));
+                redisTemplate.opsForStream().createGroup(streamKey, ReadOffset.latest(), properties.getGroup());
+                redisTemplate.opsForStream().delete(streamKey, id);
+                log.info("Bootstrapped stream {} for group {}", streamKey, properties.getGroup());
+                return;
+            }
+            throw ex;
+        }
+    }
+
+    private static boolean hasBusinessCause(Throwable cause) {
+        for (Throwable t = cause; t != null; t = t.getCause()) {
+            if (t instanceof SeckillBusinessException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String defaultConsumerName() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        return host + "-" + ManagementFactory.getRuntimeMXBean().getPid();
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.orderservice.stream;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@code order.ingest.mode=stream} 时直接消费 outbox stream 的配置。
+ */
+@Component
+@ConfigurationProperties(prefix = "order.stream")
+public class OrderStreamProperties {
+
+    /**
+     * 与 relay-service 的 {@code relay-group} 不同的独立消费组；同一组内的多个 order-service 实例由 Redis 分摊条目。
+     */
+    private String group = "order-group";
+    /**
+     * 为空时取 {@code <hostname>-<pid>}。
+     */
+    private String consumerName;
+    /**
+     * seckill-api 登记 outbox stream 的集合；为空时只消费 {@link #keys}。
+     */
+    private String registryKey = "seckill:streams";
+    private List<String> keys = new ArrayList<>();
+    private Duration discoveryInterval = Duration.ofSeconds(5);
+    /**
+     * 本实例最多同时消费的 stream 数。每个 stream 一个常驻轮询线程，阻塞读期间独占一条连接池连接，
+     * 因此 {@code spring.redis.lettuce.pool.max-active} 必须至少比它大 2（启动时校验）；超出的 stream 不会被消费并告警。
+     */
+    private int maxStreams = 30;
+    private int batchSize = 100;
+    private Duration blockTimeout = Duration.ofSeconds(1);
+    private Duration claimIdle = Duration.ofSeconds(60);
+    private Duration claimInterval = Duration.ofSeconds(5);
+    private int claimBatchSize = 100;
+    /**
+     * 非业务异常的最大处理次数，超过后记为 FAILED 并移入 {@code <streamKey>:dlq}。
+     */
+    private int maxAttempts = 5;
+    /**
+     * 没有 consumer 且最后投递早于该时长的消费组（如切换模式后遗留的 relay-group）不再阻止裁剪；0 表示不跳过任何组。
+     */
+    private Duration trimStaleGroupIdle = Duration.ofHours(1);
+
+    public String getGroup() {
+        return group;
+    }
+
+    public void setGroup(String group) {
+        this.group = group;
+    }
+
+    public String getConsumerName() {
+        return consumerName;
+    }
+
+    public void setConsumerName(String consumerName) {
+        this.consumerName = consumerName;
+    }
+
+    public String getRegistryKey() {
+        return registryKey;
+    }
+
+    public void setRegistryKey(String registryKey) {
+        this.registryKey = registryKey;
+    }
+
+    public List<String> getKeys() {
+        return keys;
+    }
+
+    public void setKeys(List<String> keys) {
+        this.keys = keys;
+    }
+
+    public Duration getDiscoveryInterval() {
+        return discoveryInterval;
+    }
+
+    public void setDiscoveryInterval(Duration discoveryInterval) {
+        this.discoveryInterval = discoveryInterval;
+    }
+
+    public int getMaxStreams() {
+        return maxStreams;
+    }
+
+    public void setMaxStreams(int maxStreams) {
+        this.maxStreams = maxStreams;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public Duration getBlockTimeout() {
+        return blockTimeout;
+    }
+
+    public void setBlockTimeout(Duration blockTimeout) {
+        this.blockTimeout = blockTimeout;
+    }
+
+    public Duration getClaimIdle() {
+        return claimIdle;
+    }
+
+    public void setClaimIdle(Duration claimIdle) {
+        this.claimIdle = claimIdle;
+    }
+
+    public Duration getClaimInterval() {
+        return claimInterval;
+    }
+
+    public void setClaimInterval(Duration claimInterval) {
+        this.claimInterval = claimInterval;
+    }
+
+    public int getClaimBatchSize() {
+        return claimBatchSize;
+    }
+
+    public void setClaimBatchSize(int claimBatchSize) {
+        this.claimBatchSize = claimBatchSize;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public Duration getTrimStaleGroupIdle() {
+        return trimStaleGroupIdle;
+    }
+
+    public void setTrimStaleGroupIdle(Duration trimStaleGroupIdle) {
+        this.trimStaleGroupIdle = trimStaleGroupIdle;
+    }
+}
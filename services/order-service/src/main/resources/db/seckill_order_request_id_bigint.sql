@@ -0,0 +1,33 @@
+-- seckill_order.request_id 从 VARCHAR(64) (UUID) 迁移为 BIGINT (Snowflake)。
+-- 旧 UUID 折叠规则与 OrderStreamMessage#parseRequestId 一致：高 64 位 XOR 低 64 位。
+-- 若订单表按 ShardingSphere 分片，需要在每个物理表上执行。
+
+ALTER TABLE seckill_order ADD COLUMN request_id_new BIGINT NULL;
+
+UPDATE seckill_order
+SET request_id_new = CAST(CAST(CONV(SUBSTRING(REPLACE(request_id, '-', ''), 1, 16), 16, 10) AS UNSIGNED)
+                        ^ CAST(CONV(SUBSTRING(REPLACE(request_id, '-', ''), 17, 16), 16, 10) AS UNSIGNED) AS SIGNED)
+WHERE request_id LIKE '%-%';
+
+UPDATE seckill_order
+SET request_id_new = CAST(request_id AS SIGNED)
+WHERE request_id NOT LIKE '%-%';
+
+-- Hibernate 生成的唯一索引名形如 UK_xxx，各环境不同：从 information_schema 查出 request_id 上的唯一索引后拼成一条 ALTER。
+-- 没有这样的索引时执行空语句，脚本可以原样重复执行到这一步。
+SET @drop_legacy_index = (
+    SELECT CONCAT('ALTER TABLE seckill_order ',
+                  GROUP_CONCAT(DISTINCT CONCAT('DROP INDEX `', INDEX_NAME, '`') SEPARATOR ', '))
+    FROM information_schema.STATISTICS
+    WHERE TABLE_SCHEMA = DATABASE()
+      AND TABLE_NAME = 'seckill_order'
+      AND COLUMN_NAME = 'request_id'
+      AND NON_UNIQUE = 0);
+SET @drop_legacy_index = COALESCE(@drop_legacy_index, 'DO 0');
+PREPARE drop_legacy_index FROM @drop_legacy_index;
+EXECUTE drop_legacy_index;
+DEALLOCATE PREPARE drop_legacy_index;
+
+ALTER TABLE seckill_order DROP COLUMN request_id;
+ALTER TABLE seckill_order CHANGE COLUMN request_id_new request_id BIGINT NOT NULL;
+ALTER TABLE seckill_order ADD UNIQUE INDEX uk_seckill_order_request_id (request_id);
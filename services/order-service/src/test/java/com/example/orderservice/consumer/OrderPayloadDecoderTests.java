@@ -0,0 +1,76 @@
+package com.example.orderservice.consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OrderPayloadDecoderTests {
+
+    private final OrderPayloadDecoder decoder = new OrderPayloadDecoder(new ObjectMapper());
+
+    @Test
+    void decodesCompactPayload() throws Exception {
+        OrderStreamMessage message = decoder.decode(compact("7182818284590452353:42:1001:3"));
+
+        assertEquals(7182818284590452353L, message.getRequestId());
+        assertEquals(42L, message.getUserId());
+        assertEquals(1001L, message.getProductId());
+        assertEquals(3, message.getBucket());
+    }
+
+    @Test
+    void decodesCompactPayloadWithMaxLongRequestId() throws Exception {
+        OrderStreamMessage message = decoder.decode(compact(Long.MAX_VALUE + ":1:1:1"));
+
+        assertEquals(Long.MAX_VALUE, message.getRequestId());
+    }
+
+    @Test
+    void rejectsMalformedCompactPayloads() {
+        assertThrows(IllegalArgumentException.class, () -> decoder.decode(compact("")));
+        assertThrows(IllegalArgumentException.class, () -> decoder.decode(compact("1:2:3")));
+        assertThrows(IllegalArgumentException.class, () -> decoder.decode(compact("1:2:3:4:5")));
+        assertThrows(IllegalArgumentException.class, () -> decoder.decode(compact("1::3:4")));
+        assertThrows(IllegalArgumentException.class, () -> decoder.decode(compact("1:2:3:")));
+        assertThrows(IllegalArgumentException.class, () -> decoder.decode(compact("1:-2:3:4")));
+        assertThrows(IllegalArgumentException.class, () -> decoder.decode(compact("12345678901234567890:2:3:4")));
+    }
+
+    @Test
+    void fallsBackToJsonForLegacySnowflakePayload() throws Exception {
+        OrderStreamMessage message = decoder.decode(json(
+                "{\"requestId\":\"123456789\",\"userId\":42,\"productId\":1001,\"bucket\":3,\"ts\":\"1700000000000\",\"extra\":1}"));
+
+        assertEquals(123456789L, message.getRequestId());
+        assertEquals(42L, message.getUserId());
+        assertEquals(1001L, message.getProductId());
+        assertEquals(3, message.getBucket());
+        assertEquals("1700000000000", message.getTs());
+    }
+
+    @Test
+    void foldsLegacyUuidRequestIdToSixtyFourBits() throws Exception {
+        UUID legacy = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+        OrderStreamMessage message = decoder.decode(json(
+                "{\"requestId\":\"" + legacy + "\",\"userId\":42,\"productId\":1001,\"bucket\":1}"));
+
+        assertEquals(legacy.getMostSignificantBits() ^ legacy.getLeastSignificantBits(), message.getRequestId());
+    }
+
+    private static byte[] compact(String fields) {
+        byte[] ascii = fields.getBytes(StandardCharsets.US_ASCII);
+        byte[] body = new byte[ascii.length + 1];
+        body[0] = OrderPayloadDecoder.ORDER_V2_MARKER;
+        System.arraycopy(ascii, 0, body, 1, ascii.length);
+        return body;
+    }
+
+    private static byte[] json(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.relayservice.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scripting.support.ResourceScriptSource;
+
+/**
+ * relay 自己的 Redis 组件；确认、重试计数、分配等文本操作仍使用自动配置的 {@code StringRedisTemplate}。
+ */
+@Configuration
+public class RedisConfig {
+
+    /**
+     * 读取 outbox stream 的模板：key 与字段名按字符串处理，字段值保留 Redis 返回的原始字节，
+     * 载荷不经过 String 解码/再编码就直接成为 AMQP 消息体。
+     */
+    @Bean("streamPayloadTemplate")
+    public RedisTemplate<String, byte[]> streamPayloadTemplate(RedisConnectionFactory connectionFactory) {
+        RedisTemplate<String, byte[]> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(RedisSerializer.string());
+        template.setHashKeySerializer(RedisSerializer.string());
+        template.setValueSerializer(RedisSerializer.byteArray());
+        template.setHashValueSerializer(RedisSerializer.byteArray());
+        template.afterPropertiesSet();
+        return template;
+    }
+
+    /**
+     * stream 租约：空闲或已由本实例持有时获取/续期，返回 1 表示本实例持有租约。
+     */
+    @Bean("leaseAcquireScript")
+    public DefaultRedisScript<Long> leaseAcquireScript() {
+        DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
+        redisScript.setScriptSource(new ResourceScriptSource(new ClassPathResource("scripts/lease-acquire.lua")));
+        redisScript.setResultType(Long.class);
+        return redisScript;
+    }
+
+    /**
+     * stream 租约：仅当仍由本实例持有时释放。
+     */
+    @Bean("leaseReleaseScript")
+    public DefaultRedisScript<Long> leaseReleaseScript() {
+        DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
+        redisScript.setScriptSource(new ResourceScriptSource(new ClassPathResource("scripts/lease-release.lua")));
+        redisScript.setResultType(Long.class);
+        return redisScript;
+    }
+}
@@ -13,11 +13,67 @@ import org.springframework.stereotype.Component;
 public class RelayProperties {
 
     private List<StreamBinding> streams = new ArrayList<>();
+    /**
+     * 轮询线程与当前分配结果的对齐间隔，也是读取出错后的退避时间；各 stream 的读取本身是常驻循环，不按此间隔调度。
+     */
     private Duration pollInterval = Duration.ofMillis(200);
     private Duration blockTimeout = Duration.ofMillis(1000);
     private int batchSize = 20;
     private Duration claimIdle = Duration.ofSeconds(60);
+    /**
+     * XAUTOCLAIM 每页条数（COUNT）。
+     */
     private int claimBatchSize = 50;
+    /**
+     * 认领任务的调度间隔与每轮最多处理的页数；条目的空闲阈值仍由 {@link #claimIdle} 决定。
+     */
+    private Duration claimInterval = Duration.ofSeconds(5);
+    private int claimMaxPages = 20;
+    /**
+     * 每个 stream 批次中允许同时等待 broker 确认的最大消息数；启用 {@link Flow} 时与 {@link #batchSize} 一样只是初始值。
+     */
+    private int maxInFlight = 256;
+    private Duration confirmTimeout = Duration.ofSeconds(5);
+    /**
+     * 本实例最多同时轮询的 stream 数。每个 stream 一个常驻轮询线程，阻塞读期间独占一条连接池连接，
+     * 因此 {@code spring.redis.lettuce.pool.max-active} 必须至少比它大 2（启动时校验）；超出的 stream 不会被轮询并告警。
+     */
+    private int maxStreams = 30;
+    /**
+     * 关闭时等待各轮询任务结束当前批次（含等待 broker 确认与结算）的最长时间。
+     */
+    private Duration shutdownTimeout = Duration.ofSeconds(30);
+    /**
+     * 每个 stream 积压指标的采样间隔。
+     */
+    private Duration metricsInterval = Duration.ofSeconds(5);
+    /**
+     * 已确认条目的清理方式，见 {@link Retention}。
+     */
+    private Retention retention = Retention.TRIM;
+    private Duration trimInterval = Duration.ofSeconds(5);
+    /**
+     * 没有 consumer 且最后投递早于该时长的消费组视为孤立组，不再阻止裁剪（会告警并计入指标）；0 表示不跳过任何组。
+     */
+    private Duration trimStaleGroupIdle = Duration.ofHours(1);
+    /**
+     * 本实例的唯一标识，同时用作所有 stream 上的消费者名称；为空时取 {@code <hostname>-<pid>}。
+     */
+    private String instanceId;
+    private Discovery discovery = new Discovery();
+    private Partitioning partitioning = new Partitioning();
+    private Flow flow = new Flow();
+
+    public enum Retention {
+        /**
+         * 确认时只 XACK，由 StreamTrimmer 定期按消费组确认进度 XTRIM MINID，整块释放 listpack。
+         */
+        TRIM,
+        /**
+         * 旧行为：每条确认后立即 XDEL。
+         */
+        DELETE
+    }
 
     public List<StreamBinding> getStreams() {
         return streams;
@@ -67,9 +123,252 @@ public class RelayProperties {
         this.claimBatchSize = claimBatchSize;
     }
 
+    public Duration getClaimInterval() {
+        return claimInterval;
+    }
+
+    public void setClaimInterval(Duration claimInterval) {
+        this.claimInterval = claimInterval;
+    }
+
+    public int getClaimMaxPages() {
+        return claimMaxPages;
+    }
+
+    public void setClaimMaxPages(int claimMaxPages) {
+        this.claimMaxPages = claimMaxPages;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    public Duration getConfirmTimeout() {
+        return confirmTimeout;
+    }
+
+    public void setConfirmTimeout(Duration confirmTimeout) {
+        this.confirmTimeout = confirmTimeout;
+    }
+
+    public int getMaxStreams() {
+        return maxStreams;
+    }
+
+    public void setMaxStreams(int maxStreams) {
+        this.maxStreams = maxStreams;
+    }
+
+    public Duration getShutdownTimeout() {
+        return shutdownTimeout;
+    }
+
+    public void setShutdownTimeout(Duration shutdownTimeout) {
+        this.shutdownTimeout = shutdownTimeout;
+    }
+
+    public Duration getMetricsInterval() {
+        return metricsInterval;
+    }
+
+    public void setMetricsInterval(Duration metricsInterval) {
+        this.metricsInterval = metricsInterval;
+    }
+
+    public Retention getRetention() {
+        return retention;
+    }
+
+    public void setRetention(Retention retention) {
+        this.retention = retention;
+    }
+
+    public Duration getTrimInterval() {
+        return trimInterval;
+    }
+
+    public void setTrimInterval(Duration trimInterval) {
+        this.trimInterval = trimInterval;
+    }
+
+    public Duration getTrimStaleGroupIdle() {
+        return trimStaleGroupIdle;
+    }
+
+    public void setTrimStaleGroupIdle(Duration trimStaleGroupIdle) {
+        this.trimStaleGroupIdle = trimStaleGroupIdle;
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public void setInstanceId(String instanceId) {
+        this.instanceId = instanceId;
+    }
+
+    public Discovery getDiscovery() {
+        return discovery;
+    }
+
+    public void setDiscovery(Discovery discovery) {
+        this.discovery = discovery;
+    }
+
+    public Partitioning getPartitioning() {
+        return partitioning;
+    }
+
+    public void setPartitioning(Partitioning partitioning) {
+        this.partitioning = partitioning;
+    }
+
+    public Flow getFlow() {
+        return flow;
+    }
+
+    public void setFlow(Flow flow) {
+        this.flow = flow;
+    }
+
+    /**
+     * outbox stream 的自动发现：seckill-api 预热时登记的集合，以及可选的 SCAN 兜底。
+     * 发现到的 stream 使用这里的消费组、交换机与路由键；{@link #getStreams()} 中同名的 stream 以显式配置为准。
+     */
+    public static class Discovery {
+        private boolean enabled = true;
+        private String registryKey = "seckill:streams";
+        /**
+         * 为空时不做 SCAN。以 {@code :dlq} 结尾的 stream 与非 stream 类型的 key 会被忽略。
+         */
+        private String scanPattern = "seckill:stream:*";
+        private Duration interval = Duration.ofSeconds(5);
+        private String group = "relay-group";
+        private String exchange = "seckill.exchange";
+        private String routingKey = "seckill.order.created";
+        private int maxAttempts = 5;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getRegistryKey() {
+            return registryKey;
+        }
+
+        public void setRegistryKey(String registryKey) {
+            this.registryKey = registryKey;
+        }
+
+        public String getScanPattern() {
+            return scanPattern;
+        }
+
+        public void setScanPattern(String scanPattern) {
+            this.scanPattern = scanPattern;
+        }
+
+        public Duration getInterval() {
+            return interval;
+        }
+
+        public void setInterval(Duration interval) {
+            this.interval = interval;
+        }
+
+        public String getGroup() {
+            return group;
+        }
+
+        public void setGroup(String group) {
+            this.group = group;
+        }
+
+        public String getExchange() {
+            return exchange;
+        }
+
+        public void setExchange(String exchange) {
+            this.exchange = exchange;
+        }
+
+        public String getRoutingKey() {
+            return routingKey;
+        }
+
+        public void setRoutingKey(String routingKey) {
+            this.routingKey = routingKey;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+    }
+
+    /**
+     * relay 实例之间的 stream 分配：实例定期在 {@code membersKey} 中心跳，按一致性哈希决定每个 stream 的归属，
+     * 归属实例再以 {@code leaseKeyPrefix + streamKey} 租约独占该 stream，租约过期前其他实例不会读取。
+     */
+    public static class Partitioning {
+        private String membersKey = "relay:members";
+        private String leaseKeyPrefix = "relay:lease:";
+        /**
+         * 心跳与租约的有效期，应明显大于 {@link Discovery#getInterval()}。
+         */
+        private Duration leaseTtl = Duration.ofSeconds(15);
+        private int virtualNodes = 64;
+
+        public String getMembersKey() {
+            return membersKey;
+        }
+
+        public void setMembersKey(String membersKey) {
+            this.membersKey = membersKey;
+        }
+
+        public String getLeaseKeyPrefix() {
+            return leaseKeyPrefix;
+        }
+
+        public void setLeaseKeyPrefix(String leaseKeyPrefix) {
+            this.leaseKeyPrefix = leaseKeyPrefix;
+        }
+
+        public Duration getLeaseTtl() {
+            return leaseTtl;
+        }
+
+        public void setLeaseTtl(Duration leaseTtl) {
+            this.leaseTtl = leaseTtl;
+        }
+
+        public int getVirtualNodes() {
+            return virtualNodes;
+        }
+
+        public void setVirtualNodes(int virtualNodes) {
+            this.virtualNodes = virtualNodes;
+        }
+    }
+
     public static class StreamBinding {
         private String streamKey;
         private String group;
+        /**
+         * 运行时统一替换为本实例的 instanceId（见 {@link #withConsumerName(String)}），配置值不再生效。
+         */
         private String consumerName;
         private String exchange;
         private String routingKey;
@@ -77,6 +376,22 @@ public class RelayProperties {
         private String attemptsKey;
         private int maxAttempts = 5;
 
+        /**
+         * 复制一份绑定并替换消费者名称；所有 stream 上统一使用本实例的 instanceId。
+         */
+        public StreamBinding withConsumerName(String consumerName) {
+            StreamBinding copy = new StreamBinding();
+            copy.streamKey = streamKey;
+            copy.group = group;
+            copy.consumerName = consumerName;
+            copy.exchange = exchange;
+            copy.routingKey = routingKey;
+            copy.dlqKey = dlqKey;
+            copy.attemptsKey = attemptsKey;
+            copy.maxAttempts = maxAttempts;
+            return copy;
+        }
+
         public String getStreamKey() {
             return streamKey;
         }
@@ -141,4 +456,103 @@ public class RelayProperties {
             this.maxAttempts = maxAttempts;
         }
     }
+
+    /**
+     * 每个 stream 的 AIMD 流控：以 {@link #getBatchSize()} 与 {@link #getMaxInFlight()} 为初始值，
+     * 批次内 broker 确认的平均延迟不超过 {@code targetLatency} 且读满一批时加性增大 XREADGROUP COUNT 与在途窗口，
+     * 出现 nack、确认超时或平均延迟超过目标时两者按 {@code decreaseFactor} 乘性减小；已在下限仍拥塞时暂停 {@code backoff} 再读。
+     * 关闭时始终使用静态的 batchSize / maxInFlight。
+     */
+    public static class Flow {
+        private boolean enabled = true;
+        private Duration targetLatency = Duration.ofMillis(50);
+        private int minBatchSize = 10;
+        private int maxBatchSize = 500;
+        private int batchSizeStep = 10;
+        private int minInFlight = 16;
+        private int maxInFlight = 2048;
+        private int inFlightStep = 32;
+        private double decreaseFactor = 0.5;
+        private Duration backoff = Duration.ofMillis(200);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getTargetLatency() {
+            return targetLatency;
+        }
+
+        public void setTargetLatency(Duration targetLatency) {
+            this.targetLatency = targetLatency;
+        }
+
+        public int getMinBatchSize() {
+            return minBatchSize;
+        }
+
+        public void setMinBatchSize(int minBatchSize) {
+            this.minBatchSize = minBatchSize;
+        }
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+
+        public int getBatchSizeStep() {
+            return batchSizeStep;
+        }
+
+        public void setBatchSizeStep(int batchSizeStep) {
+            this.batchSizeStep = batchSizeStep;
+        }
+
+        public int getMinInFlight() {
+            return minInFlight;
+        }
+
+        public void setMinInFlight(int minInFlight) {
+            this.minInFlight = minInFlight;
+        }
+
+        public int getMaxInFlight() {
+            return maxInFlight;
+        }
+
+        public void setMaxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+        }
+
+        public int getInFlightStep() {
+            return inFlightStep;
+        }
+
+        public void setInFlightStep(int inFlightStep) {
+            this.inFlightStep = inFlightStep;
+        }
+
+        public double getDecreaseFactor() {
+            return decreaseFactor;
+        }
+
+        public void setDecreaseFactor(double decreaseFactor) {
+            this.decreaseFactor = decreaseFactor;
+        }
+
+        public Duration getBackoff() {
+            return backoff;
+        }
+
+        public void setBackoff(Duration backoff) {
+            this.backoff = backoff;
+        }
+    }
 }
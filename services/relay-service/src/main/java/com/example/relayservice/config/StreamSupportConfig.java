@@ -0,0 +1,18 @@
+package com.example.relayservice.config;
+
+import com.example.streamsupport.StreamBookkeeping;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * stream-support 中与 order-service 共用的组件。
+ */
+@Configuration
+public class StreamSupportConfig {
+
+    @Bean
+    public StreamBookkeeping streamBookkeeping(StringRedisTemplate redisTemplate) {
+        return new StreamBookkeeping(redisTemplate);
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.relayservice.metrics;
+
+import com.example.relayservice.config.RelayProperties.StreamBinding;
+import com.example.relayservice.partition.StreamAssignment;
+import com.example.streamsupport.TrimOutcome;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.stream.StreamInfo;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * relay 的每个 stream 指标，tag {@code stream} 为 stream key：
+ * <ul>
+ *     <li>{@code relay.stream.batch}：一次读取 + 转发 + 结算的耗时，count 即批次数；</li>
+ *     <li>{@code relay.stream.forwarded}：读到并交给转发的条目数；</li>
+ *     <li>{@code relay.stream.lag}：最新条目与消费组最后投递条目的 ID 时间戳之差（毫秒），
+ *     Redis 6.2 的 XINFO GROUPS 没有 lag 字段，用时间差近似积压；</li>
+ *     <li>{@code relay.stream.pending}：消费组 PEL 中已投递未确认的条目数；</li>
+ *     <li>{@code relay.flow.batch-size} / {@code relay.flow.window}：流控当前给出的 XREADGROUP COUNT 与在途窗口；</li>
+ *     <li>{@code relay.flow.confirm-latency}：每条消息从发布到收到 broker 确认的时间；</li>
+ *     <li>{@code relay.stream.trim.floor-age}：裁剪下界 ID 距今的毫秒数，持续增长说明有消费组的进度阻止了裁剪；</li>
+ *     <li>{@code relay.stream.trim.skipped-groups}：上一次裁剪因孤立而跳过的消费组数，非 0 时应清理这些组。</li>
+ * </ul>
+ * lag 与 pending 由 {@link #sampleLag()} 按 {@code relay.metrics-interval} 采样；本实例不再持有的 stream 的指标会被移除，
+ * 因此多实例时每个 stream 只由当前属主上报。
+ */
+@Component
+public class RelayMetrics {
+
+    private static final Logger log = LoggerFactory.getLogger(RelayMetrics.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final StreamAssignment assignment;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, StreamMeters> meters = new ConcurrentHashMap<>();
+
+    public RelayMetrics(StringRedisTemplate redisTemplate, StreamAssignment assignment, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.assignment = assignment;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void recordBatch(String streamKey, int records, long startNanos) {
+        StreamMeters streamMeters = meters(streamKey);
+        streamMeters.batch.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        streamMeters.forwarded.increment(records);
+    }
+
+    public void recordConfirm(String streamKey, long latencyNanos) {
+        meters(streamKey).confirmLatency.record(latencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordFlow(String streamKey, int batchSize, int window) {
+        StreamMeters streamMeters = meters(streamKey);
+        streamMeters.batchSize.set(batchSize);
+        streamMeters.window.set(window);
+    }
+
+    public void recordTrim(String streamKey, TrimOutcome outcome) {
+        StreamMeters streamMeters = meters(streamKey);
+        long floorMillis = outcome.floorMillis();
+        streamMeters.trimFloorAge.set(floorMillis == 0 ? 0 : Math.max(0, System.currentTimeMillis() - floorMillis));
+        streamMeters.trimSkippedGroups.set(outcome.skippedGroups().size());
+    }
+
+    @Scheduled(fixedDelayString = "#{@relayProperties.metricsInterval.toMillis()}")
+    public void sampleLag() {
+        List<StreamBinding> bindings = assignment.activeBindings();
+        Set<String> active = new HashSet<>();
+        for (StreamBinding binding : bindings) {
+            active.add(binding.getStreamKey());
+            try {
+                sample(binding);
+            } catch (Exception ex) {
+                log.debug("Failed to sample lag of stream {}", binding.getStreamKey(), ex);
+            }
+        }
+        meters.keySet().removeIf(streamKey -> {
+            if (active.contains(streamKey)) {
+                return false;
+            }
+            meters.get(streamKey).registered.forEach(meterRegistry::remove);
+            return true;
+        });
+    }
+
+    private void sample(StreamBinding binding) {
+        StreamInfo.XInfoStream info = redisTemplate.opsForStream().info(binding.getStreamKey());
+        StreamInfo.XInfoGroups groups = redisTemplate.opsForStream().groups(binding.getStreamKey());
+        StreamMeters streamMeters = meters(binding.getStreamKey());
+        groups.stream()
+                .filter(group -> binding.getGroup().equals(group.groupName()))
+                .findFirst()
+                .ifPresent(group -> {
+                    long lag = idMillis(info.lastGeneratedId()) - idMillis(group.lastDeliveredId());
+                    streamMeters.lagMillis.set(Math.max(0, lag));
+                    streamMeters.pending.set(group.pendingCount());
+                });
+    }
+
+    private StreamMeters meters(String streamKey) {
+        return meters.computeIfAbsent(streamKey, this::register);
+    }
+
+    private StreamMeters register(String streamKey) {
+        StreamMeters streamMeters = new StreamMeters();
+        streamMeters.batch = Timer.builder("relay.stream.batch")
+                .description("Read, publish and settle time of one relay batch")
+                .tag("stream", streamKey)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(100_000))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(meterRegistry);
+        streamMeters.forwarded = Counter.builder("relay.stream.forwarded")
+                .description("Stream entries read and handed to the broker")
+                .tag("stream", streamKey)
+                .register(meterRegistry);
+        streamMeters.confirmLatency = Timer.builder("relay.flow.confirm-latency")
+                .description("Time from publish to broker confirm of one message")
+                .tag("stream", streamKey)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(100_000))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(meterRegistry);
+        streamMeters.registered.add(streamMeters.batch);
+        streamMeters.registered.add(streamMeters.forwarded);
+        streamMeters.registered.add(streamMeters.confirmLatency);
+        streamMeters.registered.add(Gauge.builder("relay.flow.batch-size", streamMeters.batchSize, AtomicLong::get)
+                .description("Current adaptive XREADGROUP COUNT")
+                .tag("stream", streamKey)
+                .register(meterRegistry));
+        streamMeters.registered.add(Gauge.builder("relay.flow.window", streamMeters.window, AtomicLong::get)
+                .description("Current adaptive limit of unconfirmed messages per batch")
+                .tag("stream", streamKey)
+                .register(meterRegistry));
+        streamMeters.registered.add(Gauge.builder("relay.stream.lag", streamMeters.lagMillis, AtomicLong::get)
+                .description("Id timestamp gap between the newest entry and the group's last delivered entry")
+                .baseUnit("milliseconds")
+                .tag("stream", streamKey)
+                .register(meterRegistry));
+        streamMeters.registered.add(Gauge.builder("relay.stream.pending", streamMeters.pending, AtomicLong::get)
+                .description("Entries delivered to the relay group but not yet acknowledged")
+                .tag("stream", streamKey)
+                .register(meterRegistry));
+        streamMeters.registered.add(Gauge.builder("relay.stream.trim.floor-age", streamMeters.trimFloorAge, AtomicLong::get)
+                .description("Age of the id below which the stream was last trimmed")
+                .baseUnit("milliseconds")
+                .tag("stream", streamKey)
+                .register(meterRegistry));
+        streamMeters.registered.add(Gauge.builder("relay.stream.trim.skipped-groups", streamMeters.trimSkippedGroups, AtomicLong::get)
+                .description("Orphaned consumer groups ignored by the last trim")
+                .tag("stream", streamKey)
+                .register(meterRegistry));
+        return streamMeters;
+    }
+
+    /**
+     * stream ID 形如 {@code <ms>-<seq>}；空流的 {@code 0-0} 得到 0。
+     */
+    private static long idMillis(String id) {
+        if (id == null) {
+            return 0;
+        }
+        int dash = id.indexOf('-');
+        return Long.parseLong(dash < 0 ? id : id.substring(0, dash));
+    }
+
+    private static final class StreamMeters {
+        private final AtomicLong lagMillis = new AtomicLong();
+        private final AtomicLong pending = new AtomicLong();
+        private final AtomicLong batchSize = new AtomicLong();
+        private final AtomicLong window = new AtomicLong();
+        private final AtomicLong trimFloorAge = new AtomicLong();
+        private final AtomicLong trimSkippedGroups = new AtomicLong();
+        private final List<Meter> registered = new ArrayList<>();
+        private Timer batch;
+        private Counter forwarded;
+        private Timer confirmLatency;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.relayservice.partition;
+
+import com.example.relayservice.config.RelayProperties;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * relay 实例成员表：有序集合 {@code relay.partitioning.members-key}，score 为最近一次心跳的毫秒时间戳。
+ * 心跳超过租约有效期的成员视为已离开，由任一存活实例在心跳时顺带清理。
+ */
+@Component
+public class RelayMembership {
+
+    private final StringRedisTemplate redisTemplate;
+    private final RelayProperties properties;
+    private final String instanceId;
+
+    public RelayMembership(StringRedisTemplate redisTemplate, RelayProperties properties) {
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+        this.instanceId = StringUtils.hasText(properties.getInstanceId())
+                ? properties.getInstanceId()
+                : defaultInstanceId();
+    }
+
+    public String instanceId() {
+        return instanceId;
+    }
+
+    /**
+     * 写入本实例心跳并清理过期成员。
+     *
+     * @return 当前存活的成员（包含本实例），按名称排序
+     */
+    public List<String> heartbeat() {
+        String membersKey = properties.getPartitioning().getMembersKey();
+        long now = System.currentTimeMillis();
+        long ttlMillis = properties.getPartitioning().getLeaseTtl().toMillis();
+        redisTemplate.opsForZSet().add(membersKey, instanceId, now);
+        redisTemplate.opsForZSet().removeRangeByScore(membersKey, Double.NEGATIVE_INFINITY, now - ttlMillis);
+        Set<String> members = redisTemplate.opsForZSet().range(membersKey, 0, -1);
+        List<String> live = members == null ? new ArrayList<>() : new ArrayList<>(members);
+        if (!live.contains(instanceId)) {
+            live.add(instanceId);
+        }
+        live.sort(null);
+        return live;
+    }
+
+    public void leave() {
+        redisTemplate.opsForZSet().remove(properties.getPartitioning().getMembersKey(), instanceId);
+    }
+
+    private static String defaultInstanceId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        return host + "-" + ManagementFactory.getRuntimeMXBean().getPid();
+    }
+}
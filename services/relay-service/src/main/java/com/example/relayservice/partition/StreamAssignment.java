@@ -0,0 +1,267 @@
+package com.example.relayservice.partition;
+
+import com.example.relayservice.config.RelayProperties;
+import com.example.relayservice.config.RelayProperties.Discovery;
+import com.example.relayservice.config.RelayProperties.StreamBinding;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.connection.DataType;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamInfo;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 决定本实例负责转发哪些 outbox stream：
+ * <ol>
+ *     <li>发现候选 stream：seckill-api 登记的集合、可选的 SCAN 兜底，以及 {@code relay.streams} 中的显式配置；</li>
+ *     <li>在 {@link RelayMembership} 中心跳并取得存活成员，按 {@link ConsistentHashRing} 计算每个 stream 的归属；</li>
+ *     <li>归属本实例的 stream 获取/续期租约，拿到租约才开始读取；不再归属本实例的 stream 主动释放租约，
+ *     使新的归属实例在下一轮即可接管。</li>
+ * </ol>
+ * 成员视图在实例间可能短暂不一致，租约保证同一时刻每个 stream 只有一个实例在读。交接期间前一个实例未确认的条目
+ * 由新实例按 {@code claimIdle} 认领，保持至少一次投递。
+ */
+@Component
+public class StreamAssignment implements InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(StreamAssignment.class);
+    private static final String DLQ_SUFFIX = ":dlq";
+
+    private final StringRedisTemplate redisTemplate;
+    private final RelayProperties properties;
+    private final RelayMembership membership;
+    private final DefaultRedisScript<Long> acquireScript;
+    private final DefaultRedisScript<Long> releaseScript;
+
+    /**
+     * 本实例当前持有租约的 stream。只由刷新任务修改，读取方拿到的是不可变快照。
+     */
+    private final Map<String, StreamBinding> owned = new LinkedHashMap<>();
+    private volatile List<StreamBinding> activeBindings = Collections.emptyList();
+    private boolean scanUnsupported;
+
+    public StreamAssignment(StringRedisTemplate redisTemplate,
+                            @Qualifier("leaseAcquireScript") DefaultRedisScript<Long> acquireScript,
+                            @Qualifier("leaseReleaseScript") DefaultRedisScript<Long> releaseScript,
+                            RelayProperties properties,
+                            RelayMembership membership) {
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+        this.membership = membership;
+        this.acquireScript = acquireScript;
+        this.releaseScript = releaseScript;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        for (StreamBinding binding : properties.getStreams()) {
+            if (!StringUtils.hasText(binding.getStreamKey())) {
+                throw new IllegalArgumentException("streamKey must be configured for relay");
+            }
+        }
+        if (properties.getPartitioning().getLeaseTtl().compareTo(properties.getDiscovery().getInterval().multipliedBy(2)) < 0) {
+            log.warn("relay.partitioning.lease-ttl={} is less than twice relay.discovery.interval={}; leases may lapse between renewals",
+                    properties.getPartitioning().getLeaseTtl(), properties.getDiscovery().getInterval());
+        }
+        log.info("Relay instance {} starting stream assignment", membership.instanceId());
+        refresh();
+    }
+
+    /**
+     * 本实例当前负责的 stream，消费者名称均为本实例的 instanceId。
+     */
+    public List<StreamBinding> activeBindings() {
+        return activeBindings;
+    }
+
+    @Scheduled(fixedDelayString = "#{@relayProperties.discovery.interval.toMillis()}")
+    public synchronized void refresh() {
+        try {
+            ConsistentHashRing ring = new ConsistentHashRing(membership.heartbeat(),
+                    properties.getPartitioning().getVirtualNodes());
+            Map<String, StreamBinding> candidates = discover();
+
+            for (Map.Entry<String, StreamBinding> candidate : candidates.entrySet()) {
+                String streamKey = candidate.getKey();
+                if (membership.instanceId().equals(ring.owner(streamKey))) {
+                    if (acquire(streamKey)) {
+                        if (!owned.containsKey(streamKey)) {
+                            take(candidate.getValue());
+                        }
+                    } else if (owned.remove(streamKey) != null) {
+                        log.warn("Lost lease on stream {} to another relay instance", streamKey);
+                    }
+                } else if (owned.containsKey(streamKey)) {
+                    release(streamKey, "rebalanced to " + ring.owner(streamKey));
+                }
+            }
+            for (String streamKey : new ArrayList<>(owned.keySet())) {
+                if (!candidates.containsKey(streamKey)) {
+                    release(streamKey, "no longer discovered");
+                }
+            }
+        } catch (Exception ex) {
+            log.error("Stream assignment refresh failed; keeping {} current streams", owned.size(), ex);
+        } finally {
+            activeBindings = List.copyOf(owned.values());
+        }
+    }
+
+    @Override
+    public synchronized void destroy() {
+        for (String streamKey : new ArrayList<>(owned.keySet())) {
+            try {
+                release(streamKey, "shutdown");
+            } catch (Exception ex) {
+                log.warn("Failed to release lease on stream {} during shutdown", streamKey, ex);
+            }
+        }
+        activeBindings = Collections.emptyList();
+        try {
+            membership.leave();
+        } catch (Exception ex) {
+            log.warn("Failed to leave relay membership", ex);
+        }
+    }
+
+    private void take(StreamBinding template) {
+        StreamBinding binding = template.withConsumerName(membership.instanceId());
+        ensureConsumerGroup(binding);
+        removeIdleConsumers(binding);
+        owned.put(binding.getStreamKey(), binding);
+        log.info("Relay instance {} now owns stream {}", membership.instanceId(), binding.getStreamKey());
+    }
+
+    private void release(String streamKey, String reason) {
+        owned.remove(streamKey);
+        redisTemplate.execute(releaseScript, Collections.singletonList(leaseKey(streamKey)), membership.instanceId());
+        log.info("Relay instance {} released stream {} ({})", membership.instanceId(), streamKey, reason);
+    }
+
+    private boolean acquire(String streamKey) {
+        Long result = redisTemplate.execute(acquireScript, Collections.singletonList(leaseKey(streamKey)),
+                membership.instanceId(), String.valueOf(properties.getPartitioning().getLeaseTtl().toMillis()));
+        return result != null && result == 1L;
+    }
+
+    private String leaseKey(String streamKey) {
+        return properties.getPartitioning().getLeaseKeyPrefix() + streamKey;
+    }
+
+    private Map<String, StreamBinding> discover() {
+        Map<String, StreamBinding> candidates = new LinkedHashMap<>();
+        Discovery discovery = properties.getDiscovery();
+        if (discovery.isEnabled()) {
+            Set<String> keys = new TreeSet<>();
+            if (StringUtils.hasText(discovery.getRegistryKey())) {
+                Set<String> registered = redisTemplate.opsForSet().members(discovery.getRegistryKey());
+                if (registered != null) {
+                    keys.addAll(registered);
+                }
+            }
+            if (StringUtils.hasText(discovery.getScanPattern()) && !scanUnsupported) {
+                keys.addAll(scan(discovery.getScanPattern()));
+            }
+            for (String key : keys) {
+                // 登记了但尚未写入过的 stream 暂不接管，第一次 XADD 之后的下一轮再发现
+                if (!key.endsWith(DLQ_SUFFIX) && redisTemplate.type(key) == DataType.STREAM) {
+                    candidates.put(key, discovered(key, discovery));
+                }
+            }
+        }
+        for (StreamBinding binding : properties.getStreams()) {
+            candidates.put(binding.getStreamKey(), binding);
+        }
+        return candidates;
+    }
+
+    private List<String> scan(String pattern) {
+        try {
+            List<String> found = redisTemplate.execute((RedisCallback<List<String>>) connection -> {
+                List<String> keys = new ArrayList<>();
+                try (Cursor<byte[]> cursor = connection.scan(ScanOptions.scanOptions().match(pattern).count(500).build())) {
+                    cursor.forEachRemaining(key -> keys.add(new String(key, StandardCharsets.UTF_8)));
+                }
+                return keys;
+            });
+            return found == null ? Collections.emptyList() : found;
+        } catch (Exception ex) {
+            // 集群连接不支持跨节点 SCAN：此后只依赖登记集合
+            scanUnsupported = true;
+            log.warn("SCAN-based stream discovery unavailable, relying on registry {} only: {}",
+                    properties.getDiscovery().getRegistryKey(), ex.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    private static StreamBinding discovered(String streamKey, Discovery discovery) {
+        StreamBinding binding = new StreamBinding();
+        binding.setStreamKey(streamKey);
+        binding.setGroup(discovery.getGroup());
+        binding.setExchange(discovery.getExchange());
+        binding.setRoutingKey(discovery.getRoutingKey());
+        binding.setMaxAttempts(discovery.getMaxAttempts());
+        return binding;
+    }
+
+    private void ensureConsumerGroup(StreamBinding binding) {
+        StreamOperations<String, String, String> ops = redisTemplate.opsForStream();
+        try {
+            ops.createGroup(binding.getStreamKey(), ReadOffset.from("0-0"), binding.getGroup());
+            log.info("Created consumer group {} for stream {}", binding.getGroup(), binding.getStreamKey());
+        } catch (Exception ex) {
+            if (ex.getMessage() != null && ex.getMessage().contains("BUSYGROUP")) {
+                log.info("Consumer group {} already exists for stream {}", binding.getGroup(), binding.getStreamKey());
+            } else if (ex.getMessage() != null && ex.getMessage().contains("does not exist")) {
+                RecordId id = ops.add(StreamRecords.newRecord()
+                        .in(binding.getStreamKey())
+                        .ofMap(Collections.singletonMap("bootstrap", "1")));
+                ops.createGroup(binding.getStreamKey(), ReadOffset.latest(), binding.getGroup());
+                ops.delete(binding.getStreamKey(), id);
+                log.info("Bootstrapped stream {} for group {}", binding.getStreamKey(), binding.getGroup());
+            } else {
+                throw ex;
+            }
+        }
+    }
+
+    /**
+     * 实例重启后 instanceId 会变化，旧的消费者名称留在组里。接管时删除其他没有待确认条目的消费者；
+     * 仍有待确认条目的消费者保留，由 reclaim 认领后在之后的接管中清理。
+     */
+    private void removeIdleConsumers(StreamBinding binding) {
+        StreamOperations<String, String, String> ops = redisTemplate.opsForStream();
+        StreamInfo.XInfoConsumers consumers = ops.consumers(binding.getStreamKey(), binding.getGroup());
+        if (consumers == null) {
+            return;
+        }
+        consumers.forEach(consumer -> {
+            if (consumer.pendingCount() == 0 && !consumer.consumerName().equals(binding.getConsumerName())) {
+                ops.deleteConsumer(binding.getStreamKey(), Consumer.from(binding.getGroup(), consumer.consumerName()));
+            }
+        });
+    }
+}
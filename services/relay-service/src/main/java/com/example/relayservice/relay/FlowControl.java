@@ -0,0 +1,126 @@
+package com.example.relayservice.relay;
+
+import com.example.relayservice.config.RelayProperties;
+import com.example.relayservice.metrics.RelayMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按 broker 确认延迟与 nack 调整每个 stream 的 XREADGROUP COUNT 与在途窗口（AIMD，参数见 {@link RelayProperties.Flow}）。
+ * <p>
+ * 每个 stream 的批次由同一个轮询任务依次执行，且批次结束时窗口内的确认都已结算，因此每批都是一次干净的采样：
+ * 下一批直接使用新的参数，不需要额外的冷却期。RabbitMQ 触发内存告警时确认变慢，窗口随之收缩，
+ * 在途消息减少，确认超时不再把记录推向 {@code maxAttempts} 与 DLQ；告警解除后再逐步放大以减少往返。
+ */
+@Component
+public class FlowControl {
+
+    private final RelayProperties properties;
+    private final RelayMetrics metrics;
+    private final Map<String, Flow> flows = new ConcurrentHashMap<>();
+
+    public FlowControl(RelayProperties properties, RelayMetrics metrics) {
+        this.properties = properties;
+        this.metrics = metrics;
+    }
+
+    public Flow flow(String streamKey) {
+        return flows.computeIfAbsent(streamKey, Flow::new);
+    }
+
+    /**
+     * 一个批次内的确认情况，只在该 stream 的轮询线程上累加。
+     */
+    public static final class Sample {
+        private int confirmed;
+        private int congested;
+        private long latencySumNanos;
+
+        void confirmed(long latencyNanos) {
+            confirmed++;
+            latencySumNanos += latencyNanos;
+        }
+
+        /**
+         * nack 或确认超时；被退回（路由失败）的消息与 broker 负载无关，不计入。
+         */
+        void congested() {
+            congested++;
+        }
+
+        long meanLatencyNanos() {
+            return confirmed == 0 ? 0 : latencySumNanos / confirmed;
+        }
+    }
+
+    public final class Flow {
+
+        private final String streamKey;
+        private int batchSize;
+        private int window;
+        private long backoffUntilNanos;
+
+        private Flow(String streamKey) {
+            this.streamKey = streamKey;
+            RelayProperties.Flow limits = properties.getFlow();
+            this.batchSize = clamp(properties.getBatchSize(), limits.getMinBatchSize(), limits.getMaxBatchSize());
+            this.window = clamp(properties.getMaxInFlight(), limits.getMinInFlight(), limits.getMaxInFlight());
+            metrics.recordFlow(streamKey, batchSize, window);
+        }
+
+        public int batchSize() {
+            return properties.getFlow().isEnabled() ? batchSize : Math.max(1, properties.getBatchSize());
+        }
+
+        public int window() {
+            return properties.getFlow().isEnabled() ? window : Math.max(1, properties.getMaxInFlight());
+        }
+
+        public Sample newSample() {
+            return new Sample();
+        }
+
+        void confirmed(Sample sample, long latencyNanos) {
+            sample.confirmed(latencyNanos);
+            metrics.recordConfirm(streamKey, latencyNanos);
+        }
+
+        /**
+         * 拥塞后处于退避期时返回剩余的纳秒数。
+         */
+        long backoffNanos() {
+            return Math.max(0, backoffUntilNanos - System.nanoTime());
+        }
+
+        /**
+         * 批次结算后调整参数。
+         *
+         * @param backlogged 本批是否读满了 COUNT，即 stream 中可能还有积压；未读满时没有必要增大批次
+         */
+        void complete(Sample sample, boolean backlogged) {
+            RelayProperties.Flow limits = properties.getFlow();
+            if (!limits.isEnabled() || sample.confirmed + sample.congested == 0) {
+                return;
+            }
+            long target = limits.getTargetLatency().toNanos();
+            if (sample.congested > 0 || sample.meanLatencyNanos() > target) {
+                boolean atFloor = batchSize <= limits.getMinBatchSize() && window <= limits.getMinInFlight();
+                batchSize = clamp((int) (batchSize * limits.getDecreaseFactor()), limits.getMinBatchSize(), limits.getMaxBatchSize());
+                window = clamp((int) (window * limits.getDecreaseFactor()), limits.getMinInFlight(), limits.getMaxInFlight());
+                if (atFloor) {
+                    backoffUntilNanos = System.nanoTime() + limits.getBackoff().toNanos();
+                }
+            } else if (backlogged) {
+                batchSize = clamp(batchSize + limits.getBatchSizeStep(), limits.getMinBatchSize(), limits.getMaxBatchSize());
+                window = clamp(window + limits.getInFlightStep(), limits.getMinInFlight(), limits.getMaxInFlight());
+            }
+            metrics.recordFlow(streamKey, batchSize, window);
+        }
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(Math.max(1, min), Math.min(value, Math.max(min, max)));
+    }
+}
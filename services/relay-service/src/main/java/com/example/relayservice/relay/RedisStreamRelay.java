@@ -2,204 +2,284 @@ package com.example.relayservice.relay;
 
 import com.example.relayservice.config.RelayProperties;
 import com.example.relayservice.config.RelayProperties.StreamBinding;
+import com.example.streamsupport.StreamBookkeeping;
+import com.example.streamsupport.StreamScripts;
+import com.example.streamsupport.StreamTarget;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.rabbit.connection.CorrelationData;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.redis.connection.stream.*;
+import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.data.redis.core.StreamOperations;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
-import java.util.Collections;
-import java.util.LinkedHashMap;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeoutException;
 
 @Component
 public class RedisStreamRelay implements InitializingBean {
 
     private static final Logger log = LoggerFactory.getLogger(RedisStreamRelay.class);
 
+    /**
+     * outbox v2 紧凑格式（首字节 0x02，见 seckill.lua）的 content-type；旧版 cjson 载荷仍标记为 JSON。
+     */
+    static final String CONTENT_TYPE_ORDER_V2 = "application/x-seckill-order-v2";
+    private static final byte ORDER_V2_MARKER = 0x02;
+    private static final String RECLAIM_CURSOR_SUFFIX = ":reclaim-cursor";
+
     private final StringRedisTemplate redisTemplate;
+    private final RedisTemplate<String, byte[]> payloadTemplate;
     private final RabbitTemplate rabbitTemplate;
     private final RelayProperties properties;
+    private final StreamBookkeeping bookkeeping;
+    private final FlowControl flowControl;
+    private final DefaultRedisScript<List> autoClaimScript;
 
     public RedisStreamRelay(StringRedisTemplate redisTemplate,
+                            @Qualifier("streamPayloadTemplate") RedisTemplate<String, byte[]> payloadTemplate,
                             RabbitTemplate rabbitTemplate,
-                            RelayProperties properties) {
+                            RelayProperties properties,
+                            StreamBookkeeping bookkeeping,
+                            FlowControl flowControl) {
         this.redisTemplate = redisTemplate;
+        this.payloadTemplate = payloadTemplate;
         this.rabbitTemplate = rabbitTemplate;
         this.properties = properties;
+        this.bookkeeping = bookkeeping;
+        this.flowControl = flowControl;
+        this.autoClaimScript = StreamScripts.autoClaim();
     }
 
     @Override
     public void afterPropertiesSet() {
         rabbitTemplate.setMandatory(true);
         rabbitTemplate.setUsePublisherConnection(true);
-
-        for (StreamBinding binding : properties.getStreams()) {
-            if (!StringUtils.hasText(binding.getStreamKey())) {
-                throw new IllegalArgumentException("streamKey must be configured for relay");
-            }
-            ensureConsumerGroup(binding);
-        }
     }
 
-    @Scheduled(fixedDelayString = "#{@relayProperties.pollInterval.toMillis()}")
-    public void pollStreams() {
-        StreamOperations<String, String, String> ops = redisTemplate.opsForStream();
-        for (StreamBinding binding : properties.getStreams()) {
-            List<MapRecord<String, String, String>> records = ops.read(
-                    Consumer.from(binding.getGroup(), binding.getConsumerName()),
-                    StreamReadOptions.empty()
-                            .block(properties.getBlockTimeout())
-                            .count(properties.getBatchSize()),
-                    StreamOffset.create(binding.getStreamKey(), ReadOffset.lastConsumed())
-            );
-
-            if (records == null || records.isEmpty()) {
-                continue;
-            }
+    /**
+     * 对一个 stream 执行一次 {@code XREADGROUP}（最多阻塞 {@code blockTimeout}）并转发读到的记录，返回读到的条数。
+     * 由 {@link StreamPollers} 中该 stream 的常驻轮询线程反复调用，各 stream 的阻塞读互不影响。
+     * COUNT 与在途窗口由 {@link FlowControl} 按上一批的确认情况给出；拥塞退避期内不读取，直接返回 0，
+     * 由调用方按 {@link #backoffNanos(StreamBinding)} 等待。
+     */
+    public int poll(StreamBinding binding) {
+        FlowControl.Flow flow = flowControl.flow(binding.getStreamKey());
+        if (flow.backoffNanos() > 0) {
+            return 0;
+        }
+        int count = flow.batchSize();
+        List<MapRecord<String, String, byte[]>> records = payloadTemplate.<String, byte[]>opsForStream().read(
+                Consumer.from(binding.getGroup(), binding.getConsumerName()),
+                StreamReadOptions.empty()
+                        .block(properties.getBlockTimeout())
+                        .count(count),
+                StreamOffset.create(binding.getStreamKey(), ReadOffset.lastConsumed())
+        );
 
-            records.forEach(record -> processRecord(binding, record));
+        if (records == null || records.isEmpty()) {
+            return 0;
         }
-    }
 
-    @Scheduled(fixedDelayString = "#{@relayProperties.claimIdle.toMillis()}")
-    public void reclaimPending() {
-        StreamOperations<String, String, String> ops = redisTemplate.opsForStream();
-        for (StreamBinding binding : properties.getStreams()) {
-            PendingMessages pending = ops.pending(binding.getStreamKey(), binding.getGroup());
-            if (pending == null || pending.isEmpty()) {
-                continue;
-            }
+        FlowControl.Sample sample = forwardBatch(binding, records, false, flow);
+        flow.complete(sample, records.size() >= count);
+        return records.size();
+    }
 
-            List<RecordId> toClaim = pending.stream()
-                    .filter(msg -> msg.getTotalDeliveryCount() > 0
-                            && msg.getElapsedTimeSinceLastDelivery().compareTo(properties.getClaimIdle()) > 0)
-                    .limit(properties.getClaimBatchSize())
-                    .map(PendingMessage::getId)
-                    .collect(Collectors.toList());
+    /**
+     * 该 stream 拥塞退避的剩余时间（纳秒），不在退避期内时为 0。
+     */
+    public long backoffNanos(StreamBinding binding) {
+        return flowControl.flow(binding.getStreamKey()).backoffNanos();
+    }
 
-            if (toClaim.isEmpty()) {
-                continue;
+    /**
+     * 用 XAUTOCLAIM 分页认领空闲超过 {@code claimIdle} 的待确认条目（见 {@code scripts/stream-autoclaim.lua}）。
+     * 游标保存在 {@code <streamKey>:reclaim-cursor} 中，每轮最多处理 {@code claimMaxPages} 页，下一轮或接管该 stream
+     * 的实例从上次的位置继续，因此一次完整扫描的成本与 PEL 大小成正比，而不是每轮重复扫描整个 PEL。
+     * 由该 stream 的轮询任务每 {@code claimInterval} 调用一次，与正常消费在同一线程上交替进行。
+     */
+    @SuppressWarnings("unchecked")
+    public void reclaim(StreamBinding binding) {
+        List<String> keys = List.of(binding.getStreamKey(), binding.getStreamKey() + RECLAIM_CURSOR_SUFFIX);
+        String minIdle = String.valueOf(properties.getClaimIdle().toMillis());
+        String count = String.valueOf(Math.max(1, properties.getClaimBatchSize()));
+        for (int page = 0; page < Math.max(1, properties.getClaimMaxPages()); page++) {
+            List<String> reply = (List<String>) redisTemplate.execute(autoClaimScript, keys,
+                    binding.getGroup(), binding.getConsumerName(), minIdle, count);
+            if (reply == null || reply.isEmpty()) {
+                return;
             }
-
-            List<MapRecord<String, String, String>> claimed = ops.claim(
-                    binding.getStreamKey(), binding.getGroup(), binding.getConsumerName(),
-                    properties.getClaimIdle().toMillis(), toClaim.toArray(new RecordId[0]));
-
-            if (claimed != null) {
-                claimed.forEach(record -> processRecord(binding, record));
+            List<MapRecord<String, String, String>> claimed = StreamScripts.claimedRecords(binding.getStreamKey(), reply);
+            if (!claimed.isEmpty()) {
+                log.info("Reclaimed {} idle entries from stream {}", claimed.size(), binding.getStreamKey());
+                FlowControl.Flow flow = flowControl.flow(binding.getStreamKey());
+                flow.complete(forwardBatch(binding, claimed, true, flow), false);
+            }
+            if (StreamScripts.SWEEP_COMPLETE.equals(reply.get(0))) {
+                return;
             }
         }
     }
 
-    private void processRecord(StreamBinding binding, MapRecord<String, String, String> record) {
-        String payload = record.getValue().get("payload");
-        if (payload == null) {
-            log.error("Stream entry {} missing payload field", record.getId());
-            ack(binding, record);
-            return;
-        }
-
+    /**
+     * 在同一个专用 channel 上按 stream 顺序发布整批记录（XREADGROUP 读到的载荷是原始字节，reclaim 认领的是字符串），最多保留 {@code flow.window()} 条未确认消息；
+     * 窗口满时先结算最早的一条。每条记录只有在收到 broker 的正向确认（且未被退回）后才 XACK，
+     * nack、退回或确认超时的记录留在 PEL 中计入重试次数，由 {@link #reclaim(StreamBinding)} 重新投递，保持至少一次语义。
+     * 确认与重试计数在批次结束时由 {@link StreamBookkeeping} 一次流水线写回，确认延迟与 nack 汇总到返回的采样中。
+     */
+    private FlowControl.Sample forwardBatch(StreamBinding binding, List<? extends MapRecord<String, String, ?>> records,
+                                            boolean redelivery, FlowControl.Flow flow) {
+        int window = Math.max(1, flow.window());
+        Deque<InFlight> inFlight = new ArrayDeque<>(Math.min(window, records.size()));
+        StreamBookkeeping.Batch batch = bookkeeping.begin(target(binding), redelivery);
+        FlowControl.Sample sample = flow.newSample();
         try {
-            boolean acknowledged = publishToRabbit(binding, record, payload);
-            if (acknowledged) {
-                ack(binding, record);
-            } else {
-                scheduleRetry(binding, record, "publisher-nack");
-            }
+            rabbitTemplate.invoke(operations -> {
+                for (MapRecord<String, String, ?> record : records) {
+                    byte[] payload = payloadBytes(record.getValue().get("payload"));
+                    if (payload == null) {
+                        log.error("Stream entry {} missing payload field", record.getId());
+                        batch.acked(record);
+                        continue;
+                    }
+                    if (inFlight.size() >= window) {
+                        settle(batch, flow, sample, inFlight.poll());
+                    }
+                    InFlight pending = new InFlight(record, new CorrelationData(record.getId().getValue()));
+                    try {
+                        operations.send(binding.getExchange(), binding.getRoutingKey(), toAmqpMessage(payload),
+                                pending.correlation());
+                        inFlight.add(pending);
+                    } catch (Exception ex) {
+                        log.error("Failed to forward stream entry {}", record.getId(), ex);
+                        batch.failed(record, ex.getMessage());
+                    }
+                }
+                while (!inFlight.isEmpty()) {
+                    settle(batch, flow, sample, inFlight.poll());
+                }
+                return null;
+            });
         } catch (Exception ex) {
-            log.error("Failed to forward stream entry {}", record.getId(), ex);
-            scheduleRetry(binding, record, ex.getMessage());
+            // channel 级别的失败：已发布但尚未结算的记录一律按失败处理，留给 reclaim 重新投递
+            log.error("Failed to forward batch of {} entries from stream {}", records.size(), binding.getStreamKey(), ex);
+            while (!inFlight.isEmpty()) {
+                batch.failed(inFlight.poll().record(), ex.getMessage());
+                sample.congested();
+            }
         }
+        bookkeeping.flush(batch);
+        return sample;
     }
 
-    private boolean publishToRabbit(StreamBinding binding, MapRecord<String, String, String> record, String payload)
-            throws Exception {
-        CorrelationData correlation = new CorrelationData(record.getId().getValue());
-        rabbitTemplate.convertAndSend(binding.getExchange(), binding.getRoutingKey(), payload, correlation);
-        CompletableFuture<CorrelationData.Confirm> future = correlation.getFuture();
-        CorrelationData.Confirm confirm = future.get(5, TimeUnit.SECONDS);
-        return confirm != null && confirm.isAck();
+    /**
+     * 绑定未显式配置 DLQ / 重试计数 key 时使用 {@code <streamKey>:dlq} 与 {@code <streamKey>:attempts}；DELETE 模式下确认后同时 XDEL。
+     */
+    private StreamTarget target(StreamBinding binding) {
+        StreamTarget defaults = StreamTarget.of(binding.getStreamKey(), binding.getGroup(), binding.getMaxAttempts());
+        return new StreamTarget(binding.getStreamKey(), binding.getGroup(),
+                StringUtils.hasText(binding.getAttemptsKey()) ? binding.getAttemptsKey() : defaults.attemptsKey(),
+                StringUtils.hasText(binding.getDlqKey()) ? binding.getDlqKey() : defaults.dlqKey(),
+                binding.getMaxAttempts(),
+                properties.getRetention() == RelayProperties.Retention.DELETE);
     }
 
-    private void ack(StreamBinding binding, MapRecord<String, String, String> record) {
-        StreamOperations<String, String, String> ops = redisTemplate.opsForStream();
-        ops.acknowledge(binding.getStreamKey(), binding.getGroup(), record.getId());
-        ops.delete(binding.getStreamKey(), record.getId());
-        clearAttempts(binding, record.getId());
+    private void settle(StreamBookkeeping.Batch batch, FlowControl.Flow flow, FlowControl.Sample sample, InFlight pending) {
+        MapRecord<String, String, ?> record = pending.record();
+        CorrelationData correlation = pending.correlation();
+        try {
+            CorrelationData.Confirm confirm = correlation.getFuture()
+                    .get(properties.getConfirmTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            if (confirm != null && confirm.isAck()) {
+                flow.confirmed(sample, pending.latencyNanos());
+            } else {
+                sample.congested();
+            }
+            if (confirm != null && confirm.isAck() && correlation.getReturned() == null) {
+                batch.acked(record);
+            } else if (confirm != null && confirm.isAck()) {
+                batch.failed(record, "returned: " + correlation.getReturned().getReplyText());
+            } else {
+                batch.failed(record, "publisher-nack" + (confirm != null && confirm.getReason() != null
+                        ? ": " + confirm.getReason() : ""));
+            }
+        } catch (TimeoutException ex) {
+            sample.congested();
+            batch.failed(record, "confirm-timeout");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            batch.failed(record, "interrupted");
+        } catch (ExecutionException ex) {
+            log.error("Failed to confirm stream entry {}", record.getId(), ex);
+            sample.congested();
+            batch.failed(record, ex.getMessage());
+        }
     }
 
-    private void scheduleRetry(StreamBinding binding, MapRecord<String, String, String> record, String reason) {
-        long attempts = redisTemplate.opsForHash()
-                .increment(resolveAttemptsKey(binding), record.getId().getValue(), 1);
+    /**
+     * 一条已发布、等待确认的记录。确认到达的时刻由 future 回调记下，用于计算发布到确认的延迟；
+     * 回调晚于 {@code get} 返回时退化为发布到结算的时间。
+     */
+    private static final class InFlight {
+
+        private final MapRecord<String, String, ?> record;
+        private final CorrelationData correlation;
+        private final long sentNanos = System.nanoTime();
+        private volatile long confirmedNanos;
 
-        if (attempts >= binding.getMaxAttempts()) {
-            moveToDlq(binding, record, reason, attempts);
-        } else {
-            log.warn("Relay retry scheduled id={} attempts={}", record.getId(), attempts);
+        private InFlight(MapRecord<String, String, ?> record, CorrelationData correlation) {
+            this.record = record;
+            this.correlation = correlation;
+            correlation.getFuture().addCallback(confirm -> confirmedNanos = System.nanoTime(), ex -> { });
         }
-    }
 
-    private void moveToDlq(StreamBinding binding, MapRecord<String, String, String> record,
-                           String reason, long attempts) {
-        Map<String, String> entry = new LinkedHashMap<>(record.getValue());
-        entry.put("error", reason);
-        entry.put("attempts", String.valueOf(attempts));
-        entry.put("failedAt", String.valueOf(System.currentTimeMillis()));
-        String dlqKey = resolveDlqKey(binding);
-        redisTemplate.opsForStream().add(dlqKey, entry);
-        redisTemplate.opsForStream().acknowledge(binding.getStreamKey(), binding.getGroup(), record.getId());
-        redisTemplate.opsForStream().delete(binding.getStreamKey(), record.getId());
-        clearAttempts(binding, record.getId());
-        log.error("Moved record {} to DLQ {} after {} attempts", record.getId(), dlqKey, attempts);
-    }
+        MapRecord<String, String, ?> record() {
+            return record;
+        }
 
-    private String resolveAttemptsKey(StreamBinding binding) {
-        if (StringUtils.hasText(binding.getAttemptsKey())) {
-            return binding.getAttemptsKey();
+        CorrelationData correlation() {
+            return correlation;
         }
-        return binding.getStreamKey() + ":attempts";
-    }
 
-    private String resolveDlqKey(StreamBinding binding) {
-        if (StringUtils.hasText(binding.getDlqKey())) {
-            return binding.getDlqKey();
+        long latencyNanos() {
+            long confirmed = confirmedNanos;
+            return (confirmed != 0 ? confirmed : System.nanoTime()) - sentNanos;
         }
-        return binding.getStreamKey() + ":dlq";
     }
 
-    private void clearAttempts(StreamBinding binding, RecordId id) {
-        redisTemplate.opsForHash().delete(resolveAttemptsKey(binding), id.getValue());
+    /**
+     * 正常消费路径上字段值已是原始字节，直接使用；reclaim 经脚本认领的记录是字符串，两种载荷都是 ASCII，按 UTF-8 编码即可。
+     */
+    private static byte[] payloadBytes(Object value) {
+        if (value == null || value instanceof byte[]) {
+            return (byte[]) value;
+        }
+        return value.toString().getBytes(StandardCharsets.UTF_8);
     }
 
-    private void ensureConsumerGroup(StreamBinding binding) {
-        StreamOperations<String, String, String> ops = redisTemplate.opsForStream();
-        try {
-            ops.createGroup(binding.getStreamKey(), ReadOffset.from("0-0"), binding.getGroup());
-            log.info("Created consumer group {} for stream {}", binding.getGroup(), binding.getStreamKey());
-        } catch (Exception ex) {
-            if (ex.getMessage() != null && ex.getMessage().contains("BUSYGROUP")) {
-                log.info("Consumer group {} already exists for stream {}", binding.getGroup(), binding.getStreamKey());
-            } else if (ex.getMessage() != null && ex.getMessage().contains("does not exist")) {
-                RecordId id = ops.add(StreamRecords.newRecord()
-                        .in(binding.getStreamKey())
-                        .ofMap(Collections.singletonMap("bootstrap", "1")));
-                ops.createGroup(binding.getStreamKey(), ReadOffset.latest(), binding.getGroup());
-                ops.delete(binding.getStreamKey(), id);
-                log.info("Bootstrapped stream {} for group {}", binding.getStreamKey(), binding.getGroup());
-            } else {
-                throw ex;
-            }
-        }
+    /**
+     * relay 不解析载荷，只按首字节打上 content-type 后把 Redis 返回的字节原样作为消息体转发，由 order-service 负责解码。
+     */
+    static Message toAmqpMessage(byte[] payload) {
+        MessageProperties messageProperties = new MessageProperties();
+        boolean compact = payload.length > 0 && payload[0] == ORDER_V2_MARKER;
+        messageProperties.setContentType(compact ? CONTENT_TYPE_ORDER_V2 : MessageProperties.CONTENT_TYPE_JSON);
+        messageProperties.setContentEncoding(StandardCharsets.UTF_8.name());
+        messageProperties.setDeliveryMode(MessageDeliveryMode.PERSISTENT);
+        return new Message(payload, messageProperties);
     }
 }
@@ -0,0 +1,243 @@
+package com.example.relayservice.relay;
+
+import com.example.relayservice.config.RelayProperties;
+import com.example.relayservice.config.RelayProperties.StreamBinding;
+import com.example.relayservice.metrics.RelayMetrics;
+import com.example.relayservice.partition.StreamAssignment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 每个本实例持有的 stream 一个常驻轮询线程，取代原先在单个调度线程上依次阻塞读取所有 stream 的循环：
+ * 空闲 stream 的阻塞读不再拖延其他 stream，转发也分摊到多个线程（每个线程在 RabbitTemplate 上有自己的 channel）。
+ * <ul>
+ *     <li>线程循环执行 {@link RedisStreamRelay#poll}，到期时再执行一次 {@link RedisStreamRelay#reclaim}；
+ *     {@link FlowControl} 的拥塞退避在该线程上等待，不占用其他 stream 的线程，也不持有连接；</li>
+ *     <li>线程数以 {@code relay.max-streams} 为上限，每个线程阻塞读时独占一条连接池连接，连接池大小在启动时按该上限校验；</li>
+ *     <li>{@link #reconcile()} 按 {@code relay.poll-interval} 与 {@link StreamAssignment#activeBindings()} 对齐：
+ *     新分配的 stream 启动线程，失去的 stream 在当前一轮结束后退出，退出前不为同一 stream 启动新线程；</li>
+ *     <li>关闭时不再发起新的读取，等待各线程把当前批次发布完、收齐 broker 确认并写回结算，
+ *     最长 {@code relay.shutdown-timeout}。本组件在 SmartLifecycle 中最先停止，此时 RabbitMQ / Redis 连接仍然可用，
+ *     租约在之后的 {@link StreamAssignment#destroy()} 中释放。</li>
+ * </ul>
+ */
+@Component
+public class StreamPollers implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(StreamPollers.class);
+    /**
+     * 轮询线程之外需要连接池连接的调用方（裁剪、指标采样等定时任务上的流水线）预留的连接数。
+     */
+    private static final int RESERVED_CONNECTIONS = 2;
+
+    private final RedisStreamRelay relay;
+    private final StreamAssignment assignment;
+    private final RelayProperties properties;
+    private final RelayMetrics metrics;
+    private final Map<String, Poller> pollers = new ConcurrentHashMap<>();
+    /**
+     * 已停止分配、仍在结束当前一轮的线程，按 stream 记录，退出时自行移除。
+     */
+    private final Map<String, Poller> retiring = new ConcurrentHashMap<>();
+    private final Set<String> overflowStreams = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean running;
+
+    public StreamPollers(RedisStreamRelay relay,
+                         StreamAssignment assignment,
+                         RelayProperties properties,
+                         RelayMetrics metrics,
+                         @Value("${spring.redis.lettuce.pool.max-active:8}") int poolMaxActive) {
+        if (poolMaxActive < properties.getMaxStreams() + RESERVED_CONNECTIONS) {
+            throw new IllegalStateException("spring.redis.lettuce.pool.max-active=" + poolMaxActive
+                    + " is too small for relay.max-streams=" + properties.getMaxStreams()
+                    + "; each stream poller holds a pooled connection while blocked, so at least "
+                    + (properties.getMaxStreams() + RESERVED_CONNECTIONS) + " are required");
+        }
+        this.relay = relay;
+        this.assignment = assignment;
+        this.properties = properties;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+        log.info("Relay pollers started, at most {} streams", properties.getMaxStreams());
+        reconcile();
+    }
+
+    @Scheduled(fixedDelayString = "#{@relayProperties.pollInterval.toMillis()}")
+    public synchronized void reconcile() {
+        if (!running) {
+            return;
+        }
+        Map<String, StreamBinding> active = new HashMap<>();
+        for (StreamBinding binding : assignment.activeBindings()) {
+            active.put(binding.getStreamKey(), binding);
+        }
+        pollers.values().removeIf(poller -> {
+            StreamBinding current = active.get(poller.binding.getStreamKey());
+            if (current != null && current.getConsumerName().equals(poller.binding.getConsumerName())) {
+                return false;
+            }
+            retire(poller);
+            return true;
+        });
+        overflowStreams.retainAll(active.keySet());
+        for (StreamBinding binding : active.values()) {
+            String streamKey = binding.getStreamKey();
+            if (pollers.containsKey(streamKey) || retiring.containsKey(streamKey)) {
+                continue;
+            }
+            if (pollers.size() >= properties.getMaxStreams()) {
+                if (overflowStreams.add(streamKey)) {
+                    log.warn("Not polling stream {}: relay.max-streams={} streams already polled",
+                            streamKey, properties.getMaxStreams());
+                }
+                continue;
+            }
+            if (pollers.size() + retiring.size() >= properties.getMaxStreams()) {
+                // 退出中的线程仍可能持有连接，等它们结束后的下一轮再启动
+                continue;
+            }
+            overflowStreams.remove(streamKey);
+            Poller poller = new Poller(binding);
+            pollers.put(streamKey, poller);
+            poller.thread.start();
+            log.info("Started poller for stream {}", streamKey);
+        }
+    }
+
+    @Override
+    public void stop() {
+        List<Poller> toJoin;
+        synchronized (this) {
+            running = false;
+            toJoin = new ArrayList<>(pollers.values());
+            toJoin.addAll(retiring.values());
+            pollers.clear();
+            overflowStreams.clear();
+        }
+        toJoin.forEach(poller -> {
+            poller.active = false;
+            LockSupport.unpark(poller.thread);
+        });
+        long deadline = System.nanoTime() + properties.getShutdownTimeout().toNanos();
+        boolean drained = true;
+        try {
+            for (Poller poller : toJoin) {
+                poller.thread.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+                if (poller.thread.isAlive()) {
+                    drained = false;
+                    poller.thread.interrupt();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            toJoin.forEach(poller -> poller.thread.interrupt());
+            return;
+        }
+        if (drained) {
+            log.info("Relay pollers drained");
+        } else {
+            log.warn("Relay pollers did not drain within {}; unsettled entries stay pending for reclaim",
+                    properties.getShutdownTimeout());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 当前有轮询线程的 stream 数。
+     */
+    public int activePollers() {
+        return pollers.size();
+    }
+
+    private void retire(Poller poller) {
+        retiring.put(poller.binding.getStreamKey(), poller);
+        poller.active = false;
+        LockSupport.unpark(poller.thread);
+        log.info("Stopping poller for stream {}", poller.binding.getStreamKey());
+    }
+
+    /**
+     * 一个 stream 的常驻轮询循环：退避期内在本线程上等待，否则读取并转发一批，到期时再认领一次空闲条目，
+     * 直到该 stream 不再分配给本实例或组件停止。
+     */
+    private final class Poller implements Runnable {
+
+        private final StreamBinding binding;
+        private final Thread thread;
+        private volatile boolean active = true;
+        private long nextClaim = System.nanoTime();
+
+        private Poller(StreamBinding binding) {
+            this.binding = binding;
+            this.thread = new Thread(this, "relay-poller-" + binding.getStreamKey());
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (active && running) {
+                    try {
+                        pollOnce();
+                    } catch (Exception ex) {
+                        if (!running) {
+                            return;
+                        }
+                        log.error("Failed to poll stream {}", binding.getStreamKey(), ex);
+                        sleepQuietly(properties.getPollInterval().toMillis());
+                    }
+                }
+            } finally {
+                retiring.remove(binding.getStreamKey(), this);
+            }
+        }
+
+        private void pollOnce() {
+            long backoffNanos = relay.backoffNanos(binding);
+            if (backoffNanos > 0) {
+                // 分段等待，退避较长时也能按 pollInterval 及时响应停止
+                LockSupport.parkNanos(this, Math.min(backoffNanos, properties.getPollInterval().toNanos()));
+                return;
+            }
+            long start = System.nanoTime();
+            int records = relay.poll(binding);
+            if (records > 0) {
+                metrics.recordBatch(binding.getStreamKey(), records, start);
+            }
+            if (System.nanoTime() - nextClaim >= 0) {
+                relay.reclaim(binding);
+                nextClaim = System.nanoTime() + properties.getClaimInterval().toNanos();
+            }
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.relayservice.relay;
+
+import com.example.relayservice.config.RelayProperties;
+import com.example.relayservice.config.RelayProperties.StreamBinding;
+import com.example.relayservice.metrics.RelayMetrics;
+import com.example.relayservice.partition.StreamAssignment;
+import com.example.streamsupport.StreamScripts;
+import com.example.streamsupport.TrimOutcome;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * TRIM 模式下定期裁剪 outbox Stream：在一个 Lua 脚本内读取所有消费组的确认进度并执行 {@code XTRIM MINID ~}，
+ * 任何组尚未确认的条目都不会被删除（见 {@code scripts/stream-trim.lua}）。
+ * 只裁剪本实例当前持有租约的 stream。relay 停顿时 Stream 会继续增长，这是有意为之——那些条目是尚未转发的订单。
+ * <p>
+ * 没有 consumer 且超过 {@code trimStaleGroupIdle} 未投递的孤立消费组不参与下界计算，否则一个遗留的组会让裁剪永远停住；
+ * 被跳过的组在集合变化时告警一次，并与下界的时间一起计入 {@link RelayMetrics}。
+ */
+@Component
+public class StreamTrimmer {
+
+    private static final Logger log = LoggerFactory.getLogger(StreamTrimmer.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final RelayProperties properties;
+    private final StreamAssignment assignment;
+    private final RelayMetrics metrics;
+    @SuppressWarnings("rawtypes")
+    private final DefaultRedisScript<List> trimScript;
+    private final Map<String, List<String>> reportedSkips = new ConcurrentHashMap<>();
+
+    public StreamTrimmer(StringRedisTemplate redisTemplate, RelayProperties properties, StreamAssignment assignment,
+                         RelayMetrics metrics) {
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+        this.assignment = assignment;
+        this.metrics = metrics;
+        this.trimScript = StreamScripts.trim();
+    }
+
+    @Scheduled(fixedDelayString = "#{@relayProperties.trimInterval.toMillis()}")
+    public void trimStreams() {
+        if (properties.getRetention() != RelayProperties.Retention.TRIM) {
+            return;
+        }
+        String staleMillis = String.valueOf(properties.getTrimStaleGroupIdle().toMillis());
+        for (StreamBinding binding : assignment.activeBindings()) {
+            String streamKey = binding.getStreamKey();
+            try {
+                TrimOutcome outcome = TrimOutcome.of(
+                        redisTemplate.execute(trimScript, Collections.singletonList(streamKey), staleMillis));
+                metrics.recordTrim(streamKey, outcome);
+                if (outcome.trimmed() > 0) {
+                    log.debug("Trimmed {} acknowledged entries from stream {}", outcome.trimmed(), streamKey);
+                }
+                List<String> previous = reportedSkips.put(streamKey, outcome.skippedGroups());
+                if (!outcome.skippedGroups().isEmpty() && !outcome.skippedGroups().equals(previous)) {
+                    log.warn("Ignoring orphaned consumer groups {} on stream {} when trimming; delete them with XGROUP DESTROY",
+                            outcome.skippedGroups(), streamKey);
+                }
+            } catch (Exception ex) {
+                log.warn("Failed to trim stream {}", streamKey, ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+-- lease-acquire.lua
+-- 获取或续期 stream 租约。
+-- KEYS[1] = leaseKey
+-- ARGV[1] = instanceId
+-- ARGV[2] = 租约有效期（毫秒）
+--
+-- 返回：1 = 本实例持有租约（新获取或已续期），0 = 租约被其他实例持有
+
+local holder = redis.call("GET", KEYS[1])
+if holder == false then
+    redis.call("SET", KEYS[1], ARGV[1], "PX", ARGV[2])
+    return 1
+end
+if holder == ARGV[1] then
+    redis.call("PEXPIRE", KEYS[1], ARGV[2])
+    return 1
+end
+return 0
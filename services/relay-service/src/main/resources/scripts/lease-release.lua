@@ -0,0 +1,11 @@
+-- lease-release.lua
+-- 仅当租约仍由本实例持有时删除，避免误删已被其他实例接管的租约。
+-- KEYS[1] = leaseKey
+-- ARGV[1] = instanceId
+--
+-- 返回：1 = 已释放，0 = 租约不存在或不属于本实例
+
+if redis.call("GET", KEYS[1]) == ARGV[1] then
+    return redis.call("DEL", KEYS[1])
+end
+return 0
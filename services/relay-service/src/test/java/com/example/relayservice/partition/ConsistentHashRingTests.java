@@ -0,0 +1,86 @@
+package com.example.relayservice.partition;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConsistentHashRingTests {
+
+    private static final int KEYS = 10_000;
+    private static final int VIRTUAL_NODES = 64;
+
+    @Test
+    void emptyRingHasNoOwner() {
+        assertNull(new ConsistentHashRing(List.of(), VIRTUAL_NODES).owner("seckill:outbox:1"));
+    }
+
+    @Test
+    void singleMemberOwnsEveryKeyEvenWithoutVirtualNodes() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("relay-a"), 0);
+        for (int i = 0; i < 100; i++) {
+            assertEquals("relay-a", ring.owner(key(i)));
+        }
+    }
+
+    @Test
+    void ownershipDoesNotDependOnMemberOrder() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("relay-a", "relay-b", "relay-c"), VIRTUAL_NODES);
+        ConsistentHashRing reordered = new ConsistentHashRing(List.of("relay-c", "relay-a", "relay-b"), VIRTUAL_NODES);
+        for (int i = 0; i < KEYS; i++) {
+            assertEquals(ring.owner(key(i)), reordered.owner(key(i)));
+        }
+    }
+
+    @Test
+    void keysAreSpreadAcrossMembers() {
+        ConsistentHashRing ring = new ConsistentHashRing(
+                List.of("relay-a", "relay-b", "relay-c", "relay-d"), VIRTUAL_NODES);
+        Map<String, Integer> owned = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            owned.merge(ring.owner(key(i)), 1, Integer::sum);
+        }
+        assertEquals(4, owned.size());
+        owned.forEach((member, count) -> assertTrue(count > KEYS * 0.15 && count < KEYS * 0.35,
+                member + " owns " + count + " of " + KEYS + " keys"));
+    }
+
+    @Test
+    void joiningMemberOnlyTakesKeysFromOthers() {
+        ConsistentHashRing before = new ConsistentHashRing(List.of("relay-a", "relay-b", "relay-c"), VIRTUAL_NODES);
+        ConsistentHashRing after = new ConsistentHashRing(
+                List.of("relay-a", "relay-b", "relay-c", "relay-d"), VIRTUAL_NODES);
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String previous = before.owner(key(i));
+            String current = after.owner(key(i));
+            if (!previous.equals(current)) {
+                assertEquals("relay-d", current);
+                moved++;
+            }
+        }
+        assertTrue(moved > KEYS * 0.15 && moved < KEYS * 0.35, "moved " + moved + " of " + KEYS + " keys");
+    }
+
+    @Test
+    void leavingMemberOnlyReleasesItsOwnKeys() {
+        ConsistentHashRing before = new ConsistentHashRing(
+                List.of("relay-a", "relay-b", "relay-c", "relay-d"), VIRTUAL_NODES);
+        ConsistentHashRing after = new ConsistentHashRing(List.of("relay-a", "relay-b", "relay-c"), VIRTUAL_NODES);
+        for (int i = 0; i < KEYS; i++) {
+            String previous = before.owner(key(i));
+            if (!"relay-d".equals(previous)) {
+                assertEquals(previous, after.owner(key(i)));
+            }
+        }
+    }
+
+    private static String key(int i) {
+        return "seckill:outbox:" + i;
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.relayservice.relay;
+
+import com.example.relayservice.config.RelayProperties;
+import com.example.relayservice.metrics.RelayMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FlowControlTests {
+
+    private static final String STREAM = "seckill:outbox:1";
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private RelayProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RelayProperties();
+        properties.setBatchSize(100);
+        properties.setMaxInFlight(256);
+        RelayProperties.Flow limits = properties.getFlow();
+        limits.setTargetLatency(Duration.ofMillis(50));
+        limits.setMinBatchSize(10);
+        limits.setMaxBatchSize(500);
+        limits.setBatchSizeStep(10);
+        limits.setMinInFlight(16);
+        limits.setMaxInFlight(2048);
+        limits.setInFlightStep(32);
+        limits.setDecreaseFactor(0.5);
+        limits.setBackoff(Duration.ofSeconds(10));
+    }
+
+    @Test
+    void increasesOnlyWhenTheBatchWasFull() {
+        FlowControl.Flow flow = flowControl().flow(STREAM);
+
+        flow.complete(sample(flow, FAST), false);
+        assertEquals(100, flow.batchSize());
+        assertEquals(256, flow.window());
+
+        flow.complete(sample(flow, FAST), true);
+        assertEquals(110, flow.batchSize());
+        assertEquals(288, flow.window());
+    }
+
+    @Test
+    void increaseStopsAtTheCeiling() {
+        properties.setBatchSize(495);
+        properties.setMaxInFlight(2040);
+        FlowControl.Flow flow = flowControl().flow(STREAM);
+
+        flow.complete(sample(flow, FAST), true);
+        assertEquals(500, flow.batchSize());
+        assertEquals(2048, flow.window());
+    }
+
+    @Test
+    void decreasesOnSlowConfirmsAndCongestion() {
+        FlowControl.Flow flow = flowControl().flow(STREAM);
+
+        flow.complete(sample(flow, SLOW), true);
+        assertEquals(50, flow.batchSize());
+        assertEquals(128, flow.window());
+
+        FlowControl.Sample congested = sample(flow, FAST);
+        congested.congested();
+        flow.complete(congested, true);
+        assertEquals(25, flow.batchSize());
+        assertEquals(64, flow.window());
+        assertEquals(0, flow.backoffNanos());
+    }
+
+    @Test
+    void decreaseAtTheFloorBacksOff() {
+        properties.setBatchSize(12);
+        properties.setMaxInFlight(20);
+        FlowControl.Flow flow = flowControl().flow(STREAM);
+
+        // 第一次收缩只是降到下限，不退避
+        flow.complete(sample(flow, SLOW), true);
+        assertEquals(10, flow.batchSize());
+        assertEquals(16, flow.window());
+        assertEquals(0, flow.backoffNanos());
+
+        // 已在下限仍然拥塞：参数不变，进入退避期
+        flow.complete(sample(flow, SLOW), true);
+        assertEquals(10, flow.batchSize());
+        assertEquals(16, flow.window());
+        assertTrue(flow.backoffNanos() > 0);
+    }
+
+    @Test
+    void emptySampleLeavesParametersUnchanged() {
+        FlowControl.Flow flow = flowControl().flow(STREAM);
+
+        flow.complete(flow.newSample(), true);
+        assertEquals(100, flow.batchSize());
+        assertEquals(256, flow.window());
+    }
+
+    @Test
+    void clampsWhenMinimumExceedsMaximum() {
+        RelayProperties.Flow limits = properties.getFlow();
+        limits.setMinBatchSize(50);
+        limits.setMaxBatchSize(20);
+        limits.setMinInFlight(0);
+        limits.setMaxInFlight(0);
+        FlowControl.Flow flow = flowControl().flow(STREAM);
+
+        // 下限优先；任何情况下都至少为 1
+        assertEquals(50, flow.batchSize());
+        assertEquals(1, flow.window());
+
+        flow.complete(sample(flow, FAST), true);
+        assertEquals(50, flow.batchSize());
+        assertEquals(1, flow.window());
+
+        flow.complete(sample(flow, SLOW), true);
+        assertEquals(50, flow.batchSize());
+        assertEquals(1, flow.window());
+    }
+
+    @Test
+    void disabledFlowUsesStaticSettings() {
+        properties.getFlow().setEnabled(false);
+        FlowControl.Flow flow = flowControl().flow(STREAM);
+
+        flow.complete(sample(flow, SLOW), true);
+        assertEquals(100, flow.batchSize());
+        assertEquals(256, flow.window());
+        assertEquals(0, flow.backoffNanos());
+    }
+
+    private FlowControl flowControl() {
+        // recordFlow / recordConfirm 只使用 MeterRegistry
+        return new FlowControl(properties, new RelayMetrics(null, null, new SimpleMeterRegistry()));
+    }
+
+    private static FlowControl.Sample sample(FlowControl.Flow flow, long latencyNanos) {
+        FlowControl.Sample sample = flow.newSample();
+        flow.confirmed(sample, latencyNanos);
+        return sample;
+    }
+}
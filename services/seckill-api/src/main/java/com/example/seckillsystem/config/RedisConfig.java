@@ -7,11 +7,14 @@ import org.springframework.core.io.ClassPathResource;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.GenericToStringSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.scripting.support.ResourceScriptSource;
 
+import java.util.List;
+
 @Configuration
 public class RedisConfig {
 
@@ -78,6 +81,118 @@ public class RedisConfig {
         return redisScript;
     }
 
+    /**
+     * 批量版秒杀脚本：一次调用处理同一商品的多个用户请求，返回逐个用户的结果码数组。
+     */
+    @Bean("seckillBatchScript")
+    @SuppressWarnings("rawtypes")
+    public DefaultRedisScript<List> seckillBatchScript() {
+        DefaultRedisScript<List> redisScript = new DefaultRedisScript<>();
+        redisScript.setScriptSource(new ResourceScriptSource(new ClassPathResource("scripts/seckill-batch.lua")));
+        redisScript.setResultType(List.class);
+        return redisScript;
+    }
+
+    /**
+     * Redis Cluster 模式：在用户主桶（同一 hash tag）上完成去重、扣减与写 outbox。
+     */
+    @Bean("seckillClusterScript")
+    public DefaultRedisScript<Long> seckillClusterScript() {
+        DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
+        redisScript.setScriptSource(new ResourceScriptSource(new ClassPathResource("scripts/seckill-cluster.lua")));
+        redisScript.setResultType(Long.class);
+        return redisScript;
+    }
+
+    /**
+     * Redis Cluster 模式：主桶为空时从其他桶（其他 slot）扣减。
+     */
+    @Bean("seckillClusterStealScript")
+    public DefaultRedisScript<Long> seckillClusterStealScript() {
+        DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
+        redisScript.setScriptSource(new ResourceScriptSource(new ClassPathResource("scripts/seckill-cluster-steal.lua")));
+        redisScript.setResultType(Long.class);
+        return redisScript;
+    }
+
+    /**
+     * 库存租借：从各桶原子地租出一批库存，返回 {实际租到的数量, 剩余总库存}。
+     */
+    @Bean("seckillLeaseScript")
+    @SuppressWarnings("rawtypes")
+    public DefaultRedisScript<List> seckillLeaseScript() {
+        DefaultRedisScript<List> redisScript = new DefaultRedisScript<>();
+        redisScript.setScriptSource(new ResourceScriptSource(new ClassPathResource("scripts/seckill-lease.lua")));
+        redisScript.setResultType(List.class);
+        return redisScript;
+    }
+
+    /**
+     * 库存租借：归还实例未用完的租约。
+     */
+    @Bean("seckillLeaseReturnScript")
+    public DefaultRedisScript<Long> seckillLeaseReturnScript() {
+        DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
+        redisScript.setScriptSource(new ResourceScriptSource(new ClassPathResource("scripts/seckill-lease-return.lua")));
+        redisScript.setResultType(Long.class);
+        return redisScript;
+    }
+
+    /**
+     * 库存租借：本地扣减成功后只做去重与写 outbox。
+     */
+    @Bean("seckillLeasedScript")
+    public DefaultRedisScript<Long> seckillLeasedScript() {
+        DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
+        redisScript.setScriptSource(new ResourceScriptSource(new ClassPathResource("scripts/seckill-leased.lua")));
+        redisScript.setResultType(Long.class);
+        return redisScript;
+    }
+
+    /**
+     * 桶库存再平衡：各桶差距超过阈值时原子地重新均分，返回 {移动件数, 各桶剩余库存...}。
+     */
+    @Bean("seckillRebalanceScript")
+    @SuppressWarnings("rawtypes")
+    public DefaultRedisScript<List> seckillRebalanceScript() {
+        DefaultRedisScript<List> redisScript = new DefaultRedisScript<>();
+        redisScript.setScriptSource(new ResourceScriptSource(new ClassPathResource("scripts/seckill-rebalance.lua")));
+        redisScript.setResultType(List.class);
+        return redisScript;
+    }
+
+    /**
+     * Snowflake workerId 租约：持有者校验 token 后续期，返回 1 表示续期成功。
+     */
+    @Bean("workerIdRenewScript")
+    public DefaultRedisScript<Long> workerIdRenewScript() {
+        DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
+        redisScript.setScriptSource(new ResourceScriptSource(new ClassPathResource("scripts/worker-id-renew.lua")));
+        redisScript.setResultType(Long.class);
+        return redisScript;
+    }
+
+    /**
+     * Snowflake workerId 租约：持有者校验 token 后释放。
+     */
+    @Bean("workerIdReleaseScript")
+    public DefaultRedisScript<Long> workerIdReleaseScript() {
+        DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
+        redisScript.setScriptSource(new ResourceScriptSource(new ClassPathResource("scripts/worker-id-release.lua")));
+        redisScript.setResultType(Long.class);
+        return redisScript;
+    }
+
+    /**
+     * Redis pub/sub 监听容器，目前用于接收售罄/补货广播。
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+
     /**
      * RabbitMQ 消息转换器 (保持不变)
      * 为 seckill-api (生产者) 也配置 JSON 消息转换器。
@@ -0,0 +1,60 @@
+package com.example.seckillsystem.controller;
+
+import com.example.seckillsystem.service.ReactiveSeckillService;
+import com.example.seckillsystem.service.dto.SeckillResult;
+import com.example.seckillsystem.service.metrics.SeckillMetrics;
+import com.example.seckillsystem.service.soldout.SoldOutRegistry;
+import com.google.common.hash.BloomFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * 非阻塞秒杀入口，状态码与 {@code POST /seckill/{productId}} 相同。
+ * <p>
+ * 处理方法返回 {@link Mono}：在 Servlet 容器里由 Spring MVC 以异步请求处理，Tomcat 工作线程在发起 Redis 调用后
+ * 立即归还，响应由 Lettuce/Redisson 的 I/O 线程完成；同样的处理方法也可以直接运行在 WebFlux 上。
+ */
+@RestController
+public class ReactiveSeckillController {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveSeckillController.class);
+
+    private final ReactiveSeckillService reactiveSeckillService;
+    private final BloomFilter<Long> productBloomFilter;
+    private final SoldOutRegistry soldOutRegistry;
+    private final SeckillMetrics seckillMetrics;
+
+    public ReactiveSeckillController(ReactiveSeckillService reactiveSeckillService,
+                                     BloomFilter<Long> productBloomFilter,
+                                     SoldOutRegistry soldOutRegistry,
+                                     SeckillMetrics seckillMetrics) {
+        this.reactiveSeckillService = reactiveSeckillService;
+        this.productBloomFilter = productBloomFilter;
+        this.soldOutRegistry = soldOutRegistry;
+        this.seckillMetrics = seckillMetrics;
+    }
+
+    @PostMapping("/seckill/reactive/{productId}")
+    public Mono<ResponseEntity<String>> submitSeckillOrder(@PathVariable Long productId,
+                                                           @RequestHeader("X-User-Id") Long userId) {
+        if (!productBloomFilter.mightContain(productId)) {
+            log.warn("【防穿透】布隆过滤器拦截到不存在的商品ID: {}", productId);
+            seckillMetrics.bloomRejected();
+            return Mono.just(SeckillResponses.productRejected());
+        }
+        if (soldOutRegistry.isSoldOut(productId)) {
+            SeckillResult soldOut = SeckillResult.soldOut();
+            seckillMetrics.recordOutcome(productId, soldOut);
+            return Mono.just(SeckillResponses.toResponse(soldOut));
+        }
+
+        return reactiveSeckillService.submitSeckillOrder(productId, userId)
+                .map(SeckillResponses::toResponse);
+    }
+}
@@ -1,7 +1,11 @@
 package com.example.seckillsystem.controller;
 
+import com.example.seckillsystem.service.dto.BucketStockReport;
 import com.example.seckillsystem.service.dto.SeckillResult;
 import com.example.seckillsystem.service.SeckillService;
+import com.example.seckillsystem.service.metrics.SeckillMetrics;
+import com.example.seckillsystem.service.rebalance.BucketRebalancer;
+import com.example.seckillsystem.service.soldout.SoldOutRegistry;
 import com.google.common.hash.BloomFilter; // 【新增】
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,6 +24,15 @@ public class SeckillController {
     @Autowired
     private BloomFilter<Long> productBloomFilter; // 【新增】注入布隆过滤器
 
+    @Autowired
+    private BucketRebalancer bucketRebalancer;
+
+    @Autowired
+    private SoldOutRegistry soldOutRegistry;
+
+    @Autowired
+    private SeckillMetrics seckillMetrics;
+
     @PostMapping("/seckill/{productId}")
     public ResponseEntity<String> submitSeckillOrder(@PathVariable Long productId,
                                                      @RequestHeader("X-User-Id") Long userId) {
@@ -28,34 +41,33 @@ public class SeckillController {
         // 1. 使用布隆过滤器检查 productId 是否“可能”存在
         if (!productBloomFilter.mightContain(productId)) {
             log.warn("【防穿透】布隆过滤器拦截到不存在的商品ID: {}", productId);
+            seckillMetrics.bloomRejected();
             // 直接拒绝，不给后续任何机会
-            return ResponseEntity.badRequest().body("商品不存在或活动未开始");
+            return SeckillResponses.productRejected();
         }
 
-        // 2. （可选）引入 Caffeine 本地缓存，检查“是否已售罄”
-        // ... (这部分是 V5.1 的优化，我们先专注 V5.2 核心) ...
+        // 2. 本地售罄标记表（由售罄广播维护），已售罄的商品不再访问 Redis
+        if (soldOutRegistry.isSoldOut(productId)) {
+            SeckillResult soldOut = SeckillResult.soldOut();
+            seckillMetrics.recordOutcome(productId, soldOut);
+            return SeckillResponses.toResponse(soldOut);
+        }
 
         // 3. 通过布隆过滤器后，才进入核心秒杀逻辑
         SeckillResult result = seckillService.submitSeckillOrder(productId, userId);
 
-        if (result.isAccepted()) {
-            return ResponseEntity.accepted().body(result.getMessage());
-        }
+        return SeckillResponses.toResponse(result);
+    }
 
-        switch (result.getCode()) {
-            case "NOT_FOUND":
-                return ResponseEntity.status(404).body(result.getMessage());
-            case "DUPLICATE":
-                return ResponseEntity.status(409).body(result.getMessage());
-            case "SOLD_OUT":
-                return ResponseEntity.status(410).body(result.getMessage());
-            case "BUCKET_EMPTY":
-                return ResponseEntity.status(429).body(result.getMessage());
-            case "CACHE_LOADING":
-                return ResponseEntity.status(503).body(result.getMessage());
-            default:
-                return ResponseEntity.status(500).body(result.getMessage());
+    /**
+     * 各桶剩余库存与总库存，用于观察库存是否滞留在个别桶中。
+     */
+    @GetMapping("/seckill/stock/{productId}/buckets")
+    public ResponseEntity<BucketStockReport> bucketStock(@PathVariable Long productId) {
+        if (!productBloomFilter.mightContain(productId)) {
+            return ResponseEntity.notFound().build();
         }
+        return ResponseEntity.ok(bucketRebalancer.report(productId));
     }
 
     // ... (你其他的接口，比如 /test-feign 和 /seckill/stock) ...
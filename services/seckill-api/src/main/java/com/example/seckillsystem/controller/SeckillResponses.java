@@ -0,0 +1,40 @@
+package com.example.seckillsystem.controller;
+
+import com.example.seckillsystem.service.dto.SeckillResult;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * 秒杀结果到 HTTP 响应的映射，阻塞与响应式两个入口共用，保证状态码语义一致。
+ */
+final class SeckillResponses {
+
+    private SeckillResponses() {
+    }
+
+    static ResponseEntity<String> productRejected() {
+        return ResponseEntity.badRequest().body("商品不存在或活动未开始");
+    }
+
+    static ResponseEntity<String> toResponse(SeckillResult result) {
+        if (result.isAccepted() || "IN_DOUBT".equals(result.getCode())) {
+            return ResponseEntity.accepted().body(result.getMessage());
+        }
+
+        switch (result.getCode()) {
+            case "NOT_FOUND":
+                return ResponseEntity.status(404).body(result.getMessage());
+            case "DUPLICATE":
+                return ResponseEntity.status(409).body(result.getMessage());
+            case "SOLD_OUT":
+                return ResponseEntity.status(410).body(result.getMessage());
+            case "BUCKET_EMPTY":
+                return ResponseEntity.status(429).body(result.getMessage());
+            case "THROTTLED":
+                return ResponseEntity.status(429).header("Retry-After", "1").body(result.getMessage());
+            case "CACHE_LOADING":
+                return ResponseEntity.status(503).body(result.getMessage());
+            default:
+                return ResponseEntity.status(500).body(result.getMessage());
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.seckillsystem.controller;
+
+import com.example.seckillsystem.service.dto.OrderResultView;
+import com.example.seckillsystem.service.dto.OrderStatus;
+import com.example.seckillsystem.service.result.OrderResultLongPoller;
+import com.example.seckillsystem.service.result.OrderResultService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 异步下单结果查询。客户端拿到 {@code requestId} 后轮询这里，而不是重复提交秒杀请求。
+ * <ul>
+ *     <li>{@code GET /seckill/result/{requestId}}：立即返回当前状态，优先命中本地缓存。</li>
+ *     <li>{@code GET /seckill/result/{requestId}/wait}：长轮询，出结果或超时后返回；等待期间不占用 Tomcat 线程。</li>
+ * </ul>
+ * 结果只对下单用户可见，其他用户查询返回 404。
+ */
+@RestController
+public class SeckillResultController {
+
+    private final OrderResultService resultService;
+    private final OrderResultLongPoller longPoller;
+
+    public SeckillResultController(OrderResultService resultService, OrderResultLongPoller longPoller) {
+        this.resultService = resultService;
+        this.longPoller = longPoller;
+    }
+
+    @GetMapping("/seckill/result/{requestId}")
+    public ResponseEntity<OrderResultView> result(@PathVariable Long requestId,
+                                                  @RequestHeader("X-User-Id") Long userId) {
+        return toResponse(requestId, resultService.lookup(requestId, userId));
+    }
+
+    @GetMapping("/seckill/result/{requestId}/wait")
+    public CompletableFuture<ResponseEntity<OrderResultView>> awaitResult(
+            @PathVariable Long requestId,
+            @RequestHeader("X-User-Id") Long userId,
+            @RequestParam(defaultValue = "5000") long timeoutMillis) {
+        return longPoller.await(requestId, userId, timeoutMillis)
+                .thenApply(status -> toResponse(requestId, status));
+    }
+
+    private static ResponseEntity<OrderResultView> toResponse(Long requestId, Optional<OrderStatus> status) {
+        return status
+                .map(s -> ResponseEntity.ok(new OrderResultView(String.valueOf(requestId), s)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,294 @@
+package com.example.seckillsystem.service;
+
+import com.example.seckillsystem.service.SeckillService.CacheWarmupState;
+import com.example.seckillsystem.service.admission.StockAdmissionGate;
+import com.example.seckillsystem.service.dto.SeckillResult;
+import com.example.seckillsystem.service.id.SnowflakeIdGenerator;
+import com.example.seckillsystem.service.inventory.InventoryCacheFacade;
+import com.example.seckillsystem.service.inventory.ProductInventorySnapshot;
+import com.example.seckillsystem.service.inventory.StockBuckets;
+import com.example.seckillsystem.service.keys.SeckillKeys;
+import com.example.seckillsystem.service.metrics.SeckillMetrics;
+import com.example.seckillsystem.service.props.SeckillProperties;
+import com.example.seckillsystem.service.soldout.SoldOutRegistry;
+import com.example.seckillsystem.service.warmup.ProductReadiness;
+import org.redisson.api.RLockReactive;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.RedissonReactiveClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 非阻塞的秒杀提交路径：缓存预热、Lua 扣减与换桶重试的语义与 {@link SeckillService} 完全一致，
+ * 但 Redis 访问走 {@link ReactiveStringRedisTemplate}，重建锁走 Redisson 的 {@link RLockReactive}，
+ * 整个调用链不占用任何线程等待 I/O，节点能同时挂起的请求数只受连接数限制。
+ * <p>
+ * 租借、请求合并与 Redis Cluster 模式依赖阻塞式的本地协调（CAS 租约、批次 future、跨 slot 的多次脚本），
+ * 这些模式下退回 {@link SeckillService}，并在 {@code boundedElastic} 调度器上执行，避免阻塞 I/O 线程。
+ */
+@Service
+public class ReactiveSeckillService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveSeckillService.class);
+
+    private final ReactiveStringRedisTemplate reactiveRedisTemplate;
+    private final DefaultRedisScript<Long> seckillScript;
+    private final SeckillProperties properties;
+    private final InventoryCacheFacade inventoryCacheFacade;
+    private final RedissonReactiveClient redissonReactiveClient;
+    private final SeckillKeys keys;
+    private final SnowflakeIdGenerator idGenerator;
+    private final SeckillService seckillService;
+    private final ProductReadiness readiness;
+    private final StockAdmissionGate admissionGate;
+    private final SoldOutRegistry soldOutRegistry;
+    private final SeckillMetrics metrics;
+
+    public ReactiveSeckillService(ReactiveStringRedisTemplate reactiveRedisTemplate,
+                                  @Qualifier("seckillScriptV5") DefaultRedisScript<Long> seckillScript,
+                                  SeckillProperties properties,
+                                  InventoryCacheFacade inventoryCacheFacade,
+                                  RedissonClient redissonClient,
+                                  SeckillKeys keys,
+                                  SnowflakeIdGenerator idGenerator,
+                                  SeckillService seckillService,
+                                  ProductReadiness readiness,
+                                  StockAdmissionGate admissionGate,
+                                  SoldOutRegistry soldOutRegistry,
+                                  SeckillMetrics metrics) {
+        this.reactiveRedisTemplate = reactiveRedisTemplate;
+        this.seckillScript = seckillScript;
+        this.properties = properties;
+        this.inventoryCacheFacade = inventoryCacheFacade;
+        this.redissonReactiveClient = redissonClient.reactive();
+        this.keys = keys;
+        this.idGenerator = idGenerator;
+        this.seckillService = seckillService;
+        this.readiness = readiness;
+        this.admissionGate = admissionGate;
+        this.soldOutRegistry = soldOutRegistry;
+        this.metrics = metrics;
+    }
+
+    public Mono<SeckillResult> submitSeckillOrder(Long productId, Long userId) {
+        if (requiresBlockingPath()) {
+            // 阻塞路径由 SeckillService 自己记录结果指标
+            return Mono.fromCallable(() -> seckillService.submitSeckillOrder(productId, userId))
+                    .subscribeOn(Schedulers.boundedElastic());
+        }
+        return submitNonBlocking(productId, userId)
+                .doOnNext(result -> metrics.recordOutcome(productId, result));
+    }
+
+    private Mono<SeckillResult> submitNonBlocking(Long productId, Long userId) {
+        if (seckillService.isRecentWinner(productId, userId)) {
+            return Mono.just(SeckillResult.duplicate());
+        }
+        if (!admissionGate.tryAdmit(productId)) {
+            log.debug("Admission budget exhausted for productId={}, throttling userId={}", productId, userId);
+            return Mono.just(SeckillResult.throttled());
+        }
+
+        return checkReady(productId)
+                .flatMap(rejection -> rejection.isPresent()
+                        ? Mono.just(rejection.get())
+                        : Mono.defer(() -> {
+                            String requestId = Long.toString(idGenerator.nextId());
+                            // 桶遍历模式下由脚本在 Redis 内依次尝试所有桶，只需一次往返
+                            int retryCount = properties.isBucketWalkEnabled()
+                                    ? 1 : Math.max(1, properties.getBucketRetryCount());
+                            return attempt(productId, userId, requestId, 0, retryCount, false);
+                        }));
+    }
+
+    /**
+     * 与 {@link SeckillService} 相同的就绪判断：已知就绪的商品不访问 Redis，否则走缓存重建流程。
+     *
+     * @return 需要拒绝时为拒绝结果，可以继续执行 Lua 时为空 Optional
+     */
+    private Mono<Optional<SeckillResult>> checkReady(Long productId) {
+        if (readiness.isReady(productId)) {
+            return Mono.just(Optional.empty());
+        }
+        return ensureStockCacheIsReady(productId)
+                .map(state -> {
+                    if (state == CacheWarmupState.READY || state == CacheWarmupState.SOLD_OUT) {
+                        readiness.markReady(productId);
+                    }
+                    return Optional.ofNullable(seckillService.rejectIfNotReady(state, productId));
+                });
+    }
+
+    private boolean requiresBlockingPath() {
+        return properties.isLeaseEnabled() || properties.isBatchEnabled() || keys.isClusterMode();
+    }
+
+    private Mono<SeckillResult> attempt(Long productId, Long userId, String requestId,
+                                        int attempt, int retryCount, boolean cacheReloaded) {
+        if (attempt >= retryCount) {
+            metrics.recordBucketAttempts(retryCount);
+            log.warn("All buckets exhausted for productId={} userId={}", productId, userId);
+            return Mono.just(SeckillResult.bucketEmpty());
+        }
+
+        int bucketIndex = seckillService.chooseBucket(productId, userId, attempt);
+        return executeLua(productId, userId, bucketIndex, requestId)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(luaResult -> {
+                    if (SeckillService.isKeyMissing(luaResult.orElse(null)) && !cacheReloaded) {
+                        // 库存 key 已丢失：回到重建流程后在同一个桶上重试一次
+                        readiness.invalidate(productId);
+                        return checkReady(productId)
+                                .flatMap(rejection -> rejection.isPresent()
+                                        ? Mono.just(rejection.get())
+                                        : attempt(productId, userId, requestId, attempt, retryCount, true));
+                    }
+                    SeckillResult outcome = seckillService.interpretLuaResult(
+                            luaResult.orElse(null), productId, userId, bucketIndex, requestId);
+                    if (outcome != null) {
+                        metrics.recordBucketAttempts(attempt + 1);
+                        return Mono.just(outcome);
+                    }
+                    log.debug("Bucket {} empty for productId={}, retry attempt {}/{}",
+                            bucketIndex, productId, attempt + 1, retryCount);
+                    return attempt(productId, userId, requestId, attempt + 1, retryCount, cacheReloaded);
+                });
+    }
+
+    private Mono<Long> executeLua(Long productId, Long userId, int bucketIndex, String requestId) {
+        List<String> scriptKeys = Arrays.asList(
+                properties.getStockKeyPrefix(),
+                properties.getUserSetKeyPrefix(),
+                properties.getStreamKeyPrefix()
+        );
+        List<String> args = Arrays.asList(
+                String.valueOf(userId),
+                String.valueOf(productId),
+                String.valueOf(bucketIndex),
+                requestId,
+                String.valueOf(seckillService.walkBucketCount()),
+                keys.buyerMarkerMode(),
+                String.valueOf(keys.buyerBitmapSegmentBits())
+        );
+
+        return Mono.defer(() -> {
+                    long start = System.nanoTime();
+                    return reactiveRedisTemplate.execute(seckillScript, scriptKeys, args)
+                            .next()
+                            .doFinally(signal -> metrics.recordLua(start));
+                })
+                .onErrorResume(e -> {
+                    log.error("Reactive Lua execution threw exception productId={}, userId={}, bucket={}",
+                            productId, userId, bucketIndex, e);
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<CacheWarmupState> ensureStockCacheIsReady(Long productId) {
+        String totalKey = keys.totalStockKey(productId);
+        return readTotal(totalKey)
+                .map(total -> stateOf(productId, total))
+                .switchIfEmpty(Mono.defer(() -> rebuildUnderLock(productId, totalKey)))
+                .onErrorResume(e -> {
+                    log.error("Reactive cache warmup failed for product {}", productId, e);
+                    return Mono.just(CacheWarmupState.LOADING);
+                });
+    }
+
+    /**
+     * 与阻塞路径使用同一个 Redisson 锁 key，因此两条路径之间也只会有一个 worker 重建缓存。
+     * 响应式锁没有线程归属，这里为每次加锁生成一个随机的 owner id，加锁和解锁使用同一个值。
+     */
+    private Mono<CacheWarmupState> rebuildUnderLock(Long productId, String totalKey) {
+        RLockReactive lock = redissonReactiveClient.getLock(properties.getCacheLockKeyPrefix() + productId);
+        long ownerId = ThreadLocalRandom.current().nextLong();
+
+        return lock.tryLock(properties.getCacheLockWaitSeconds(), properties.getCacheLockLeaseSeconds(),
+                        TimeUnit.SECONDS, ownerId)
+                .flatMap(locked -> {
+                    if (!Boolean.TRUE.equals(locked)) {
+                        log.debug("Failed to acquire reactive rebuild lock for product {}", productId);
+                        return Mono.just(CacheWarmupState.LOADING);
+                    }
+                    return readTotal(totalKey)
+                            .map(total -> stateOf(productId, total))
+                            .switchIfEmpty(Mono.defer(() -> rebuild(productId, totalKey)))
+                            .onErrorResume(e -> {
+                                log.error("Reactive cache rebuild failed for product {}", productId, e);
+                                return Mono.just(CacheWarmupState.LOADING);
+                            })
+                            .flatMap(state -> lock.unlock(ownerId)
+                                    .onErrorResume(e -> Mono.empty())
+                                    .thenReturn(state));
+                });
+    }
+
+    private Mono<CacheWarmupState> rebuild(Long productId, String totalKey) {
+        // L1/L3 回源可能是阻塞调用（Caffeine loader、数据库），放到 boundedElastic 上执行
+        return Mono.fromCallable(() -> Optional.ofNullable(inventoryCacheFacade.load(productId)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(loaded -> {
+                    Duration emptyTtl = Duration.ofSeconds(properties.getEmptyCacheTtlSeconds());
+                    if (loaded.isEmpty()) {
+                        log.warn("Product {} not found in L3 data source; caching empty sentinel", productId);
+                        return reactiveRedisTemplate.opsForValue().set(totalKey, "-1", emptyTtl)
+                                .doOnSuccess(ignored -> metrics.recordRebuild(SeckillMetrics.RebuildResult.NOT_FOUND))
+                                .thenReturn(CacheWarmupState.NOT_FOUND);
+                    }
+
+                    ProductInventorySnapshot snapshot = loaded.get();
+                    long totalStock = snapshot.totalStock();
+                    if (totalStock <= 0) {
+                        log.info("Product {} has no remaining stock in L3 data source; caching sold-out sentinel",
+                                productId);
+                        return reactiveRedisTemplate.opsForValue().set(totalKey, "-1", emptyTtl)
+                                .doOnSuccess(ignored -> metrics.recordRebuild(SeckillMetrics.RebuildResult.SOLD_OUT))
+                                .thenReturn(CacheWarmupState.SOLD_OUT);
+                    }
+
+                    int bucketCount = Math.max(1, properties.getBucketCount());
+                    Duration ttl = Duration.ofSeconds(seckillService.cacheTtlSeconds());
+                    return Flux.range(1, bucketCount)
+                            .flatMap(i -> reactiveRedisTemplate.opsForValue().set(keys.bucketKey(productId, i),
+                                    String.valueOf(StockBuckets.share(totalStock, bucketCount, i)), ttl))
+                            .then(reactiveRedisTemplate.opsForValue().set(totalKey, String.valueOf(totalStock), ttl))
+                            // 登记 outbox stream，relay-service 才会转发该商品的订单（与 SeckillService#ensureStockCacheIsReady 一致）
+                            .then(reactiveRedisTemplate.opsForSet().add(keys.streamRegistryKey(),
+                                    keys.outboxStreamKeys(productId)))
+                            .doOnSuccess(ignored -> {
+                                admissionGate.updateRemaining(productId, totalStock);
+                                soldOutRegistry.markReplenished(productId);
+                                metrics.recordRebuild(SeckillMetrics.RebuildResult.READY);
+                            })
+                            .doOnSuccess(ignored -> log.info(
+                                    "Rebuilt Redis cache (reactive) for product {} with totalStock={}, ttl={}s",
+                                    productId, totalStock, ttl.getSeconds()))
+                            .thenReturn(CacheWarmupState.READY);
+                });
+    }
+
+    private Mono<String> readTotal(String totalKey) {
+        return reactiveRedisTemplate.opsForValue().get(totalKey);
+    }
+
+    private CacheWarmupState stateOf(Long productId, String cachedTotal) {
+        long current = SeckillService.asLong(cachedTotal);
+        admissionGate.updateRemaining(productId, current);
+        return current <= 0 ? CacheWarmupState.SOLD_OUT : CacheWarmupState.READY;
+    }
+}
@@ -1,9 +1,22 @@
 package com.example.seckillsystem.service;
 
+import com.example.seckillsystem.service.admission.StockAdmissionGate;
+import com.example.seckillsystem.service.batch.SeckillBatchCoordinator;
+import com.example.seckillsystem.service.cluster.ClusterSeckillExecutor;
+import com.example.seckillsystem.service.cluster.ClusterStockAggregator;
 import com.example.seckillsystem.service.dto.SeckillResult;
+import com.example.seckillsystem.service.id.SnowflakeIdGenerator;
 import com.example.seckillsystem.service.inventory.InventoryCacheFacade;
 import com.example.seckillsystem.service.inventory.ProductInventorySnapshot;
+import com.example.seckillsystem.service.inventory.StockBuckets;
+import com.example.seckillsystem.service.keys.SeckillKeys;
+import com.example.seckillsystem.service.lease.StockLeaseManager;
+import com.example.seckillsystem.service.metrics.SeckillMetrics;
 import com.example.seckillsystem.service.props.SeckillProperties;
+import com.example.seckillsystem.service.result.OrderResultService;
+import com.example.seckillsystem.service.soldout.SoldOutRegistry;
+import com.example.seckillsystem.service.winners.RecentWinnersCache;
+import com.example.seckillsystem.service.warmup.ProductReadiness;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
 import org.slf4j.Logger;
@@ -16,34 +29,82 @@ import org.springframework.stereotype.Service;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
-import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class SeckillService {
 
     private static final Logger log = LoggerFactory.getLogger(SeckillService.class);
 
-    private static final String TOTAL_STOCK_SUFFIX = ":total";
-    private static final String BUCKET_SUFFIX = ":bucket_";
+    /**
+     * 扣减脚本返回码：{@code :total} 不存在，库存 key 需要重建。
+     */
+    static final long LUA_KEY_MISSING = 4L;
+
+    /**
+     * 本地结果码（脚本不会返回）：批量执行等待超时，扣减可能稍后仍会完成。
+     */
+    static final long LUA_IN_DOUBT = -1L;
 
     private final RedisTemplate<String, Object> redisTemplate;
     private final DefaultRedisScript<Long> seckillScript;
     private final SeckillProperties properties;
     private final InventoryCacheFacade inventoryCacheFacade;
     private final RedissonClient redissonClient;
+    private final SeckillBatchCoordinator batchCoordinator;
+    private final SeckillKeys keys;
+    private final ClusterSeckillExecutor clusterExecutor;
+    private final ClusterStockAggregator clusterStockAggregator;
+    private final StockLeaseManager leaseManager;
+    private final DefaultRedisScript<Long> leasedScript;
+    private final SnowflakeIdGenerator idGenerator;
+    private final ProductReadiness readiness;
+    private final StockAdmissionGate admissionGate;
+    private final SoldOutRegistry soldOutRegistry;
+    private final RecentWinnersCache recentWinners;
+    private final OrderResultService orderResults;
+    private final SeckillMetrics metrics;
     private final Random random = new Random();
 
     public SeckillService(RedisTemplate<String, Object> redisTemplate,
                           @Qualifier("seckillScriptV5") DefaultRedisScript<Long> seckillScript,
                           SeckillProperties properties,
                           InventoryCacheFacade inventoryCacheFacade,
-                          RedissonClient redissonClient) {
+                          RedissonClient redissonClient,
+                          SeckillBatchCoordinator batchCoordinator,
+                          SeckillKeys keys,
+                          ClusterSeckillExecutor clusterExecutor,
+                          ClusterStockAggregator clusterStockAggregator,
+                          StockLeaseManager leaseManager,
+                          @Qualifier("seckillLeasedScript") DefaultRedisScript<Long> leasedScript,
+                          SnowflakeIdGenerator idGenerator,
+                          ProductReadiness readiness,
+                          StockAdmissionGate admissionGate,
+                          SoldOutRegistry soldOutRegistry,
+                          RecentWinnersCache recentWinners,
+                          OrderResultService orderResults,
+                          SeckillMetrics metrics) {
         this.redisTemplate = redisTemplate;
         this.seckillScript = seckillScript;
         this.properties = properties;
         this.inventoryCacheFacade = inventoryCacheFacade;
         this.redissonClient = redissonClient;
+        this.batchCoordinator = batchCoordinator;
+        this.keys = keys;
+        this.clusterExecutor = clusterExecutor;
+        this.clusterStockAggregator = clusterStockAggregator;
+        this.leaseManager = leaseManager;
+        this.leasedScript = leasedScript;
+        this.idGenerator = idGenerator;
+        this.readiness = readiness;
+        this.admissionGate = admissionGate;
+        this.soldOutRegistry = soldOutRegistry;
+        this.recentWinners = recentWinners;
+        this.orderResults = orderResults;
+        this.metrics = metrics;
     }
 
     /**
@@ -52,73 +113,271 @@ public class SeckillService {
      * L2 Redis + Redisson 锁/空值缓存策略。
      */
     public SeckillResult submitSeckillOrder(Long productId, Long userId) {
+        SeckillResult result = submit(productId, userId);
+        metrics.recordOutcome(productId, result);
+        return result;
+    }
+
+    private SeckillResult submit(Long productId, Long userId) {
+        if (isRecentWinner(productId, userId)) {
+            return SeckillResult.duplicate();
+        }
+        if (!admissionGate.tryAdmit(productId)) {
+            log.debug("Admission budget exhausted for productId={}, throttling userId={}", productId, userId);
+            return SeckillResult.throttled();
+        }
+
+        if (properties.isLeaseEnabled() && !keys.isClusterMode()) {
+            return submitWithLease(productId, userId);
+        }
+
+        SeckillResult rejection = rejectIfNotReady(productId);
+        if (rejection != null) {
+            return rejection;
+        }
+
+        String requestId = Long.toString(idGenerator.nextId());
+        String threadName = Thread.currentThread().getName();
+
+        if (keys.isClusterMode()) {
+            long luaStart = System.nanoTime();
+            SeckillResult result = clusterExecutor.submit(productId, userId, chooseBucket(productId, userId, 0), requestId);
+            metrics.recordLua(luaStart);
+            if (result.isAccepted()) {
+                admissionGate.onDeducted(productId);
+                recentWinners.record(productId, userId);
+            } else if ("DUPLICATE".equals(result.getCode())) {
+                recentWinners.record(productId, userId);
+            } else if ("SOLD_OUT".equals(result.getCode())) {
+                onSoldOut(productId);
+            }
+            return result;
+        }
+
+        // 桶遍历模式下由脚本在 Redis 内依次尝试所有桶，Java 侧只需一次往返
+        int retryCount = properties.isBucketWalkEnabled() ? 1 : Math.max(1, properties.getBucketRetryCount());
+        boolean cacheReloaded = false;
+        for (int attempt = 0; attempt < retryCount; attempt++) {
+            int bucketIndex = chooseBucket(productId, userId, attempt);
+            Long luaResult = executeLua(productId, userId, bucketIndex, requestId);
+            if (isKeyMissing(luaResult) && !cacheReloaded) {
+                // 库存 key 已丢失（TTL 过期或故障切换）：回到重建流程后在同一个桶上重试一次
+                cacheReloaded = true;
+                readiness.invalidate(productId);
+                rejection = rejectIfNotReady(productId);
+                if (rejection != null) {
+                    return rejection;
+                }
+                luaResult = executeLua(productId, userId, bucketIndex, requestId);
+            }
+
+            SeckillResult outcome = interpretLuaResult(luaResult, productId, userId, bucketIndex, requestId);
+            if (outcome != null) {
+                metrics.recordBucketAttempts(attempt + 1);
+                return outcome;
+            }
+            // try another bucket if we still have attempts left
+            log.debug("[{}] Bucket {} empty for productId={}, retry attempt {}/{}", threadName,
+                    bucketIndex, productId, attempt + 1, retryCount);
+        }
+
+        metrics.recordBucketAttempts(retryCount);
+        log.warn("All buckets exhausted for productId={} userId={}", productId, userId);
+        return SeckillResult.bucketEmpty();
+    }
+
+    /**
+     * 将 {@code seckill.lua} 的结果码映射为秒杀结果；桶已空（3）时返回 {@code null}，由调用方决定是否换桶重试。
+     */
+    SeckillResult interpretLuaResult(Long luaResult, Long productId, Long userId, int bucketIndex, String requestId) {
+        String threadName = Thread.currentThread().getName();
+        if (luaResult == null) {
+            log.error("[{}] Lua execution returned null (productId={}, userId={}, bucket={})",
+                    threadName, productId, userId, bucketIndex);
+            return SeckillResult.error("系统繁忙，请稍后再试");
+        }
+        if (luaResult == LUA_IN_DOUBT) {
+            log.warn("[{}] Batched Lua result pending past timeout, requestId={} productId={}, userId={}",
+                    threadName, requestId, productId, userId);
+            return SeckillResult.inDoubt(requestId);
+        }
+
+        switch (luaResult.intValue()) {
+            case 0:
+                log.info("[{}] Lua success -> queued requestId={}, productId={}, userId={}, bucket={}",
+                        threadName, requestId, productId, userId, bucketIndex);
+                admissionGate.onDeducted(productId);
+                recentWinners.record(productId, userId);
+                return SeckillResult.queued(requestId);
+            case 1:
+                log.warn("[{}] Duplicate request detected productId={}, userId={}",
+                        threadName, productId, userId);
+                recentWinners.record(productId, userId);
+                return SeckillResult.duplicate();
+            case 2:
+                log.warn("[{}] Total stock sold out productId={}", threadName, productId);
+                onSoldOut(productId);
+                return SeckillResult.soldOut();
+            case 3:
+                return null;
+            case 4:
+                log.warn("[{}] Stock keys missing for productId={} after reload", threadName, productId);
+                return SeckillResult.notReady();
+            default:
+                log.error("[{}] Unexpected Lua return code {} for productId={}, userId={}, bucket={}",
+                        threadName, luaResult, productId, userId, bucketIndex);
+                return SeckillResult.error("秒杀失败，请稍后重试");
+        }
+    }
+
+    /**
+     * 租借模式：优先从本实例的本地租约扣减，租约耗尽时才访问 Redis 续租。
+     * 库存扣减之后仍由 {@code seckill-leased.lua} 在 Redis 中完成去重和写 outbox。
+     */
+    private SeckillResult submitWithLease(Long productId, Long userId) {
+        String threadName = Thread.currentThread().getName();
+
+        if (!leaseManager.tryAcquire(productId)) {
+            SeckillResult rejection = rejectIfNotReady(productId);
+            if (rejection != null) {
+                return rejection;
+            }
+            StockLeaseManager.LeaseOutcome leaseOutcome = leaseManager.refillAndAcquire(productId);
+            if (leaseOutcome == StockLeaseManager.LeaseOutcome.KEY_MISSING) {
+                readiness.invalidate(productId);
+                rejection = rejectIfNotReady(productId);
+                if (rejection != null) {
+                    return rejection;
+                }
+                leaseOutcome = leaseManager.refillAndAcquire(productId);
+            }
+            switch (leaseOutcome) {
+                case ACQUIRED:
+                    break;
+                case EXHAUSTED:
+                    log.info("[{}] No stock left to lease for productId={}", threadName, productId);
+                    admissionGate.onSoldOut(productId);
+                    // 其他节点可能还持有未用完的租约，只在本节点标记售罄
+                    soldOutRegistry.markSoldOutLocally(productId);
+                    return SeckillResult.soldOut();
+                case KEY_MISSING:
+                    return SeckillResult.notReady();
+                default:
+                    return SeckillResult.error("系统繁忙，请稍后再试");
+            }
+        }
+
+        String requestId = Long.toString(idGenerator.nextId());
+        Long luaResult;
+        long luaStart = System.nanoTime();
+        try {
+            luaResult = redisTemplate.execute(
+                    leasedScript,
+                    Arrays.asList(properties.getUserSetKeyPrefix(), properties.getStreamKeyPrefix()),
+                    String.valueOf(userId),
+                    String.valueOf(productId),
+                    requestId,
+                    keys.buyerMarkerMode(),
+                    String.valueOf(keys.buyerBitmapSegmentBits())
+            );
+        } catch (Exception e) {
+            log.error("Leased Lua execution threw exception productId={}, userId={}", productId, userId, e);
+            luaResult = null;
+        }
+        metrics.recordLua(luaStart);
+
+        if (luaResult != null && luaResult == 0L) {
+            log.info("[{}] Leased stock -> queued requestId={}, productId={}, userId={}",
+                    threadName, requestId, productId, userId);
+            admissionGate.onDeducted(productId);
+            recentWinners.record(productId, userId);
+            return SeckillResult.queued(requestId);
+        }
+
+        // 未成功下单：把本地扣减的库存还回租约
+        leaseManager.release(productId);
+        if (luaResult != null && luaResult == 1L) {
+            log.warn("[{}] Duplicate request detected productId={}, userId={}", threadName, productId, userId);
+            recentWinners.record(productId, userId);
+            return SeckillResult.duplicate();
+        }
+        log.error("[{}] Unexpected leased Lua result {} for productId={}, userId={}",
+                threadName, luaResult, productId, userId);
+        return SeckillResult.error("系统繁忙，请稍后再试");
+    }
+
+    /**
+     * 已知就绪的商品直接放行，不访问 Redis；否则走缓存重建流程，并在 key 确认存在后记为就绪。
+     */
+    private SeckillResult rejectIfNotReady(Long productId) {
+        if (readiness.isReady(productId)) {
+            return null;
+        }
         CacheWarmupState warmupState = ensureStockCacheIsReady(productId);
+        if (warmupState == CacheWarmupState.READY || warmupState == CacheWarmupState.SOLD_OUT) {
+            readiness.markReady(productId);
+        }
+        return rejectIfNotReady(warmupState, productId);
+    }
+
+    /**
+     * 本实例最近成功过的用户再次点击时直接判定重复，不访问 Redis。
+     */
+    boolean isRecentWinner(Long productId, Long userId) {
+        if (userId == null || !recentWinners.contains(productId, userId)) {
+            return false;
+        }
+        log.debug("Recent winner short-circuit productId={}, userId={}", productId, userId);
+        return true;
+    }
+
+    /**
+     * 扣减脚本判定售罄：更新准入估计，并把售罄状态广播给所有节点。
+     */
+    private void onSoldOut(Long productId) {
+        admissionGate.onSoldOut(productId);
+        soldOutRegistry.markSoldOut(productId);
+    }
+
+    static boolean isKeyMissing(Long luaResult) {
+        return luaResult != null && luaResult == LUA_KEY_MISSING;
+    }
+
+    /**
+     * 将缓存预热状态映射为拒绝结果；{@code READY} 时返回 {@code null} 表示可以继续执行 Lua。
+     */
+    SeckillResult rejectIfNotReady(CacheWarmupState warmupState, Long productId) {
         switch (warmupState) {
             case NOT_FOUND:
                 log.warn("Product {} not found during cache warmup", productId);
                 return SeckillResult.notFound();
             case SOLD_OUT:
                 log.info("Product {} already sold out before executing Lua", productId);
+                if (!properties.isLeaseEnabled()) {
+                    soldOutRegistry.markSoldOut(productId);
+                }
                 return SeckillResult.soldOut();
             case LOADING:
                 log.debug("Product {} cache is being rebuilt by another worker", productId);
                 return SeckillResult.notReady();
             case READY:
-                break;
+                return null;
             default:
                 log.error("Unexpected cache warmup state {} for product {}", warmupState, productId);
                 return SeckillResult.error("系统繁忙，请稍后重试");
         }
-
-        String requestId = UUID.randomUUID().toString();
-        String threadName = Thread.currentThread().getName();
-
-        int retryCount = Math.max(1, properties.getBucketRetryCount());
-        for (int attempt = 0; attempt < retryCount; attempt++) {
-            int bucketIndex = chooseBucket(productId, userId, attempt);
-            Long luaResult = executeLua(productId, userId, bucketIndex, requestId);
-
-            if (luaResult == null) {
-                log.error("[{}] Lua execution returned null (productId={}, userId={}, bucket={})",
-                        threadName, productId, userId, bucketIndex);
-                return SeckillResult.error("系统繁忙，请稍后再试");
-            }
-
-            switch (luaResult.intValue()) {
-                case 0:
-                    log.info("[{}] Lua success -> queued requestId={}, productId={}, userId={}, bucket={}",
-                            threadName, requestId, productId, userId, bucketIndex);
-                    return SeckillResult.queued(requestId);
-                case 1:
-                    log.warn("[{}] Duplicate request detected productId={}, userId={}",
-                            threadName, productId, userId);
-                    return SeckillResult.duplicate();
-                case 2:
-                    log.warn("[{}] Total stock sold out productId={}", threadName, productId);
-                    return SeckillResult.soldOut();
-                case 3:
-                    log.debug("[{}] Bucket {} empty for productId={}, retry attempt {}/{}", threadName,
-                            bucketIndex, productId, attempt + 1, retryCount);
-                    // try another bucket if we still have attempts left
-                    break;
-                default:
-                    log.error("[{}] Unexpected Lua return code {} for productId={}, userId={}, bucket={}",
-                            threadName, luaResult, productId, userId, bucketIndex);
-                    return SeckillResult.error("秒杀失败，请稍后重试");
-            }
-        }
-
-        log.warn("All buckets exhausted for productId={} userId={}", productId, userId);
-        return SeckillResult.bucketEmpty();
     }
 
     private CacheWarmupState ensureStockCacheIsReady(Long productId) {
         String threadName = Thread.currentThread().getName();
-        String totalKey = totalStockKey(productId);
+        String totalKey = keys.totalStockKey(productId);
 
+        long getStart = System.nanoTime();
         Object cachedTotal = redisTemplate.opsForValue().get(totalKey);
+        metrics.recordWarmupGet(getStart);
         if (cachedTotal != null) {
             long current = asLong(cachedTotal);
+            admissionGate.updateRemaining(productId, current);
             if (current <= 0) {
                 log.debug("[{}] Redis sentinel indicates product {} is sold out", threadName, productId);
                 return CacheWarmupState.SOLD_OUT;
@@ -130,8 +389,10 @@ public class SeckillService {
         RLock lock = redissonClient.getLock(lockKey);
         boolean locked = false;
         try {
+            long lockStart = System.nanoTime();
             locked = lock.tryLock(properties.getCacheLockWaitSeconds(),
                     properties.getCacheLockLeaseSeconds(), TimeUnit.SECONDS);
+            metrics.recordLockWait(lockStart, locked);
             if (!locked) {
                 log.debug("[{}] Failed to acquire rebuild lock for product {}", threadName, productId);
                 return CacheWarmupState.LOADING;
@@ -151,6 +412,7 @@ public class SeckillService {
                 log.warn("Product {} not found in L3 data source; caching empty sentinel", productId);
                 redisTemplate.opsForValue().set(totalKey, -1L,
                         properties.getEmptyCacheTtlSeconds(), TimeUnit.SECONDS);
+                metrics.recordRebuild(SeckillMetrics.RebuildResult.NOT_FOUND);
                 return CacheWarmupState.NOT_FOUND;
             }
 
@@ -159,21 +421,26 @@ public class SeckillService {
                 log.info("Product {} has no remaining stock in L3 data source; caching sold-out sentinel", productId);
                 redisTemplate.opsForValue().set(totalKey, -1L,
                         properties.getEmptyCacheTtlSeconds(), TimeUnit.SECONDS);
+                metrics.recordRebuild(SeckillMetrics.RebuildResult.SOLD_OUT);
                 return CacheWarmupState.SOLD_OUT;
             }
 
-            long bucketCount = Math.max(1, properties.getBucketCount());
-            long base = totalStock / bucketCount;
-            long remainder = totalStock % bucketCount;
+            int bucketCount = Math.max(1, properties.getBucketCount());
             long ttl = cacheTtlSeconds();
 
             for (int i = 1; i <= bucketCount; i++) {
-                long bucketStock = base + ((i == bucketCount) ? remainder : 0);
-                redisTemplate.opsForValue().set(bucketKey(productId, i),
-                        Math.max(bucketStock, 0), ttl, TimeUnit.SECONDS);
+                redisTemplate.opsForValue().set(keys.bucketKey(productId, i),
+                        StockBuckets.share(totalStock, bucketCount, i), ttl, TimeUnit.SECONDS);
             }
             redisTemplate.opsForValue().set(totalKey, totalStock, ttl, TimeUnit.SECONDS);
+            redisTemplate.opsForSet().add(keys.streamRegistryKey(), (Object[]) keys.outboxStreamKeys(productId));
+            admissionGate.updateRemaining(productId, totalStock);
+            soldOutRegistry.markReplenished(productId);
+            if (keys.isClusterMode()) {
+                clusterStockAggregator.track(productId);
+            }
 
+            metrics.recordRebuild(SeckillMetrics.RebuildResult.READY);
             log.info("[{}] Rebuilt Redis cache for product {} with totalStock={}, ttl={}s",
                     threadName, productId, totalStock, ttl);
             return CacheWarmupState.READY;
@@ -193,7 +460,20 @@ public class SeckillService {
     }
 
     private Long executeLua(Long productId, Long userId, int bucketIndex, String requestId) {
-        List<String> keys = Arrays.asList(
+        long start = System.nanoTime();
+        try {
+            return doExecuteLua(productId, userId, bucketIndex, requestId);
+        } finally {
+            metrics.recordLua(start);
+        }
+    }
+
+    private Long doExecuteLua(Long productId, Long userId, int bucketIndex, String requestId) {
+        if (properties.isBatchEnabled()) {
+            return executeLuaBatched(productId, userId, bucketIndex, requestId);
+        }
+
+        List<String> scriptKeys = Arrays.asList(
                 properties.getStockKeyPrefix(),
                 properties.getUserSetKeyPrefix(),
                 properties.getStreamKeyPrefix()
@@ -202,11 +482,14 @@ public class SeckillService {
         try {
             return redisTemplate.execute(
                     seckillScript,
-                    keys,
+                    scriptKeys,
                     String.valueOf(userId),
                     String.valueOf(productId),
                     String.valueOf(bucketIndex),
-                    requestId
+                    requestId,
+                    String.valueOf(walkBucketCount()),
+                    keys.buyerMarkerMode(),
+                    String.valueOf(keys.buyerBitmapSegmentBits())
             );
         } catch (Exception e) {
             log.error("Lua execution threw exception productId={}, userId={}, bucket={}",
@@ -215,7 +498,70 @@ public class SeckillService {
         }
     }
 
-    private int chooseBucket(Long productId, Long userId, int attempt) {
+    /**
+     * 请求合并模式：交给 {@link SeckillBatchCoordinator} 与同商品的其他请求一起执行，结果码语义不变。
+     */
+    private Long executeLuaBatched(Long productId, Long userId, int bucketIndex, String requestId) {
+        CompletableFuture<Long> pending = batchCoordinator.submit(productId, userId, bucketIndex, requestId);
+        try {
+            return pending.get(Math.max(1, properties.getBatchTimeoutMillis()), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted while waiting for batched Lua result productId={}, userId={}",
+                    productId, userId);
+            pending.thenAccept(code -> onLateBatchResult(code, productId, userId, requestId));
+            return LUA_IN_DOUBT;
+        } catch (TimeoutException e) {
+            // 批次已经提交，脚本稍后仍可能扣减成功：不能直接报错，让调用方按 requestId 查询最终结果
+            log.warn("Timed out waiting for batched Lua result productId={}, userId={}, requestId={}",
+                    productId, userId, requestId);
+            pending.thenAccept(code -> onLateBatchResult(code, productId, userId, requestId));
+            return LUA_IN_DOUBT;
+        } catch (ExecutionException e) {
+            log.error("Batched Lua execution failed productId={}, userId={}, bucket={}",
+                    productId, userId, bucketIndex, e.getCause());
+            return null;
+        }
+    }
+
+    /**
+     * 超时后才返回的批量结果：扣减成功时补做本地记账（订单结果由 order-service 写入）；
+     * 明确失败时写入 FAILED 结果，避免 /seckill/result 一直停留在处理中。
+     * 结果码为 {@code null}（脚本执行异常）时无法确定是否已扣减，不写入结果。
+     */
+    private void onLateBatchResult(Long code, Long productId, Long userId, String requestId) {
+        if (code == null) {
+            log.error("Late batched Lua result unknown, requestId={} productId={}, userId={}",
+                    requestId, productId, userId);
+            return;
+        }
+        switch (code.intValue()) {
+            case 0:
+                admissionGate.onDeducted(productId);
+                recentWinners.record(productId, userId);
+                return;
+            case 1:
+                recentWinners.record(productId, userId);
+                break;
+            case 2:
+                onSoldOut(productId);
+                break;
+            default:
+                break;
+        }
+        log.info("Late batched Lua result {} -> failed, requestId={} productId={}, userId={}",
+                code, requestId, productId, userId);
+        orderResults.recordFailed(Long.parseLong(requestId), userId);
+    }
+
+    /**
+     * 传给脚本的桶数量；返回 0 表示只扣减指定桶（旧的 Java 侧重试模式）。
+     */
+    int walkBucketCount() {
+        return properties.isBucketWalkEnabled() ? Math.max(1, properties.getBucketCount()) : 0;
+    }
+
+    int chooseBucket(Long productId, Long userId, int attempt) {
         int bucketCount = Math.max(1, properties.getBucketCount());
         if (userId != null) {
             long base = Math.floorMod(userId + attempt, bucketCount);
@@ -224,7 +570,7 @@ public class SeckillService {
         return random.nextInt(bucketCount) + 1;
     }
 
-    private long cacheTtlSeconds() {
+    long cacheTtlSeconds() {
         long base = Math.max(1, properties.getCacheTtlSeconds());
         long jitter = Math.max(0, properties.getCacheTtlJitterSeconds());
         if (jitter == 0) {
@@ -233,22 +579,14 @@ public class SeckillService {
         return base + random.nextInt((int) Math.max(1, jitter));
     }
 
-    private String totalStockKey(Long productId) {
-        return properties.getStockKeyPrefix() + productId + TOTAL_STOCK_SUFFIX;
-    }
-
-    private String bucketKey(Long productId, int bucketIndex) {
-        return properties.getStockKeyPrefix() + productId + BUCKET_SUFFIX + bucketIndex;
-    }
-
-    private long asLong(Object value) {
+    static long asLong(Object value) {
         if (value instanceof Number number) {
             return number.longValue();
         }
         return Long.parseLong(String.valueOf(value));
     }
 
-    private enum CacheWarmupState {
+    enum CacheWarmupState {
         READY,
         SOLD_OUT,
         NOT_FOUND,
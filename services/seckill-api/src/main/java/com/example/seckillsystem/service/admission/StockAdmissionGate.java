@@ -0,0 +1,97 @@
+package com.example.seckillsystem.service.admission;
+
+import com.example.seckillsystem.service.props.SeckillProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按剩余库存比例的本地准入控制。
+ * <p>
+ * 商品只剩少量库存时，绝大多数请求注定失败，却仍然每个都要执行一次 Lua。该闸门按商品维护一个剩余库存估计，
+ * 每个 {@code admissionIntervalMillis} 周期最多放行 {@code max(admissionMinPerInterval, admissionFactor × 剩余库存)}
+ * 个请求，其余请求在本地以可重试的 {@code THROTTLED} 拒绝，不访问 Redis。
+ * <p>
+ * 剩余库存估计不额外查询 Redis，而是从已有的结果中顺带更新：缓存预热/重建时的总库存、再平衡扫描得到的各桶之和、
+ * 集群模式下的总库存汇总，以及每次扣减成功（减一）和售罄（归零）的返回码。尚无估计的商品不做限制。
+ */
+@Component
+public class StockAdmissionGate {
+
+    private final SeckillProperties properties;
+    private final Map<Long, ProductGate> gates = new ConcurrentHashMap<>();
+
+    public StockAdmissionGate(SeckillProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * @return 是否放行本次请求进入 Lua
+     */
+    public boolean tryAdmit(Long productId) {
+        if (!properties.isAdmissionEnabled()) {
+            return true;
+        }
+        ProductGate gate = gates.get(productId);
+        if (gate == null || gate.remaining < 0) {
+            return true;
+        }
+
+        long now = System.nanoTime();
+        long windowStart = gate.windowStartNanos.get();
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, properties.getAdmissionIntervalMillis()));
+        if (now - windowStart >= intervalNanos && gate.windowStartNanos.compareAndSet(windowStart, now)) {
+            gate.admitted.set(0);
+        }
+
+        long budget = Math.max(Math.max(1, properties.getAdmissionMinPerInterval()),
+                (long) Math.ceil(properties.getAdmissionFactor() * gate.remaining));
+        return gate.admitted.incrementAndGet() <= budget;
+    }
+
+    /**
+     * 用一个已知的剩余库存值覆盖估计（预热、再平衡扫描、集群汇总）。
+     */
+    public void updateRemaining(Long productId, long remaining) {
+        gate(productId).remaining = Math.max(0, remaining);
+    }
+
+    /**
+     * 一次扣减成功：估计值减一。
+     */
+    public void onDeducted(Long productId) {
+        ProductGate gate = gates.get(productId);
+        if (gate != null && gate.remaining > 0) {
+            gate.remaining = gate.remaining - 1;
+        }
+    }
+
+    /**
+     * 脚本判定售罄：估计值归零，之后每个周期只放行最少数量的请求。
+     */
+    public void onSoldOut(Long productId) {
+        updateRemaining(productId, 0);
+    }
+
+    /**
+     * 当前的剩余库存估计；尚无估计时返回 -1。
+     */
+    public long estimatedRemaining(Long productId) {
+        ProductGate gate = gates.get(productId);
+        return gate == null ? -1 : gate.remaining;
+    }
+
+    private ProductGate gate(Long productId) {
+        return gates.computeIfAbsent(productId, id -> new ProductGate());
+    }
+
+    private static final class ProductGate {
+        // 估计值允许并发下少量偏差：它只决定放行多少请求，真正的扣减由 Redis 保证
+        private volatile long remaining = -1;
+        private final AtomicLong windowStartNanos = new AtomicLong(System.nanoTime());
+        private final AtomicLong admitted = new AtomicLong();
+    }
+}
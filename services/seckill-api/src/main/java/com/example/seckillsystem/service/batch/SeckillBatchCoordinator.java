@@ -0,0 +1,218 @@
+package com.example.seckillsystem.service.batch;
+
+import com.example.seckillsystem.service.keys.SeckillKeys;
+import com.example.seckillsystem.service.props.SeckillProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 请求合并器：把同一商品在短时间窗口内的并发秒杀请求收集成一个批次，
+ * 通过 {@code seckill-batch.lua} 一次 EVALSHA 完成，再把逐个用户的结果码回填给各自的调用方。
+ * <p>
+ * 批次在达到 {@code batchMaxSize} 或自第一个请求起经过 {@code batchWindowMicros} 时提交，二者先到为准。
+ * <p>
+ * 窗口计时与脚本执行使用两个独立的线程池：计时线程只负责关闭批次，阻塞的 EVALSHA 在
+ * {@code batchFlushThreads} 个执行线程上运行，某个商品的慢调用不会推迟其他商品批次的提交。
+ */
+@Component
+public class SeckillBatchCoordinator implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(SeckillBatchCoordinator.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    @SuppressWarnings("rawtypes")
+    private final DefaultRedisScript<List> batchScript;
+    private final SeckillProperties properties;
+    private final SeckillKeys keys;
+    private final ConcurrentHashMap<Long, PendingBatch> openBatches = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timer;
+    private final ExecutorService scriptExecutor;
+
+    @SuppressWarnings("rawtypes")
+    public SeckillBatchCoordinator(RedisTemplate<String, Object> redisTemplate,
+                                   @Qualifier("seckillBatchScript") DefaultRedisScript<List> batchScript,
+                                   SeckillProperties properties,
+                                   SeckillKeys keys) {
+        this.redisTemplate = redisTemplate;
+        this.batchScript = batchScript;
+        this.properties = properties;
+        this.keys = keys;
+
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, daemonThreads("seckill-batch-timer-"));
+        executor.setRemoveOnCancelPolicy(true);
+        this.timer = executor;
+        this.scriptExecutor = Executors.newFixedThreadPool(
+                Math.max(1, properties.getBatchFlushThreads()), daemonThreads("seckill-batch-exec-"));
+    }
+
+    private static ThreadFactory daemonThreads(String namePrefix) {
+        AtomicInteger sequence = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r);
+            t.setDaemon(true);
+            t.setName(namePrefix + sequence.incrementAndGet());
+            return t;
+        };
+    }
+
+    /**
+     * 将一次秒杀尝试加入所属商品的当前批次。
+     *
+     * @return 该请求对应的 Lua 结果码；批量脚本执行失败时以 {@code null} 完成
+     */
+    public CompletableFuture<Long> submit(Long productId, Long userId, int bucketIndex, String requestId) {
+        BatchEntry entry = new BatchEntry(userId, bucketIndex, requestId);
+        int maxSize = Math.max(1, properties.getBatchMaxSize());
+
+        while (true) {
+            PendingBatch batch = openBatches.computeIfAbsent(productId, PendingBatch::new);
+            int size = batch.add(entry);
+            if (size < 0) {
+                // 批次已被其他线程关闭，移除后重新取一个新的批次
+                openBatches.remove(productId, batch);
+                continue;
+            }
+            if (size == 1) {
+                timer.schedule(() -> flush(batch),
+                        Math.max(1, properties.getBatchWindowMicros()), TimeUnit.MICROSECONDS);
+            }
+            if (size >= maxSize) {
+                flush(batch);
+            }
+            return entry.future;
+        }
+    }
+
+    private void flush(PendingBatch batch) {
+        if (!batch.close()) {
+            return;
+        }
+        openBatches.remove(batch.productId, batch);
+        scriptExecutor.execute(() -> execute(batch));
+    }
+
+    private void execute(PendingBatch batch) {
+        List<BatchEntry> entries = batch.entries;
+        List<String> scriptKeys = Arrays.asList(
+                properties.getStockKeyPrefix(),
+                properties.getUserSetKeyPrefix(),
+                properties.getStreamKeyPrefix()
+        );
+
+        int walkBucketCount = properties.isBucketWalkEnabled() ? Math.max(1, properties.getBucketCount()) : 0;
+        Object[] args = new Object[5 + entries.size() * 3];
+        args[0] = String.valueOf(batch.productId);
+        args[1] = String.valueOf(entries.size());
+        args[2] = String.valueOf(walkBucketCount);
+        args[3] = keys.buyerMarkerMode();
+        args[4] = String.valueOf(keys.buyerBitmapSegmentBits());
+        int i = 5;
+        for (BatchEntry entry : entries) {
+            args[i++] = String.valueOf(entry.userId);
+            args[i++] = String.valueOf(entry.bucketIndex);
+            args[i++] = entry.requestId;
+        }
+
+        List<?> results;
+        try {
+            results = redisTemplate.execute(batchScript, scriptKeys, args);
+        } catch (Exception e) {
+            log.error("Batch Lua execution threw exception productId={}, size={}",
+                    batch.productId, entries.size(), e);
+            results = null;
+        }
+
+        if (results == null || results.size() != entries.size()) {
+            if (results != null) {
+                log.error("Batch Lua returned {} results for {} requests (productId={})",
+                        results.size(), entries.size(), batch.productId);
+            }
+            entries.forEach(entry -> entry.future.complete(null));
+            return;
+        }
+
+        for (int idx = 0; idx < entries.size(); idx++) {
+            Object code = results.get(idx);
+            entries.get(idx).future.complete(code instanceof Number number ? number.longValue() : null);
+        }
+        log.debug("Flushed seckill batch productId={}, size={}", batch.productId, entries.size());
+    }
+
+    @Override
+    public void destroy() {
+        timer.shutdownNow();
+        openBatches.values().forEach(this::flush);
+        scriptExecutor.shutdown();
+        try {
+            if (!scriptExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                scriptExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            scriptExecutor.shutdownNow();
+        }
+    }
+
+    private static final class BatchEntry {
+        private final Long userId;
+        private final int bucketIndex;
+        private final String requestId;
+        private final CompletableFuture<Long> future = new CompletableFuture<>();
+
+        private BatchEntry(Long userId, int bucketIndex, String requestId) {
+            this.userId = userId;
+            this.bucketIndex = bucketIndex;
+            this.requestId = requestId;
+        }
+    }
+
+    private static final class PendingBatch {
+        private final Long productId;
+        private final List<BatchEntry> entries = new ArrayList<>();
+        private boolean closed;
+
+        private PendingBatch(Long productId) {
+            this.productId = productId;
+        }
+
+        /**
+         * @return 加入后的批次大小；批次已关闭时返回 -1
+         */
+        private synchronized int add(BatchEntry entry) {
+            if (closed) {
+                return -1;
+            }
+            entries.add(entry);
+            return entries.size();
+        }
+
+        /**
+         * @return 本次调用是否真正关闭了批次（只有第一个关闭者负责提交）
+         */
+        private synchronized boolean close() {
+            if (closed) {
+                return false;
+            }
+            closed = true;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.seckillsystem.service.cluster;
+
+import com.example.seckillsystem.service.dto.SeckillResult;
+import com.example.seckillsystem.service.keys.SeckillKeys;
+import com.example.seckillsystem.service.props.SeckillProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Redis Cluster 模式下的秒杀执行器。
+ * <p>
+ * 用户固定落在主桶 {@code userId % bucketCount}，去重集合与主桶库存、主桶 stream 同属一个 hash tag，
+ * 由 {@code seckill-cluster.lua} 原子完成。主桶为空时用户已在主桶被预占，再依次用
+ * {@code seckill-cluster-steal.lua} 从其他桶（其他 slot）扣减；全部失败则释放预占。
+ * 这样一个热点商品的扣减压力按桶数分散到多个分片上。
+ */
+@Component
+public class ClusterSeckillExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterSeckillExecutor.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final DefaultRedisScript<Long> homeScript;
+    private final DefaultRedisScript<Long> stealScript;
+    private final SeckillProperties properties;
+    private final SeckillKeys keys;
+
+    public ClusterSeckillExecutor(RedisTemplate<String, Object> redisTemplate,
+                                  @Qualifier("seckillClusterScript") DefaultRedisScript<Long> homeScript,
+                                  @Qualifier("seckillClusterStealScript") DefaultRedisScript<Long> stealScript,
+                                  SeckillProperties properties,
+                                  SeckillKeys keys) {
+        this.redisTemplate = redisTemplate;
+        this.homeScript = homeScript;
+        this.stealScript = stealScript;
+        this.properties = properties;
+        this.keys = keys;
+    }
+
+    public SeckillResult submit(Long productId, Long userId, int homeBucket, String requestId) {
+        String threadName = Thread.currentThread().getName();
+        Long homeResult = execute(homeScript,
+                Arrays.asList(keys.bucketKey(productId, homeBucket),
+                        keys.buyerMarkerKey(productId, homeBucket, userId),
+                        keys.streamKey(productId, homeBucket)),
+                productId, userId, homeBucket, requestId,
+                keys.buyerMarkerMode(), String.valueOf(keys.buyerMarkerOffset(userId)));
+
+        if (homeResult == null) {
+            return SeckillResult.error("系统繁忙，请稍后再试");
+        }
+        switch (homeResult.intValue()) {
+            case 0:
+                log.info("[{}] Cluster Lua success -> queued requestId={}, productId={}, userId={}, bucket={}",
+                        threadName, requestId, productId, userId, homeBucket);
+                return SeckillResult.queued(requestId);
+            case 1:
+                log.warn("[{}] Duplicate request detected productId={}, userId={}", threadName, productId, userId);
+                return SeckillResult.duplicate();
+            case 3:
+                break;
+            default:
+                log.error("[{}] Unexpected cluster Lua return code {} for productId={}, userId={}, bucket={}",
+                        threadName, homeResult, productId, userId, homeBucket);
+                return SeckillResult.error("秒杀失败，请稍后重试");
+        }
+
+        // 主桶已空：用户已在主桶预占，尝试从其他桶扣减
+        int bucketCount = Math.max(1, properties.getBucketCount());
+        int maxSteals = properties.isBucketWalkEnabled()
+                ? bucketCount - 1
+                : Math.min(bucketCount - 1, Math.max(0, properties.getBucketRetryCount() - 1));
+        for (int offset = 1; offset <= maxSteals; offset++) {
+            int candidate = ((homeBucket - 1 + offset) % bucketCount) + 1;
+            Long stealResult = execute(stealScript,
+                    Arrays.asList(keys.bucketKey(productId, candidate), keys.streamKey(productId, candidate)),
+                    productId, userId, candidate, requestId);
+
+            if (stealResult != null && stealResult == 0L) {
+                log.info("[{}] Cluster Lua success -> queued requestId={}, productId={}, userId={}, bucket={} (home={})",
+                        threadName, requestId, productId, userId, candidate, homeBucket);
+                return SeckillResult.queued(requestId);
+            }
+            if (stealResult == null || stealResult != 3L) {
+                releaseReservation(productId, userId, homeBucket);
+                log.error("[{}] Cluster steal failed with code {} productId={}, userId={}, bucket={}",
+                        threadName, stealResult, productId, userId, candidate);
+                return SeckillResult.error("系统繁忙，请稍后再试");
+            }
+        }
+
+        releaseReservation(productId, userId, homeBucket);
+        if (maxSteals == bucketCount - 1) {
+            log.warn("[{}] All {} cluster buckets empty productId={}", threadName, bucketCount, productId);
+            return SeckillResult.soldOut();
+        }
+        log.warn("All buckets exhausted for productId={} userId={}", productId, userId);
+        return SeckillResult.bucketEmpty();
+    }
+
+    private Long execute(DefaultRedisScript<Long> script, List<String> scriptKeys,
+                         Long productId, Long userId, int bucketIndex, String requestId, Object... extraArgs) {
+        Object[] args = new Object[4 + extraArgs.length];
+        args[0] = String.valueOf(userId);
+        args[1] = String.valueOf(productId);
+        args[2] = String.valueOf(bucketIndex);
+        args[3] = requestId;
+        System.arraycopy(extraArgs, 0, args, 4, extraArgs.length);
+        try {
+            return redisTemplate.execute(script, scriptKeys, args);
+        } catch (Exception e) {
+            log.error("Cluster Lua execution threw exception productId={}, userId={}, bucket={}",
+                    productId, userId, bucketIndex, e);
+            return null;
+        }
+    }
+
+    private void releaseReservation(Long productId, Long userId, int homeBucket) {
+        String markerKey = keys.buyerMarkerKey(productId, homeBucket, userId);
+        try {
+            if (properties.getBuyerMarker() == SeckillProperties.BuyerMarker.BITMAP) {
+                redisTemplate.opsForValue().setBit(markerKey, keys.buyerMarkerOffset(userId), false);
+            } else {
+                redisTemplate.opsForSet().remove(markerKey, String.valueOf(userId));
+            }
+        } catch (Exception e) {
+            // 释放失败只会让该用户无法再次尝试，不会造成超卖
+            log.error("Failed to release cluster reservation productId={}, userId={}, bucket={}",
+                    productId, userId, homeBucket, e);
+        }
+    }
+}
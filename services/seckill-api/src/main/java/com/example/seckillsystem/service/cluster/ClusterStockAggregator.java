@@ -0,0 +1,116 @@
+package com.example.seckillsystem.service.cluster;
+
+import com.example.seckillsystem.service.admission.StockAdmissionGate;
+import com.example.seckillsystem.service.keys.SeckillKeys;
+import com.example.seckillsystem.service.props.SeckillProperties;
+import com.example.seckillsystem.service.soldout.SoldOutRegistry;
+import com.example.seckillsystem.service.warmup.ProductReadiness;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 集群模式下跨分片维护总库存：各桶位于不同 slot，无法在扣减脚本中同步更新 {@code :total}，
+ * 因此由该任务定期逐桶读取并写回 {@code seckill:stock:{id}:total}（保留原 TTL）。
+ * 总库存只用于售罄预判，真正的防超卖由各桶脚本保证，所以短暂滞后是可接受的。
+ */
+@Component
+public class ClusterStockAggregator {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterStockAggregator.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final SeckillProperties properties;
+    private final SeckillKeys keys;
+    private final ProductReadiness readiness;
+    private final StockAdmissionGate admissionGate;
+    private final SoldOutRegistry soldOutRegistry;
+    private final Set<Long> trackedProducts = ConcurrentHashMap.newKeySet();
+
+    public ClusterStockAggregator(RedisTemplate<String, Object> redisTemplate,
+                                  SeckillProperties properties,
+                                  SeckillKeys keys,
+                                  ProductReadiness readiness,
+                                  StockAdmissionGate admissionGate,
+                                  SoldOutRegistry soldOutRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+        this.keys = keys;
+        this.readiness = readiness;
+        this.admissionGate = admissionGate;
+        this.soldOutRegistry = soldOutRegistry;
+    }
+
+    /**
+     * 登记一个需要汇总总库存的商品（通常在本节点重建缓存后调用）。
+     */
+    public void track(Long productId) {
+        trackedProducts.add(productId);
+    }
+
+    @Scheduled(fixedDelayString = "#{@seckillProperties.clusterTotalRefreshMillis}")
+    public void refreshTotals() {
+        if (!properties.isClusterModeEnabled()) {
+            return;
+        }
+        trackedProducts.addAll(properties.resolvedProductIds());
+        for (Long productId : trackedProducts) {
+            try {
+                refreshTotal(productId);
+            } catch (Exception e) {
+                log.warn("Failed to refresh cluster total stock for product {}", productId, e);
+            }
+        }
+    }
+
+    private void refreshTotal(Long productId) {
+        String totalKey = keys.totalStockKey(productId);
+        Object currentTotal = redisTemplate.opsForValue().get(totalKey);
+        if (currentTotal == null) {
+            // 尚未预热或已过期：交给请求路径上的缓存重建处理，这里不凭空创建。
+            // 集群脚本不读取 :total，无法通过返回码发现 key 丢失，因此由这里撤销“已就绪”标记
+            readiness.invalidate(productId);
+            return;
+        }
+        long current = Long.parseLong(String.valueOf(currentTotal));
+        if (current < 0) {
+            // -1 为空值/售罄哨兵，保持原样
+            return;
+        }
+
+        int bucketCount = Math.max(1, properties.getBucketCount());
+        long sum = 0;
+        for (int i = 1; i <= bucketCount; i++) {
+            Object bucketValue = redisTemplate.opsForValue().get(keys.bucketKey(productId, i));
+            if (bucketValue != null) {
+                sum += Math.max(0, Long.parseLong(String.valueOf(bucketValue)));
+            }
+        }
+
+        admissionGate.updateRemaining(productId, sum);
+        if (sum == 0) {
+            soldOutRegistry.markSoldOut(productId);
+        } else if (current == 0) {
+            soldOutRegistry.markReplenished(productId);
+        }
+        if (sum == current) {
+            return;
+        }
+
+        byte[] rawKey = RedisSerializer.string().serialize(totalKey);
+        byte[] rawValue = String.valueOf(sum).getBytes(StandardCharsets.UTF_8);
+        redisTemplate.execute((RedisCallback<Boolean>) connection ->
+                connection.stringCommands().set(rawKey, rawValue, Expiration.keepTtl(), SetOption.upsert()));
+        log.debug("Refreshed cluster total stock product={} total={}", productId, sum);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.seckillsystem.service.dto;
+
+import java.util.List;
+
+/**
+ * 商品各桶剩余库存的快照。桶 key 不存在时对应位置为 {@code null}；{@code total} 为 {@code :total} 的当前值。
+ */
+public record BucketStockReport(Long productId, Long total, List<Long> buckets, long bucketSum) {
+}
@@ -0,0 +1,7 @@
+package com.example.seckillsystem.service.dto;
+
+/**
+ * {@code GET /seckill/result/{requestId}} 的响应体。
+ */
+public record OrderResultView(String requestId, OrderStatus status) {
+}
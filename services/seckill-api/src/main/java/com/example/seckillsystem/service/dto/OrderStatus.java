@@ -0,0 +1,43 @@
+package com.example.seckillsystem.service.dto;
+
+/**
+ * 异步下单的处理状态，由 order-service 写入的结果码映射而来。
+ */
+public enum OrderStatus {
+    /**
+     * 已受理，order-service 尚未写入最终结果。
+     */
+    PENDING,
+    /**
+     * 订单已创建。
+     */
+    CREATED,
+    /**
+     * 下单失败（重复购买、处理重试耗尽等）。
+     */
+    FAILED,
+    /**
+     * MySQL 扣减库存失败，未生成订单。
+     */
+    REJECTED;
+
+    /**
+     * @return 结果码对应的最终状态；无法识别时返回 {@code null}
+     */
+    public static OrderStatus fromCode(char code) {
+        switch (code) {
+            case 'C':
+                return CREATED;
+            case 'F':
+                return FAILED;
+            case 'R':
+                return REJECTED;
+            default:
+                return null;
+        }
+    }
+
+    public boolean isFinal() {
+        return this != PENDING;
+    }
+}
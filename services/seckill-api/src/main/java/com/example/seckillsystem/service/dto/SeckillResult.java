@@ -15,7 +15,7 @@ public class SeckillResult {
 
     public static SeckillResult queued(String requestId) {
         return new SeckillResult(true, "QUEUED",
-                "排队中，稍后请查询结果。requestId=" + requestId,
+                "排队中，请通过 /seckill/result/" + requestId + " 查询结果。requestId=" + requestId,
                 requestId);
     }
 
@@ -31,6 +31,10 @@ public class SeckillResult {
         return new SeckillResult(false, "BUCKET_EMPTY", "当前库存不足，请稍后再试", null);
     }
 
+    public static SeckillResult throttled() {
+        return new SeckillResult(false, "THROTTLED", "当前抢购人数过多，请稍后再试", null);
+    }
+
     public static SeckillResult notReady() {
         return new SeckillResult(false, "CACHE_LOADING", "商品信息加载中，请稍后再试", null);
     }
@@ -39,6 +43,15 @@ public class SeckillResult {
         return new SeckillResult(false, "NOT_FOUND", "商品不存在或活动未开启", null);
     }
 
+    /**
+     * 扣减结果尚未返回（批量执行超时），请求可能仍会成功，调用方需按 requestId 查询最终结果。
+     */
+    public static SeckillResult inDoubt(String requestId) {
+        return new SeckillResult(false, "IN_DOUBT",
+                "处理中，请通过 /seckill/result/" + requestId + " 查询结果。requestId=" + requestId,
+                requestId);
+    }
+
     public static SeckillResult error(String message) {
         return new SeckillResult(false, "ERROR", message, null);
     }
@@ -0,0 +1,83 @@
+package com.example.seckillsystem.service.id;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 时间有序的 64 位 requestId 生成器（Snowflake 布局），替代 {@code UUID.randomUUID()}。
+ * <pre>
+ * | 1 bit 符号位(0) | 41 bits 毫秒时间戳(自 2024-01-01) | 10 bits workerId | 12 bits 序列号 |
+ * </pre>
+ * 生成过程只有一次 CAS，不分配对象、不依赖 SecureRandom；ID 按时间递增，写入 {@code seckill_order}
+ * 的 BIGINT 唯一索引时总是追加在 B-tree 右侧。
+ * <p>
+ * 同一毫秒内序列号耗尽或时钟回拨时，逻辑时钟继续向前借用下一毫秒，保证单实例内严格递增且不重复。
+ * 跨实例的唯一性依赖 workerId 唯一，由 {@link WorkerIdAllocator} 保证。
+ */
+@Component
+public class SnowflakeIdGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(SnowflakeIdGenerator.class);
+
+    /**
+     * 2024-01-01T00:00:00Z
+     */
+    static final long EPOCH_MILLIS = 1704067200000L;
+    static final int WORKER_ID_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_WORKER_ID = (1L << WORKER_ID_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private volatile long workerBits;
+    /**
+     * 打包的逻辑时钟：高位为相对毫秒时间戳，低 12 位为序列号。
+     */
+    private final AtomicLong state = new AtomicLong();
+
+    @Autowired
+    public SnowflakeIdGenerator(WorkerIdAllocator workerIdAllocator) {
+        workerIdAllocator.onAssign(this::assignWorkerId);
+    }
+
+    /**
+     * 固定 workerId，供压测与工具使用。
+     */
+    public SnowflakeIdGenerator(long workerId) {
+        assignWorkerId(workerId);
+    }
+
+    public long nextId() {
+        long next;
+        long current;
+        do {
+            current = state.get();
+            long now = System.currentTimeMillis() - EPOCH_MILLIS;
+            long lastTimestamp = current >>> SEQUENCE_BITS;
+            // 新的一毫秒从序列号 0 开始；否则序列号 +1（溢出时自然进位到下一毫秒）
+            next = (now > lastTimestamp) ? (now << SEQUENCE_BITS) : current + 1;
+        } while (!state.compareAndSet(current, next));
+
+        long timestamp = next >>> SEQUENCE_BITS;
+        long sequence = next & SEQUENCE_MASK;
+        return (timestamp << (WORKER_ID_BITS + SEQUENCE_BITS)) | workerBits | sequence;
+    }
+
+    /**
+     * 取出 requestId 中的相对毫秒时间戳（自 {@link #EPOCH_MILLIS}），用于按时间分桶的结构。
+     */
+    public static long relativeTimestamp(long id) {
+        return id >>> (WORKER_ID_BITS + SEQUENCE_BITS);
+    }
+
+    private void assignWorkerId(long workerId) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("workerId must be between 0 and " + MAX_WORKER_ID);
+        }
+        this.workerBits = workerId << SEQUENCE_BITS;
+        log.info("Snowflake requestId generator using workerId={}", workerId);
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.seckillsystem.service.id;
+
+import com.example.seckillsystem.service.props.SeckillProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+/**
+ * 为 {@link SnowflakeIdGenerator} 分配全局唯一的 workerId。
+ * <p>
+ * 显式配置了 {@code seckill.worker-id} 时直接使用，由部署方保证唯一。未配置时在 Redis 中租借：
+ * 以 {@code INCR <prefix>seq} 取起点，依次对 {@code <prefix><id>} 执行 {@code SET NX PX}，第一个成功的 id 归本实例所有，
+ * 之后按 TTL 的 1/3 续期。1024 个 id 全部被占用或 Redis 不可用时启动失败，而不是退回到可能冲突的派生值——
+ * 两个实例共用 workerId 会在同一毫秒生成相同的 requestId，order-service 会把第二笔订单当作重复请求丢弃。
+ * <p>
+ * 续期时发现租约已丢失（例如长时间停顿后被其他实例接管），立即重新租借一个新 id 并通知生成器切换。
+ */
+@Component
+public class WorkerIdAllocator implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkerIdAllocator.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final SeckillProperties properties;
+    private final DefaultRedisScript<Long> renewScript;
+    private final DefaultRedisScript<Long> releaseScript;
+    private final List<LongConsumer> listeners = new CopyOnWriteArrayList<>();
+    private final String token = UUID.randomUUID().toString();
+    private final boolean leased;
+    private volatile long workerId;
+
+    public WorkerIdAllocator(RedisTemplate<String, Object> redisTemplate,
+                             @Qualifier("workerIdRenewScript") DefaultRedisScript<Long> renewScript,
+                             @Qualifier("workerIdReleaseScript") DefaultRedisScript<Long> releaseScript,
+                             SeckillProperties properties) {
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+        this.renewScript = renewScript;
+        this.releaseScript = releaseScript;
+        long configured = properties.getWorkerId();
+        if (configured > SnowflakeIdGenerator.MAX_WORKER_ID) {
+            throw new IllegalArgumentException("seckill.worker-id must be between 0 and " + SnowflakeIdGenerator.MAX_WORKER_ID);
+        }
+        this.leased = configured < 0;
+        this.workerId = leased ? acquire() : configured;
+        log.info("Snowflake workerId={} ({})", workerId, leased ? "leased from Redis" : "configured");
+    }
+
+    public long workerId() {
+        return workerId;
+    }
+
+    /**
+     * 注册 workerId 变更回调，注册时立即以当前值回调一次。
+     */
+    public void onAssign(LongConsumer listener) {
+        listeners.add(listener);
+        listener.accept(workerId);
+    }
+
+    @Scheduled(fixedDelayString = "#{@seckillProperties.workerIdLeaseTtlMillis / 3}")
+    public void renew() {
+        if (!leased) {
+            return;
+        }
+        try {
+            Long renewed = redisTemplate.execute(renewScript, Collections.singletonList(leaseKey(workerId)),
+                    token, String.valueOf(properties.getWorkerIdLeaseTtlMillis()));
+            if (renewed != null && renewed == 1L) {
+                return;
+            }
+            long lost = workerId;
+            workerId = acquire();
+            log.error("Lease on workerId={} was lost; switched to workerId={}", lost, workerId);
+            listeners.forEach(listener -> listener.accept(workerId));
+        } catch (Exception ex) {
+            // 续期失败但租约尚未过期时继续使用当前 id，下一轮再试
+            log.warn("Failed to renew lease on workerId={}", workerId, ex);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (!leased) {
+            return;
+        }
+        try {
+            redisTemplate.execute(releaseScript, Collections.singletonList(leaseKey(workerId)), token);
+        } catch (Exception ex) {
+            log.warn("Failed to release lease on workerId={}", workerId, ex);
+        }
+    }
+
+    private long acquire() {
+        long size = SnowflakeIdGenerator.MAX_WORKER_ID + 1;
+        Long start = redisTemplate.opsForValue().increment(properties.getWorkerIdKeyPrefix() + "seq");
+        long first = start == null ? 0 : start;
+        for (long i = 0; i < size; i++) {
+            long candidate = Math.floorMod(first + i, size);
+            Boolean taken = redisTemplate.opsForValue().setIfAbsent(leaseKey(candidate), token,
+                    properties.getWorkerIdLeaseTtlMillis(), TimeUnit.MILLISECONDS);
+            if (Boolean.TRUE.equals(taken)) {
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("All " + size + " Snowflake workerIds are leased; set seckill.worker-id explicitly");
+    }
+
+    private String leaseKey(long id) {
+        return properties.getWorkerIdKeyPrefix() + id;
+    }
+}
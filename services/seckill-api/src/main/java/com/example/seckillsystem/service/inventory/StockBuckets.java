@@ -0,0 +1,21 @@
+package com.example.seckillsystem.service.inventory;
+
+/**
+ * 预热时把总库存切分到各个桶的规则，缓存重建与开卖预热共用。
+ */
+public final class StockBuckets {
+
+    private StockBuckets() {
+    }
+
+    /**
+     * 第 {@code bucketIndex}（从 1 开始）个桶分到的库存：平均分配，余数逐个分给前 {@code remainder} 个桶，
+     * 任意两个桶之间最多相差 1 件（与 {@code seckill-rebalance.lua} 的规则一致）。
+     */
+    public static long share(long totalStock, int bucketCount, int bucketIndex) {
+        int count = Math.max(1, bucketCount);
+        long base = totalStock / count;
+        long remainder = totalStock % count;
+        return Math.max(base + ((bucketIndex <= remainder) ? 1 : 0), 0);
+    }
+}
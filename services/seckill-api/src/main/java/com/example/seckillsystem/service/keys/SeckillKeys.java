@@ -0,0 +1,121 @@
+package com.example.seckillsystem.service.keys;
+
+import com.example.seckillsystem.service.props.SeckillProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 统一的 Redis key 布局。
+ * <p>
+ * 单机模式沿用脚本内拼接的旧布局：{@code seckill:stock:{id}:total}、{@code seckill:stock:{id}:bucket_N}、
+ * {@code seckill:users:{id}}、{@code seckill:stream:{id}}。
+ * <p>
+ * 集群模式下每个桶是一个独立的 hash tag 分组 {@code {id:bN}}：桶库存、该桶的购买标记与 outbox stream
+ * 落在同一个 slot，可以被一个脚本原子更新；不同的桶落在不同的 slot，从而分散到多个分片。
+ * 总库存使用 {@code {id}} 单独成组，由 {@code ClusterStockAggregator} 异步汇总。
+ */
+@Component
+public class SeckillKeys {
+
+    private static final String TOTAL_STOCK_SUFFIX = ":total";
+    private static final String BUCKET_SUFFIX = ":bucket_";
+
+    private final SeckillProperties properties;
+
+    public SeckillKeys(SeckillProperties properties) {
+        this.properties = properties;
+    }
+
+    public boolean isClusterMode() {
+        return properties.isClusterModeEnabled();
+    }
+
+    public String totalStockKey(Long productId) {
+        if (isClusterMode()) {
+            return properties.getStockKeyPrefix() + "{" + productId + "}" + TOTAL_STOCK_SUFFIX;
+        }
+        return properties.getStockKeyPrefix() + productId + TOTAL_STOCK_SUFFIX;
+    }
+
+    public String bucketKey(Long productId, int bucketIndex) {
+        if (isClusterMode()) {
+            return properties.getStockKeyPrefix() + bucketTag(productId, bucketIndex);
+        }
+        return properties.getStockKeyPrefix() + productId + BUCKET_SUFFIX + bucketIndex;
+    }
+
+    /**
+     * 购买标记 key。单机模式下整个商品共用一个集合，集群模式下按用户的主桶分组。
+     */
+    public String userSetKey(Long productId, int bucketIndex) {
+        if (isClusterMode()) {
+            return properties.getUserSetKeyPrefix() + bucketTag(productId, bucketIndex);
+        }
+        return properties.getUserSetKeyPrefix() + productId;
+    }
+
+    /**
+     * outbox stream key。单机模式下整个商品共用一个 stream，集群模式下每个桶一个 stream。
+     */
+    public String streamKey(Long productId, int bucketIndex) {
+        if (isClusterMode()) {
+            return properties.getStreamKeyPrefix() + bucketTag(productId, bucketIndex);
+        }
+        return properties.getStreamKeyPrefix() + productId;
+    }
+
+    /**
+     * 某个商品可能写入的全部 outbox stream：单机模式一个，集群模式每个桶一个。
+     */
+    public String[] outboxStreamKeys(Long productId) {
+        if (!isClusterMode()) {
+            return new String[]{streamKey(productId, 1)};
+        }
+        int bucketCount = Math.max(1, properties.getBucketCount());
+        String[] streamKeys = new String[bucketCount];
+        for (int i = 1; i <= bucketCount; i++) {
+            streamKeys[i - 1] = streamKey(productId, i);
+        }
+        return streamKeys;
+    }
+
+    /**
+     * outbox stream 登记集合，relay-service 据此发现需要转发的 stream。
+     */
+    public String streamRegistryKey() {
+        return properties.getStreamRegistryKey();
+    }
+
+    /**
+     * 脚本使用的购买标记方式参数："set" 或 "bitmap"。
+     */
+    public String buyerMarkerMode() {
+        return properties.getBuyerMarker() == SeckillProperties.BuyerMarker.BITMAP ? "bitmap" : "set";
+    }
+
+    public long buyerBitmapSegmentBits() {
+        return Math.max(1, properties.getBuyerBitmapSegmentBits());
+    }
+
+    /**
+     * 某个用户的购买标记所在 key：SET 模式为整个集合，BITMAP 模式为该用户所在的位图段
+     * {@code <userSetKey>:bm:<segment>}，与脚本内的拼接规则一致。
+     */
+    public String buyerMarkerKey(Long productId, int bucketIndex, Long userId) {
+        String userSetKey = userSetKey(productId, bucketIndex);
+        if (properties.getBuyerMarker() != SeckillProperties.BuyerMarker.BITMAP) {
+            return userSetKey;
+        }
+        return userSetKey + ":bm:" + Math.floorDiv(userId, buyerBitmapSegmentBits());
+    }
+
+    /**
+     * BITMAP 模式下用户在位图段内的位偏移。
+     */
+    public long buyerMarkerOffset(Long userId) {
+        return Math.floorMod(userId, buyerBitmapSegmentBits());
+    }
+
+    private String bucketTag(Long productId, int bucketIndex) {
+        return "{" + productId + ":b" + bucketIndex + "}";
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.seckillsystem.service.lease;
+
+import com.example.seckillsystem.service.props.SeckillProperties;
+import com.example.seckillsystem.service.soldout.SoldOutRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 实例级库存租约。
+ * <p>
+ * 每个 seckill-api 实例从 Redis 的桶中原子地租借一批库存到本地 {@link AtomicLong}，之后的扣减只是一次 CAS，
+ * 不再竞争 Redis 上的桶 key。租借量随剩余总库存自适应缩小（最多剩余量的 1/{@code leaseStockDivisor}），
+ * 避免某个节点囤积最后几件库存；闲置或实例关闭时把未用完的租约归还 Redis。
+ * <p>
+ * 用户去重与 outbox 仍然由 Redis 保证（见 {@code seckill-leased.lua}），因此租借不会影响“一人一单”与订单投递。
+ */
+@Component
+public class StockLeaseManager implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(StockLeaseManager.class);
+
+    private static final int RETURN_BUCKET_INDEX = 1;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    @SuppressWarnings("rawtypes")
+    private final DefaultRedisScript<List> leaseScript;
+    private final DefaultRedisScript<Long> leaseReturnScript;
+    private final SeckillProperties properties;
+    private final SoldOutRegistry soldOutRegistry;
+    private final Map<Long, LocalLease> leases = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("rawtypes")
+    public StockLeaseManager(RedisTemplate<String, Object> redisTemplate,
+                             @Qualifier("seckillLeaseScript") DefaultRedisScript<List> leaseScript,
+                             @Qualifier("seckillLeaseReturnScript") DefaultRedisScript<Long> leaseReturnScript,
+                             SeckillProperties properties,
+                             SoldOutRegistry soldOutRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.leaseScript = leaseScript;
+        this.leaseReturnScript = leaseReturnScript;
+        this.properties = properties;
+        this.soldOutRegistry = soldOutRegistry;
+    }
+
+    /**
+     * 尝试从本地租约中扣减一件库存，不访问 Redis。
+     */
+    public boolean tryAcquire(Long productId) {
+        LocalLease lease = leases.get(productId);
+        return lease != null && lease.tryTake();
+    }
+
+    /**
+     * 本地租约耗尽时向 Redis 续租，并在成功后直接扣减一件。同一商品同一时刻只有一个线程真正访问 Redis。
+     */
+    public LeaseOutcome refillAndAcquire(Long productId) {
+        LocalLease lease = leases.computeIfAbsent(productId, id -> new LocalLease());
+        synchronized (lease) {
+            if (lease.tryTake()) {
+                return LeaseOutcome.ACQUIRED;
+            }
+
+            long requested = nextLeaseSize(lease.lastKnownRemaining);
+            List<?> result;
+            try {
+                result = redisTemplate.execute(
+                        leaseScript,
+                        Collections.singletonList(properties.getStockKeyPrefix()),
+                        String.valueOf(productId),
+                        String.valueOf(requested),
+                        String.valueOf(Math.max(1, properties.getBucketCount()))
+                );
+            } catch (Exception e) {
+                log.error("Lease Lua execution threw exception productId={}, requested={}", productId, requested, e);
+                return LeaseOutcome.ERROR;
+            }
+            if (result == null || result.size() < 2) {
+                log.error("Lease Lua returned unexpected result {} for productId={}", result, productId);
+                return LeaseOutcome.ERROR;
+            }
+
+            long leased = ((Number) result.get(0)).longValue();
+            long remaining = ((Number) result.get(1)).longValue();
+            lease.lastKnownRemaining = remaining;
+            if (leased <= 0 && remaining < 0) {
+                log.warn("Stock keys missing while leasing productId={}", productId);
+                return LeaseOutcome.KEY_MISSING;
+            }
+            if (leased <= 0) {
+                log.debug("No stock left to lease for productId={} (remaining={})", productId, remaining);
+                return LeaseOutcome.EXHAUSTED;
+            }
+
+            // 先为本次请求保留一件，其余放入本地计数器供后续请求使用
+            lease.units.addAndGet(leased - 1);
+            lease.touch();
+            log.info("Leased {} units of product {} (requested={}, remainingInRedis={})",
+                    leased, productId, requested, remaining);
+            return LeaseOutcome.ACQUIRED;
+        }
+    }
+
+    /**
+     * 把已扣减的一件库存放回本地租约（例如 Redis 判定重复购买时）。
+     */
+    public void release(Long productId) {
+        LocalLease lease = leases.computeIfAbsent(productId, id -> new LocalLease());
+        lease.units.incrementAndGet();
+    }
+
+    @Scheduled(fixedDelayString = "#{@seckillProperties.leaseIdleReturnSeconds * 1000}")
+    public void returnIdleLeases() {
+        long idleNanos = TimeUnit.SECONDS.toNanos(Math.max(1, properties.getLeaseIdleReturnSeconds()));
+        long now = System.nanoTime();
+        leases.forEach((productId, lease) -> {
+            if (now - lease.lastUsedNanos >= idleNanos) {
+                returnLease(productId, lease);
+            }
+        });
+    }
+
+    @Override
+    public void destroy() {
+        leases.forEach(this::returnLease);
+    }
+
+    private void returnLease(Long productId, LocalLease lease) {
+        long units = lease.units.getAndSet(0);
+        if (units <= 0) {
+            return;
+        }
+        try {
+            Long total = redisTemplate.execute(
+                    leaseReturnScript,
+                    Collections.singletonList(properties.getStockKeyPrefix()),
+                    String.valueOf(productId),
+                    String.valueOf(units),
+                    String.valueOf(RETURN_BUCKET_INDEX)
+            );
+            if (total != null && total < 0) {
+                log.warn("Stock cache for product {} is gone; dropped {} leased units", productId, units);
+            } else {
+                log.info("Returned {} leased units of product {} (total={})", units, productId, total);
+                // 归还的库存可以被其他节点继续售卖，撤销各节点的本地售罄标记
+                soldOutRegistry.markReplenished(productId);
+            }
+        } catch (Exception e) {
+            // 归还失败时放回本地，下次再试
+            lease.units.addAndGet(units);
+            log.error("Failed to return {} leased units of product {}", units, productId, e);
+        }
+    }
+
+    private long nextLeaseSize(long lastKnownRemaining) {
+        long block = Math.max(1, properties.getLeaseBlockSize());
+        if (lastKnownRemaining < 0) {
+            // 尚不知道剩余库存，按最小粒度试探
+            return 1;
+        }
+        long adaptive = lastKnownRemaining / Math.max(1, properties.getLeaseStockDivisor());
+        return Math.max(1, Math.min(block, adaptive));
+    }
+
+    public enum LeaseOutcome {
+        ACQUIRED,
+        EXHAUSTED,
+        KEY_MISSING,
+        ERROR
+    }
+
+    private static final class LocalLease {
+        private final AtomicLong units = new AtomicLong();
+        private volatile long lastUsedNanos = System.nanoTime();
+        private volatile long lastKnownRemaining = -1;
+
+        private boolean tryTake() {
+            long current;
+            do {
+                current = units.get();
+                if (current <= 0) {
+                    return false;
+                }
+            } while (!units.compareAndSet(current, current - 1));
+            touch();
+            return true;
+        }
+
+        private void touch() {
+            lastUsedNanos = System.nanoTime();
+        }
+    }
+}
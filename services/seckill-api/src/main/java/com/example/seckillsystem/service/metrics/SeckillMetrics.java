@@ -0,0 +1,177 @@
+package com.example.seckillsystem.service.metrics;
+
+import com.example.seckillsystem.service.dto.SeckillResult;
+import com.example.seckillsystem.service.props.SeckillProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 秒杀热路径指标。所有 Meter 在启动时按已配置的商品与结果码一次性注册，
+ * 请求线程上只做数组下标与 HashMap 读取，不会在每次调用时构造 tag 或查找注册表。
+ * <p>
+ * 未在配置中出现的 productId（例如布隆过滤器误判放行的 ID）统一计入 {@code productId=other}，
+ * 避免外部输入撑大指标基数。
+ */
+@Component
+public class SeckillMetrics {
+
+    private static final String OTHER_PRODUCT = "other";
+
+    /**
+     * 与 {@link SeckillResult} 的 code 一一对应，未知的 code 计入 ERROR。
+     */
+    private static final String[] RESULT_CODES = {
+            "QUEUED", "DUPLICATE", "SOLD_OUT", "BUCKET_EMPTY", "THROTTLED", "CACHE_LOADING", "NOT_FOUND", "IN_DOUBT", "ERROR"
+    };
+    private static final int ERROR_INDEX = RESULT_CODES.length - 1;
+
+    private final Map<Long, Counter[]> outcomesByProduct;
+    private final Counter[] otherOutcomes;
+    private final Timer warmupGet;
+    private final Timer lockAcquired;
+    private final Timer lockTimedOut;
+    private final Timer lua;
+    private final DistributionSummary bucketAttempts;
+    private final Counter[] rebuilds = new Counter[RebuildResult.values().length];
+    private final Counter bloomRejections;
+
+    public SeckillMetrics(SeckillProperties properties, MeterRegistry meterRegistry) {
+        // 启动后只读，HashMap 的并发读取是安全的
+        Map<Long, Counter[]> outcomes = new HashMap<>();
+        for (Long productId : properties.resolvedProductIds()) {
+            outcomes.put(productId, outcomeCounters(meterRegistry, String.valueOf(productId)));
+        }
+        this.outcomesByProduct = outcomes;
+        this.otherOutcomes = outcomeCounters(meterRegistry, OTHER_PRODUCT);
+
+        this.warmupGet = latencyTimer("seckill.redis.total.get",
+                "Redis GET of the total-stock key when readiness is unknown")
+                .register(meterRegistry);
+        this.lockAcquired = latencyTimer("seckill.rebuild.lock.wait",
+                "Time spent waiting for the cache rebuild lock")
+                .tag("acquired", "true")
+                .register(meterRegistry);
+        this.lockTimedOut = latencyTimer("seckill.rebuild.lock.wait",
+                "Time spent waiting for the cache rebuild lock")
+                .tag("acquired", "false")
+                .register(meterRegistry);
+        this.lua = latencyTimer("seckill.lua",
+                "Round trip of the stock deduction script, including batching delay when enabled")
+                .register(meterRegistry);
+
+        int bucketCount = Math.max(1, properties.getBucketCount());
+        double[] slos = new double[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            slos[i] = i + 1;
+        }
+        this.bucketAttempts = DistributionSummary.builder("seckill.bucket.attempts")
+                .description("Lua executions needed per request before a final result")
+                .serviceLevelObjectives(slos)
+                .register(meterRegistry);
+
+        for (RebuildResult result : RebuildResult.values()) {
+            rebuilds[result.ordinal()] = Counter.builder("seckill.cache.rebuilds")
+                    .description("Redis stock cache rebuilds from the L3 data source")
+                    .tag("result", result.tagValue)
+                    .register(meterRegistry);
+        }
+        this.bloomRejections = Counter.builder("seckill.bloom.rejections")
+                .description("Requests rejected because the Bloom filter does not contain the product")
+                .register(meterRegistry);
+    }
+
+    public void recordOutcome(Long productId, SeckillResult result) {
+        Counter[] counters = outcomesByProduct.getOrDefault(productId, otherOutcomes);
+        counters[resultIndex(result.getCode())].increment();
+    }
+
+    public void recordWarmupGet(long startNanos) {
+        warmupGet.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordLockWait(long startNanos, boolean acquired) {
+        (acquired ? lockAcquired : lockTimedOut).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordLua(long startNanos) {
+        lua.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordBucketAttempts(int attempts) {
+        bucketAttempts.record(attempts);
+    }
+
+    public void recordRebuild(RebuildResult result) {
+        rebuilds[result.ordinal()].increment();
+    }
+
+    public void bloomRejected() {
+        bloomRejections.increment();
+    }
+
+    private static Counter[] outcomeCounters(MeterRegistry meterRegistry, String productTag) {
+        Counter[] counters = new Counter[RESULT_CODES.length];
+        for (int i = 0; i < RESULT_CODES.length; i++) {
+            counters[i] = Counter.builder("seckill.requests")
+                    .description("Seckill requests by final result")
+                    .tag("productId", productTag)
+                    .tag("result", RESULT_CODES[i])
+                    .register(meterRegistry);
+        }
+        return counters;
+    }
+
+    private static Timer.Builder latencyTimer(String name, String description) {
+        return Timer.builder(name)
+                .description(description)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(50_000))
+                .maximumExpectedValue(Duration.ofSeconds(5));
+    }
+
+    private static int resultIndex(String code) {
+        switch (code) {
+            case "QUEUED":
+                return 0;
+            case "DUPLICATE":
+                return 1;
+            case "SOLD_OUT":
+                return 2;
+            case "BUCKET_EMPTY":
+                return 3;
+            case "THROTTLED":
+                return 4;
+            case "CACHE_LOADING":
+                return 5;
+            case "NOT_FOUND":
+                return 6;
+            case "IN_DOUBT":
+                return 7;
+            default:
+                return ERROR_INDEX;
+        }
+    }
+
+    /**
+     * 缓存重建的结果，对应 {@code seckill.cache.rebuilds} 的 result tag。
+     */
+    public enum RebuildResult {
+        READY("ready"),
+        SOLD_OUT("sold_out"),
+        NOT_FOUND("not_found");
+
+        private final String tagValue;
+
+        RebuildResult(String tagValue) {
+            this.tagValue = tagValue;
+        }
+    }
+}
@@ -28,6 +28,11 @@ public class SeckillProperties {
      */
     private String streamKeyPrefix = "seckill:stream:";
 
+    /**
+     * Redis set listing every outbox stream key in use; relay-service discovers the streams to forward from it.
+     */
+    private String streamRegistryKey = "seckill:streams";
+
     /**
      * Number of buckets to hash users into.
      */
@@ -38,6 +43,35 @@ public class SeckillProperties {
      */
     private int bucketRetryCount = 3;
 
+    /**
+     * 是否在 Lua 脚本内遍历所有桶：从用户的首选桶开始，在一次调用内依次尝试其余桶。
+     * 开启后每次秒杀只需一次 Redis 往返，{@code bucketRetryCount} 不再生效。
+     */
+    private boolean bucketWalkEnabled = true;
+
+    /**
+     * 购买标记（用户去重）的存储方式：SET 为十进制 userId 集合；BITMAP 为按 userId 分段的位图，
+     * 要求 userId 为整数，对大规模用户的活动内存占用可低一到两个数量级。
+     */
+    private BuyerMarker buyerMarker = BuyerMarker.SET;
+
+    /**
+     * BITMAP 模式下每段位图覆盖的 userId 数量（每段最大占用 segmentBits / 8 字节）。
+     * userId 稀疏分布时调小该值，只有真正出现过购买者的段才会被创建。
+     */
+    private long buyerBitmapSegmentBits = 1L << 20;
+
+    /**
+     * Snowflake requestId 生成器的 workerId（0~1023）。小于 0 时由 WorkerIdAllocator 在 Redis 中租借一个未被占用的 id。
+     */
+    private long workerId = -1;
+
+    /**
+     * workerId 租约的 key 前缀（{@code <prefix><id>} 为租约，{@code <prefix>seq} 为分配起点计数器）与有效期。
+     */
+    private String workerIdKeyPrefix = "seckill:worker-id:";
+    private long workerIdLeaseTtlMillis = 30_000;
+
     /**
      * Product identifiers exposed via the API (used to pre-warm Bloom filter).
      * 保留该属性以兼容旧版配置；如果同时配置 catalog，则会以 catalog 为准。
@@ -89,6 +123,165 @@ public class SeckillProperties {
      */
     private long cacheLockLeaseSeconds = 10;
 
+    /**
+     * 是否启用 Redis Cluster 兼容的 key 布局：每个桶使用独立的 hash tag，分散到不同分片；
+     * 总库存由后台任务跨分片异步汇总。
+     */
+    private boolean clusterModeEnabled = false;
+
+    /**
+     * 集群模式下汇总各桶库存、刷新总库存 key 的间隔（毫秒）。
+     */
+    private long clusterTotalRefreshMillis = 500;
+
+    /**
+     * 是否启用库存租借：实例从 Redis 批量租借库存到本地计数器，绝大多数扣减只在内存中完成。
+     * 仅支持单机 key 布局。
+     */
+    private boolean leaseEnabled = false;
+
+    /**
+     * 单次租借的最大数量。
+     */
+    private int leaseBlockSize = 50;
+
+    /**
+     * 自适应租借：单次最多租借剩余总库存的 1/N，库存越少租得越少，避免单个节点囤积最后的库存。
+     */
+    private int leaseStockDivisor = 20;
+
+    /**
+     * 本地租约闲置超过该秒数即归还 Redis（活动结束或流量转移时释放库存）。
+     */
+    private long leaseIdleReturnSeconds = 30;
+
+    /**
+     * 是否启用请求合并：同一商品的并发请求在短时间窗口内合并为一次批量 Lua 调用。
+     */
+    private boolean batchEnabled = false;
+
+    /**
+     * 单个批次最多合并的请求数，达到后立即提交。
+     */
+    private int batchMaxSize = 64;
+
+    /**
+     * 批次收集窗口（微秒），从批次内第一个请求到达开始计时。
+     */
+    private long batchWindowMicros = 2000;
+
+    /**
+     * 调用方等待批次结果的最长毫秒数。
+     */
+    private long batchTimeoutMillis = 1000;
+
+    /**
+     * 执行批量脚本的线程数。
+     */
+    private int batchFlushThreads = 4;
+
+    /**
+     * 启动时是否为 catalog 中的全部商品预热库存 key（流水线批量写入），
+     * 预热成功的商品在请求路径上不再做 {@code :total} 预检查。
+     */
+    private boolean salePreparationEnabled = true;
+
+    /**
+     * 是否定期再平衡各桶剩余库存（仅单机 key 布局搬移库存；集群模式由跨桶扣减脚本处理空桶，这里只扫描上报）。
+     */
+    private boolean rebalanceEnabled = true;
+
+    /**
+     * 桶库存再平衡的执行间隔（毫秒）。
+     */
+    private long rebalanceIntervalMillis = 1000;
+
+    /**
+     * 触发再平衡的阈值：各桶剩余库存的最大值与最小值之差超过该值时重新均分。
+     */
+    private long rebalanceSpreadThreshold = 10;
+
+    /**
+     * 是否启用按剩余库存比例的本地准入控制：每个周期最多放行 {@code admissionFactor × 剩余库存} 个请求进入 Lua。
+     */
+    private boolean admissionEnabled = true;
+
+    /**
+     * 每个周期放行请求数相对剩余库存的倍数（按实例计算，多实例部署时整体放行量约为实例数倍）。
+     */
+    private double admissionFactor = 3.0;
+
+    /**
+     * 准入计数周期（毫秒）。
+     */
+    private long admissionIntervalMillis = 100;
+
+    /**
+     * 每个周期至少放行的请求数，保证库存估计偏低或售罄后仍有请求能到达 Redis 校正状态。
+     */
+    private long admissionMinPerInterval = 20;
+
+    /**
+     * 售罄广播使用的 Redis pub/sub 频道。
+     */
+    private String soldOutChannel = "seckill:soldout";
+
+    /**
+     * 本地售罄标记的有效期（秒）。pub/sub 不保证送达，标记过期后会有一个请求重新到达 Redis 确认状态，
+     * 从而在错过“补货”通知时也能自行恢复。
+     */
+    private long soldOutFlagTtlSeconds = 30;
+
+    /**
+     * 是否在本地记录最近成功的 (productId, userId)，重复点击直接返回 DUPLICATE 而不访问 Redis。
+     */
+    private boolean recentWinnersEnabled = true;
+
+    /**
+     * 最近成功用户表的槽位数（每个槽位 16 字节），满后覆盖最旧的记录。
+     */
+    private int recentWinnersCapacity = 1 << 18;
+
+    /**
+     * 下单结果通道的 key 前缀，结构与 order-service 的 {@code order.result.key-prefix} 一致。
+     */
+    private String resultKeyPrefix = "seckill:result:";
+
+    /**
+     * 结果 hash 的分桶宽度（秒），必须与 order-service 的 {@code order.result.bucket-seconds} 一致。
+     */
+    private long resultBucketSeconds = 60;
+
+    /**
+     * seckill-api 自行写入结果（如批量执行超时后确定失败）时桶 key 的 TTL（秒），应与 order-service 的 {@code order.result.ttl-seconds} 一致。
+     */
+    private long resultTtlSeconds = 1800;
+
+    /**
+     * 尚未出结果（处理中）的查询在本地缓存的时间（毫秒），同一 requestId 的高频轮询在此期间不访问 Redis。
+     */
+    private long resultPendingCacheMillis = 500;
+
+    /**
+     * 最终结果在本地缓存的时间（秒），最终结果不会再变化。
+     */
+    private long resultFinalCacheSeconds = 300;
+
+    /**
+     * 本地结果缓存的最大条数。
+     */
+    private long resultCacheMaxSize = 200_000;
+
+    /**
+     * 长轮询等待者的批量查询间隔（毫秒）。
+     */
+    private long resultPollIntervalMillis = 100;
+
+    /**
+     * 长轮询的最长等待时间（毫秒），超时返回当前状态（PENDING）；应小于 {@code spring.mvc.async.request-timeout}。
+     */
+    private long resultLongPollTimeoutMillis = 8_000;
+
     public String getStockKeyPrefix() {
         return stockKeyPrefix;
     }
@@ -113,6 +306,14 @@ public class SeckillProperties {
         this.streamKeyPrefix = streamKeyPrefix;
     }
 
+    public String getStreamRegistryKey() {
+        return streamRegistryKey;
+    }
+
+    public void setStreamRegistryKey(String streamRegistryKey) {
+        this.streamRegistryKey = streamRegistryKey;
+    }
+
     public int getBucketCount() {
         return bucketCount;
     }
@@ -129,6 +330,54 @@ public class SeckillProperties {
         this.bucketRetryCount = bucketRetryCount;
     }
 
+    public boolean isBucketWalkEnabled() {
+        return bucketWalkEnabled;
+    }
+
+    public void setBucketWalkEnabled(boolean bucketWalkEnabled) {
+        this.bucketWalkEnabled = bucketWalkEnabled;
+    }
+
+    public BuyerMarker getBuyerMarker() {
+        return buyerMarker;
+    }
+
+    public void setBuyerMarker(BuyerMarker buyerMarker) {
+        this.buyerMarker = (buyerMarker == null) ? BuyerMarker.SET : buyerMarker;
+    }
+
+    public long getBuyerBitmapSegmentBits() {
+        return buyerBitmapSegmentBits;
+    }
+
+    public void setBuyerBitmapSegmentBits(long buyerBitmapSegmentBits) {
+        this.buyerBitmapSegmentBits = buyerBitmapSegmentBits;
+    }
+
+    public String getWorkerIdKeyPrefix() {
+        return workerIdKeyPrefix;
+    }
+
+    public void setWorkerIdKeyPrefix(String workerIdKeyPrefix) {
+        this.workerIdKeyPrefix = workerIdKeyPrefix;
+    }
+
+    public long getWorkerIdLeaseTtlMillis() {
+        return workerIdLeaseTtlMillis;
+    }
+
+    public void setWorkerIdLeaseTtlMillis(long workerIdLeaseTtlMillis) {
+        this.workerIdLeaseTtlMillis = workerIdLeaseTtlMillis;
+    }
+
+    public long getWorkerId() {
+        return workerId;
+    }
+
+    public void setWorkerId(long workerId) {
+        this.workerId = workerId;
+    }
+
     public List<Long> getProductIds() {
         return Collections.unmodifiableList(productIds);
     }
@@ -215,6 +464,254 @@ public class SeckillProperties {
         this.cacheLockLeaseSeconds = cacheLockLeaseSeconds;
     }
 
+    public boolean isClusterModeEnabled() {
+        return clusterModeEnabled;
+    }
+
+    public void setClusterModeEnabled(boolean clusterModeEnabled) {
+        this.clusterModeEnabled = clusterModeEnabled;
+    }
+
+    public long getClusterTotalRefreshMillis() {
+        return clusterTotalRefreshMillis;
+    }
+
+    public void setClusterTotalRefreshMillis(long clusterTotalRefreshMillis) {
+        this.clusterTotalRefreshMillis = clusterTotalRefreshMillis;
+    }
+
+    public boolean isLeaseEnabled() {
+        return leaseEnabled;
+    }
+
+    public void setLeaseEnabled(boolean leaseEnabled) {
+        this.leaseEnabled = leaseEnabled;
+    }
+
+    public int getLeaseBlockSize() {
+        return leaseBlockSize;
+    }
+
+    public void setLeaseBlockSize(int leaseBlockSize) {
+        this.leaseBlockSize = leaseBlockSize;
+    }
+
+    public int getLeaseStockDivisor() {
+        return leaseStockDivisor;
+    }
+
+    public void setLeaseStockDivisor(int leaseStockDivisor) {
+        this.leaseStockDivisor = leaseStockDivisor;
+    }
+
+    public long getLeaseIdleReturnSeconds() {
+        return leaseIdleReturnSeconds;
+    }
+
+    public void setLeaseIdleReturnSeconds(long leaseIdleReturnSeconds) {
+        this.leaseIdleReturnSeconds = leaseIdleReturnSeconds;
+    }
+
+    public boolean isBatchEnabled() {
+        return batchEnabled;
+    }
+
+    public void setBatchEnabled(boolean batchEnabled) {
+        this.batchEnabled = batchEnabled;
+    }
+
+    public int getBatchMaxSize() {
+        return batchMaxSize;
+    }
+
+    public void setBatchMaxSize(int batchMaxSize) {
+        this.batchMaxSize = batchMaxSize;
+    }
+
+    public long getBatchWindowMicros() {
+        return batchWindowMicros;
+    }
+
+    public void setBatchWindowMicros(long batchWindowMicros) {
+        this.batchWindowMicros = batchWindowMicros;
+    }
+
+    public long getBatchTimeoutMillis() {
+        return batchTimeoutMillis;
+    }
+
+    public void setBatchTimeoutMillis(long batchTimeoutMillis) {
+        this.batchTimeoutMillis = batchTimeoutMillis;
+    }
+
+    public int getBatchFlushThreads() {
+        return batchFlushThreads;
+    }
+
+    public void setBatchFlushThreads(int batchFlushThreads) {
+        this.batchFlushThreads = batchFlushThreads;
+    }
+
+    public boolean isSalePreparationEnabled() {
+        return salePreparationEnabled;
+    }
+
+    public void setSalePreparationEnabled(boolean salePreparationEnabled) {
+        this.salePreparationEnabled = salePreparationEnabled;
+    }
+
+    public boolean isRebalanceEnabled() {
+        return rebalanceEnabled;
+    }
+
+    public void setRebalanceEnabled(boolean rebalanceEnabled) {
+        this.rebalanceEnabled = rebalanceEnabled;
+    }
+
+    public long getRebalanceIntervalMillis() {
+        return rebalanceIntervalMillis;
+    }
+
+    public void setRebalanceIntervalMillis(long rebalanceIntervalMillis) {
+        this.rebalanceIntervalMillis = rebalanceIntervalMillis;
+    }
+
+    public long getRebalanceSpreadThreshold() {
+        return rebalanceSpreadThreshold;
+    }
+
+    public void setRebalanceSpreadThreshold(long rebalanceSpreadThreshold) {
+        this.rebalanceSpreadThreshold = rebalanceSpreadThreshold;
+    }
+
+    public boolean isAdmissionEnabled() {
+        return admissionEnabled;
+    }
+
+    public void setAdmissionEnabled(boolean admissionEnabled) {
+        this.admissionEnabled = admissionEnabled;
+    }
+
+    public double getAdmissionFactor() {
+        return admissionFactor;
+    }
+
+    public void setAdmissionFactor(double admissionFactor) {
+        this.admissionFactor = admissionFactor;
+    }
+
+    public long getAdmissionIntervalMillis() {
+        return admissionIntervalMillis;
+    }
+
+    public void setAdmissionIntervalMillis(long admissionIntervalMillis) {
+        this.admissionIntervalMillis = admissionIntervalMillis;
+    }
+
+    public long getAdmissionMinPerInterval() {
+        return admissionMinPerInterval;
+    }
+
+    public void setAdmissionMinPerInterval(long admissionMinPerInterval) {
+        this.admissionMinPerInterval = admissionMinPerInterval;
+    }
+
+    public String getSoldOutChannel() {
+        return soldOutChannel;
+    }
+
+    public void setSoldOutChannel(String soldOutChannel) {
+        this.soldOutChannel = soldOutChannel;
+    }
+
+    public long getSoldOutFlagTtlSeconds() {
+        return soldOutFlagTtlSeconds;
+    }
+
+    public void setSoldOutFlagTtlSeconds(long soldOutFlagTtlSeconds) {
+        this.soldOutFlagTtlSeconds = soldOutFlagTtlSeconds;
+    }
+
+    public boolean isRecentWinnersEnabled() {
+        return recentWinnersEnabled;
+    }
+
+    public void setRecentWinnersEnabled(boolean recentWinnersEnabled) {
+        this.recentWinnersEnabled = recentWinnersEnabled;
+    }
+
+    public int getRecentWinnersCapacity() {
+        return recentWinnersCapacity;
+    }
+
+    public void setRecentWinnersCapacity(int recentWinnersCapacity) {
+        this.recentWinnersCapacity = recentWinnersCapacity;
+    }
+
+    public String getResultKeyPrefix() {
+        return resultKeyPrefix;
+    }
+
+    public void setResultKeyPrefix(String resultKeyPrefix) {
+        this.resultKeyPrefix = resultKeyPrefix;
+    }
+
+    public long getResultBucketSeconds() {
+        return resultBucketSeconds;
+    }
+
+    public void setResultBucketSeconds(long resultBucketSeconds) {
+        this.resultBucketSeconds = resultBucketSeconds;
+    }
+
+    public long getResultTtlSeconds() {
+        return resultTtlSeconds;
+    }
+
+    public void setResultTtlSeconds(long resultTtlSeconds) {
+        this.resultTtlSeconds = resultTtlSeconds;
+    }
+
+    public long getResultPendingCacheMillis() {
+        return resultPendingCacheMillis;
+    }
+
+    public void setResultPendingCacheMillis(long resultPendingCacheMillis) {
+        this.resultPendingCacheMillis = resultPendingCacheMillis;
+    }
+
+    public long getResultFinalCacheSeconds() {
+        return resultFinalCacheSeconds;
+    }
+
+    public void setResultFinalCacheSeconds(long resultFinalCacheSeconds) {
+        this.resultFinalCacheSeconds = resultFinalCacheSeconds;
+    }
+
+    public long getResultCacheMaxSize() {
+        return resultCacheMaxSize;
+    }
+
+    public void setResultCacheMaxSize(long resultCacheMaxSize) {
+        this.resultCacheMaxSize = resultCacheMaxSize;
+    }
+
+    public long getResultPollIntervalMillis() {
+        return resultPollIntervalMillis;
+    }
+
+    public void setResultPollIntervalMillis(long resultPollIntervalMillis) {
+        this.resultPollIntervalMillis = resultPollIntervalMillis;
+    }
+
+    public long getResultLongPollTimeoutMillis() {
+        return resultLongPollTimeoutMillis;
+    }
+
+    public void setResultLongPollTimeoutMillis(long resultLongPollTimeoutMillis) {
+        this.resultLongPollTimeoutMillis = resultLongPollTimeoutMillis;
+    }
+
     public Optional<ProductSpec> lookupProductSpec(Long productId) {
         if (productId == null) {
             return Optional.empty();
@@ -234,6 +731,11 @@ public class SeckillProperties {
         return Collections.unmodifiableList(productIds);
     }
 
+    public enum BuyerMarker {
+        SET,
+        BITMAP
+    }
+
     public static class ProductSpec {
         private Long id;
         private long stock;
@@ -0,0 +1,188 @@
+package com.example.seckillsystem.service.rebalance;
+
+import com.example.seckillsystem.service.admission.StockAdmissionGate;
+import com.example.seckillsystem.service.dto.BucketStockReport;
+import com.example.seckillsystem.service.keys.SeckillKeys;
+import com.example.seckillsystem.service.props.SeckillProperties;
+import com.example.seckillsystem.service.soldout.SoldOutRegistry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 桶库存再平衡。
+ * <p>
+ * 用户按 {@code userId % bucketCount} 固定到主桶，临近售罄时各桶消耗速度不同，部分桶先空，
+ * 被分到这些桶的用户收到 {@code BUCKET_EMPTY} 并重试，而库存还留在其他桶里。该任务定期执行
+ * {@code seckill-rebalance.lua}：差距超过 {@code rebalanceSpreadThreshold} 时在 Redis 内原子地把剩余库存重新均分。
+ * 每次扫描的结果同时写入 {@code seckill.bucket.remaining} gauge，便于观察各桶剩余库存。
+ * <p>
+ * 集群模式下各桶位于不同 slot，无法在一个脚本内原子地搬移库存；该模式下主桶为空时由
+ * {@code seckill-cluster-steal.lua} 直接从其他桶扣减，因此这里只读取各桶（按 slot 拆分的 MGET）更新 gauge 与准入额度，不做搬移。
+ * <p>
+ * 每个实例都会执行该任务；单机布局下脚本在差距不超过阈值时只读不写，多实例重复扫描的代价是每个间隔每商品一次脚本调用，
+ * 因此默认间隔与阈值都取得比较保守。
+ */
+@Component
+public class BucketRebalancer {
+
+    private static final Logger log = LoggerFactory.getLogger(BucketRebalancer.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    @SuppressWarnings("rawtypes")
+    private final DefaultRedisScript<List> rebalanceScript;
+    private final SeckillProperties properties;
+    private final SeckillKeys keys;
+    private final MeterRegistry meterRegistry;
+    private final StockAdmissionGate admissionGate;
+    private final SoldOutRegistry soldOutRegistry;
+    private final Map<String, AtomicLong> bucketGauges = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("rawtypes")
+    public BucketRebalancer(RedisTemplate<String, Object> redisTemplate,
+                            @Qualifier("seckillRebalanceScript") DefaultRedisScript<List> rebalanceScript,
+                            SeckillProperties properties,
+                            SeckillKeys keys,
+                            MeterRegistry meterRegistry,
+                            StockAdmissionGate admissionGate,
+                            SoldOutRegistry soldOutRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.rebalanceScript = rebalanceScript;
+        this.properties = properties;
+        this.keys = keys;
+        this.meterRegistry = meterRegistry;
+        this.admissionGate = admissionGate;
+        this.soldOutRegistry = soldOutRegistry;
+    }
+
+    @Scheduled(fixedDelayString = "#{@seckillProperties.rebalanceIntervalMillis}")
+    public void rebalanceAll() {
+        if (!properties.isRebalanceEnabled()) {
+            return;
+        }
+        boolean clusterMode = keys.isClusterMode();
+        for (Long productId : properties.resolvedProductIds()) {
+            try {
+                if (clusterMode) {
+                    scan(productId);
+                } else {
+                    rebalance(productId);
+                }
+            } catch (Exception e) {
+                log.warn("Failed to rebalance buckets for product {}", productId, e);
+            }
+        }
+    }
+
+    /**
+     * 对单个商品执行一次再平衡检查。
+     *
+     * @return 本次移动的库存件数；桶 key 不存在时返回 -1
+     */
+    public long rebalance(Long productId) {
+        int bucketCount = Math.max(1, properties.getBucketCount());
+        List<?> result = redisTemplate.execute(
+                rebalanceScript,
+                Collections.singletonList(properties.getStockKeyPrefix()),
+                String.valueOf(productId),
+                String.valueOf(bucketCount),
+                String.valueOf(Math.max(0, properties.getRebalanceSpreadThreshold()))
+        );
+        if (result == null || result.isEmpty()) {
+            log.warn("Rebalance Lua returned empty result for product {}", productId);
+            return -1;
+        }
+
+        long moved = ((Number) result.get(0)).longValue();
+        if (moved < 0) {
+            return moved;
+        }
+        long remaining = 0;
+        for (int i = 1; i < result.size(); i++) {
+            long stock = ((Number) result.get(i)).longValue();
+            bucketGauge(productId, i).set(stock);
+            remaining += stock;
+        }
+        publishRemaining(productId, remaining);
+        if (moved > 0) {
+            log.info("Rebalanced product {}: moved {} units, buckets now {}",
+                    productId, moved, result.subList(1, result.size()));
+        }
+        return moved;
+    }
+
+    /**
+     * 集群模式下的扫描：只读取各桶剩余库存，更新 gauge 与准入额度。
+     */
+    void scan(Long productId) {
+        BucketStockReport report = report(productId);
+        if (report.buckets().contains(null)) {
+            // 有桶 key 不存在（未预热或已过期），与单机脚本返回 -1 时一样不据此更新准入额度
+            return;
+        }
+        publishRemaining(productId, report.bucketSum());
+    }
+
+    /**
+     * 读取商品各桶与总库存的当前值（只读，不触发再平衡）。
+     */
+    public BucketStockReport report(Long productId) {
+        int bucketCount = Math.max(1, properties.getBucketCount());
+        List<String> bucketKeys = new ArrayList<>(bucketCount);
+        for (int i = 1; i <= bucketCount; i++) {
+            bucketKeys.add(keys.bucketKey(productId, i));
+        }
+
+        List<Object> values = redisTemplate.opsForValue().multiGet(bucketKeys);
+        List<Long> buckets = new ArrayList<>(bucketCount);
+        long sum = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            Object value = (values == null) ? null : values.get(i);
+            Long stock = (value == null) ? null : Long.parseLong(String.valueOf(value));
+            buckets.add(stock);
+            if (stock != null) {
+                sum += Math.max(0, stock);
+                bucketGauge(productId, i + 1).set(stock);
+            }
+        }
+
+        Object total = redisTemplate.opsForValue().get(keys.totalStockKey(productId));
+        return new BucketStockReport(productId,
+                (total == null) ? null : Long.parseLong(String.valueOf(total)),
+                buckets,
+                sum);
+    }
+
+    private void publishRemaining(Long productId, long remaining) {
+        admissionGate.updateRemaining(productId, remaining);
+        if (remaining == 0 && !properties.isLeaseEnabled()) {
+            // 租借模式下桶为空不代表售罄：库存可能还在各节点的本地租约里
+            soldOutRegistry.markSoldOut(productId);
+        }
+    }
+
+    private AtomicLong bucketGauge(Long productId, int bucketIndex) {
+        return bucketGauges.computeIfAbsent(productId + ":" + bucketIndex, key -> {
+            AtomicLong holder = new AtomicLong();
+            Gauge.builder("seckill.bucket.remaining", holder, AtomicLong::get)
+                    .description("Remaining stock per bucket as of the last rebalance scan")
+                    .tag("productId", String.valueOf(productId))
+                    .tag("bucket", String.valueOf(bucketIndex))
+                    .register(meterRegistry);
+            return holder;
+        });
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.seckillsystem.service.result;
+
+import com.example.seckillsystem.service.dto.OrderStatus;
+import com.example.seckillsystem.service.props.SeckillProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 长轮询：等待者只登记一个 {@link CompletableFuture}，不占用任何线程。
+ * 调度线程每隔 {@code resultPollIntervalMillis} 对所有等待中的 requestId 做一次批量 pipeline 查询，
+ * 有结果的直接完成，超过截止时间的以 PENDING 完成，由客户端决定是否再次等待。
+ */
+@Component
+public class OrderResultLongPoller {
+
+    private final OrderResultService resultService;
+    private final SeckillProperties properties;
+    private final ConcurrentHashMap<Long, Queue<Waiter>> waiters = new ConcurrentHashMap<>();
+
+    public OrderResultLongPoller(OrderResultService resultService, SeckillProperties properties) {
+        this.resultService = resultService;
+        this.properties = properties;
+    }
+
+    /**
+     * 等待 requestId 出现最终结果，最多等待 {@code timeoutMillis}（不超过 {@code resultLongPollTimeoutMillis}）。
+     *
+     * @return 完成时为处理状态；结果属于其他用户时为 empty
+     */
+    public CompletableFuture<Optional<OrderStatus>> await(long requestId, long userId, long timeoutMillis) {
+        Optional<OrderStatus> current = resultService.lookup(requestId, userId);
+        if (current.isEmpty() || current.get().isFinal()) {
+            return CompletableFuture.completedFuture(current);
+        }
+
+        long wait = Math.max(0, Math.min(timeoutMillis, properties.getResultLongPollTimeoutMillis()));
+        Waiter waiter = new Waiter(userId, System.nanoTime() + wait * 1_000_000L);
+        // 登记与清理都在同一个 key 的 compute 内完成，避免登记到一个刚被移除的队列里
+        waiters.compute(requestId, (id, queue) -> {
+            Queue<Waiter> target = (queue == null) ? new ConcurrentLinkedQueue<>() : queue;
+            target.add(waiter);
+            return target;
+        });
+        return waiter.future;
+    }
+
+    @Scheduled(fixedDelayString = "#{@seckillProperties.resultPollIntervalMillis}")
+    public void poll() {
+        if (waiters.isEmpty()) {
+            return;
+        }
+        List<Long> requestIds = new ArrayList<>(waiters.keySet());
+        Map<Long, OrderResultService.StoredResult> results = resultService.fetch(requestIds);
+        long now = System.nanoTime();
+
+        for (Long requestId : requestIds) {
+            OrderResultService.StoredResult result = results.get(requestId);
+            if (result != null) {
+                Queue<Waiter> completed = waiters.remove(requestId);
+                if (completed != null) {
+                    completed.forEach(waiter -> waiter.future.complete(result.visibleTo(waiter.userId)));
+                }
+                continue;
+            }
+            expire(requestId, now);
+        }
+    }
+
+    private void expire(Long requestId, long now) {
+        Queue<Waiter> queue = waiters.get(requestId);
+        if (queue == null) {
+            return;
+        }
+        for (Iterator<Waiter> it = queue.iterator(); it.hasNext(); ) {
+            Waiter waiter = it.next();
+            if (now - waiter.deadlineNanos >= 0) {
+                it.remove();
+                waiter.future.complete(Optional.of(OrderStatus.PENDING));
+            }
+        }
+        waiters.computeIfPresent(requestId, (id, q) -> q.isEmpty() ? null : q);
+    }
+
+    private static final class Waiter {
+        private final long userId;
+        private final long deadlineNanos;
+        private final CompletableFuture<Optional<OrderStatus>> future = new CompletableFuture<>();
+
+        private Waiter(long userId, long deadlineNanos) {
+            this.userId = userId;
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+}
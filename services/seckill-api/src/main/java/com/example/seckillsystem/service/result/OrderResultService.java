@@ -0,0 +1,188 @@
+package com.example.seckillsystem.service.result;
+
+import com.example.seckillsystem.service.dto.OrderStatus;
+import com.example.seckillsystem.service.id.SnowflakeIdGenerator;
+import com.example.seckillsystem.service.props.SeckillProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 读取 order-service 写入的下单结果。
+ * <p>
+ * Redis 结构：{@code HGET <prefix><bucket> <requestId>}，值为 {@code "<C|F|R>:<userId>"}，
+ * bucket 为 requestId 中的时间戳按 {@code resultBucketSeconds} 取整，与 order-service 的 {@code OrderResultWriter} 一致。
+ * <p>
+ * 两级本地缓存：最终结果不会再变化，缓存较长时间；处理中（Redis 无记录）只缓存很短时间，
+ * 同一 requestId 的高频轮询在窗口内不会访问 Redis。
+ */
+@Service
+public class OrderResultService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderResultService.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final SeckillProperties properties;
+    private final Cache<Long, StoredResult> finalResults;
+    private final Cache<Long, Boolean> pendingResults;
+
+    public OrderResultService(StringRedisTemplate redisTemplate, SeckillProperties properties) {
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+        this.finalResults = Caffeine.newBuilder()
+                .maximumSize(properties.getResultCacheMaxSize())
+                .expireAfterWrite(Duration.ofSeconds(Math.max(1, properties.getResultFinalCacheSeconds())))
+                .build();
+        this.pendingResults = Caffeine.newBuilder()
+                .maximumSize(properties.getResultCacheMaxSize())
+                .expireAfterWrite(Duration.ofMillis(Math.max(1, properties.getResultPendingCacheMillis())))
+                .build();
+    }
+
+    /**
+     * 查询 requestId 的处理状态。
+     *
+     * @return 处理状态；结果属于其他用户时返回 empty（对调用方表现为不存在）
+     */
+    public Optional<OrderStatus> lookup(long requestId, long userId) {
+        StoredResult cached = finalResults.getIfPresent(requestId);
+        if (cached != null) {
+            return cached.visibleTo(userId);
+        }
+        if (pendingResults.getIfPresent(requestId) != null) {
+            return Optional.of(OrderStatus.PENDING);
+        }
+        StoredResult stored = fetch(List.of(requestId)).get(requestId);
+        return stored == null ? Optional.of(OrderStatus.PENDING) : stored.visibleTo(userId);
+    }
+
+    /**
+     * 批量读取一组 requestId 的最终结果（一次 pipeline），结果同时写入本地缓存。
+     *
+     * @return 已有最终结果的 requestId 到结果的映射，不包含仍在处理中的 requestId
+     */
+    public Map<Long, StoredResult> fetch(Collection<Long> requestIds) {
+        Map<Long, StoredResult> found = new HashMap<>();
+        List<Long> misses = new ArrayList<>(requestIds.size());
+        for (Long requestId : requestIds) {
+            StoredResult cached = finalResults.getIfPresent(requestId);
+            if (cached != null) {
+                found.put(requestId, cached);
+            } else {
+                misses.add(requestId);
+            }
+        }
+        if (misses.isEmpty()) {
+            return found;
+        }
+
+        List<Object> values;
+        try {
+            values = redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                    RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                    for (Long requestId : misses) {
+                        ops.opsForHash().get(bucketKey(requestId), String.valueOf(requestId));
+                    }
+                    return null;
+                }
+            });
+        } catch (Exception e) {
+            // 查询失败按处理中返回，客户端会继续轮询
+            log.warn("Failed to read order results for {} requestIds", misses.size(), e);
+            return found;
+        }
+
+        for (int i = 0; i < misses.size(); i++) {
+            Long requestId = misses.get(i);
+            StoredResult stored = i < values.size() ? StoredResult.parse(values.get(i)) : null;
+            if (stored == null) {
+                pendingResults.put(requestId, Boolean.TRUE);
+            } else {
+                finalResults.put(requestId, stored);
+                pendingResults.invalidate(requestId);
+                found.put(requestId, stored);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 写入 FAILED 结果：请求在 seckill-api 侧已确定失败（未写 outbox），order-service 不会再为它写结果。
+     * 布局与 order-service 的 {@code OrderResultWriter} 相同。
+     */
+    public void recordFailed(long requestId, long userId) {
+        String key = bucketKey(requestId);
+        String value = "F:" + userId;
+        long ttlSeconds = Math.max(1, properties.getResultTtlSeconds());
+        try {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                    RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                    ops.opsForHash().put(key, String.valueOf(requestId), value);
+                    ops.expire(key, ttlSeconds, TimeUnit.SECONDS);
+                    return null;
+                }
+            });
+        } catch (Exception e) {
+            log.warn("Failed to record failed result for requestId={}", requestId, e);
+            return;
+        }
+        finalResults.put(requestId, new StoredResult(OrderStatus.FAILED, userId));
+        pendingResults.invalidate(requestId);
+    }
+
+    private String bucketKey(long requestId) {
+        long bucketMillis = TimeUnit.SECONDS.toMillis(Math.max(1, properties.getResultBucketSeconds()));
+        return properties.getResultKeyPrefix() + (SnowflakeIdGenerator.relativeTimestamp(requestId) / bucketMillis);
+    }
+
+    /**
+     * order-service 写入的一条最终结果。
+     */
+    public record StoredResult(OrderStatus status, long userId) {
+
+        static StoredResult parse(Object raw) {
+            if (raw == null) {
+                return null;
+            }
+            String value = raw.toString();
+            int separator = value.indexOf(':');
+            if (separator != 1) {
+                return null;
+            }
+            OrderStatus status = OrderStatus.fromCode(value.charAt(0));
+            if (status == null) {
+                return null;
+            }
+            try {
+                return new StoredResult(status, Long.parseLong(value.substring(separator + 1)));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        public Optional<OrderStatus> visibleTo(long requestUserId) {
+            return userId == requestUserId ? Optional.of(status) : Optional.empty();
+        }
+    }
+}
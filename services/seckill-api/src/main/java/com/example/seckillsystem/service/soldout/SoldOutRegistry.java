@@ -0,0 +1,159 @@
+package com.example.seckillsystem.service.soldout;
+
+import com.example.seckillsystem.service.props.SeckillProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+/**
+ * 集群范围的售罄标记表。
+ * <p>
+ * 某个节点从扣减脚本拿到售罄（结果码 2）或观察到总库存归零时，在本地置位并通过 Redis pub/sub 广播
+ * {@code S:<productId>:<eventMillis>}；库存被补回（缓存以正库存重建、租约归还）时广播 {@code R:<productId>:<eventMillis>}。
+ * 每个节点在 Controller 中先查这张表，已售罄的商品直接返回 {@code SOLD_OUT}，不再访问 Redis。
+ * <p>
+ * 每个商品记录最近一次事件的时间，较旧的事件（乱序到达的售罄通知）不会覆盖较新的补货通知。
+ * pub/sub 不保证送达，因此本地标记只在 {@code soldOutFlagTtlSeconds} 内有效，过期后由下一次请求重新确认。
+ */
+@Component
+public class SoldOutRegistry implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(SoldOutRegistry.class);
+
+    private static final char SOLD_OUT = 'S';
+    private static final char REPLENISHED = 'R';
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final SeckillProperties properties;
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final List<LongConsumer> replenishListeners = new CopyOnWriteArrayList<>();
+
+    public SoldOutRegistry(RedisTemplate<String, Object> redisTemplate,
+                           SeckillProperties properties,
+                           RedisMessageListenerContainer listenerContainer) {
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+        listenerContainer.addMessageListener(this, new ChannelTopic(properties.getSoldOutChannel()));
+    }
+
+    /**
+     * 注册补货回调：本地补货、缓存重建以及其他节点广播的补货事件都会触发（较旧的乱序事件除外）。
+     */
+    public void onReplenished(LongConsumer listener) {
+        replenishListeners.add(listener);
+    }
+
+    /**
+     * 纯内存判断，不访问 Redis。
+     */
+    public boolean isSoldOut(Long productId) {
+        Entry entry = entries.get(productId);
+        if (entry == null || !entry.soldOut) {
+            return false;
+        }
+        long ttlNanos = TimeUnit.SECONDS.toNanos(Math.max(1, properties.getSoldOutFlagTtlSeconds()));
+        return System.nanoTime() - entry.markedNanos < ttlNanos;
+    }
+
+    /**
+     * 本地置位并广播给其他节点。本地已是有效的售罄状态时不重复广播。
+     */
+    public void markSoldOut(Long productId) {
+        if (isSoldOut(productId)) {
+            return;
+        }
+        long eventMillis = System.currentTimeMillis();
+        if (apply(productId, true, eventMillis, false)) {
+            publish(SOLD_OUT, productId, eventMillis);
+        }
+    }
+
+    /**
+     * 只在本节点置位，不广播（租借模式下本节点租不到库存不代表其他节点手里的租约也已用完）。
+     */
+    public void markSoldOutLocally(Long productId) {
+        apply(productId, true, System.currentTimeMillis(), false);
+    }
+
+    /**
+     * 库存被补回：清除本地标记并广播。
+     */
+    public void markReplenished(Long productId) {
+        long eventMillis = System.currentTimeMillis();
+        Entry entry = entries.get(productId);
+        boolean wasSoldOut = entry != null && entry.soldOut;
+        apply(productId, false, eventMillis, false);
+        if (wasSoldOut || entry == null) {
+            publish(REPLENISHED, productId, eventMillis);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = body.split(":");
+        if (parts.length != 3 || parts[0].length() != 1) {
+            log.warn("Ignoring malformed sold-out message '{}'", body);
+            return;
+        }
+        try {
+            Long productId = Long.parseLong(parts[1]);
+            long eventMillis = Long.parseLong(parts[2]);
+            boolean soldOut = parts[0].charAt(0) == SOLD_OUT;
+            if (apply(productId, soldOut, eventMillis, true)) {
+                log.info("Product {} marked {} by broadcast", productId, soldOut ? "sold out" : "replenished");
+            }
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed sold-out message '{}'", body);
+        }
+    }
+
+    /**
+     * @param remote 是否来自广播；广播事件与本地最近事件同一毫秒时视为本节点发出的回声而忽略
+     * @return 状态是否被本次事件改变（较旧的事件会被忽略）
+     */
+    private boolean apply(Long productId, boolean soldOut, long eventMillis, boolean remote) {
+        Entry entry = entries.computeIfAbsent(productId, id -> new Entry());
+        synchronized (entry) {
+            if (eventMillis < entry.eventMillis || (remote && eventMillis == entry.eventMillis)) {
+                return false;
+            }
+            boolean changed = entry.soldOut != soldOut || soldOut;
+            entry.soldOut = soldOut;
+            entry.eventMillis = eventMillis;
+            entry.markedNanos = System.nanoTime();
+            if (!soldOut) {
+                replenishListeners.forEach(listener -> listener.accept(productId));
+            }
+            return changed;
+        }
+    }
+
+    private void publish(char type, Long productId, long eventMillis) {
+        try {
+            redisTemplate.convertAndSend(properties.getSoldOutChannel(), type + ":" + productId + ":" + eventMillis);
+        } catch (Exception e) {
+            // 广播失败只影响其他节点的快速拒绝，它们仍会从 Redis 得到正确结果
+            log.warn("Failed to publish sold-out event type={} productId={}", type, productId, e);
+        }
+    }
+
+    private static final class Entry {
+        private volatile boolean soldOut;
+        private volatile long eventMillis;
+        private volatile long markedNanos;
+    }
+}
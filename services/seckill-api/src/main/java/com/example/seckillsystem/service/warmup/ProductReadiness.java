@@ -0,0 +1,38 @@
+package com.example.seckillsystem.service.warmup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 本节点已知“Redis 库存 key 已就绪”的商品集合。
+ * <p>
+ * 命中该集合的请求直接执行扣减脚本，不再单独 GET {@code :total}；key 丢失（TTL 过期、故障切换）
+ * 由脚本返回码 4 发现，调用方随后调用 {@link #invalidate(Long)} 并回到缓存重建流程。
+ */
+@Component
+public class ProductReadiness {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductReadiness.class);
+
+    private final Set<Long> readyProducts = ConcurrentHashMap.newKeySet();
+
+    public boolean isReady(Long productId) {
+        return readyProducts.contains(productId);
+    }
+
+    public void markReady(Long productId) {
+        if (readyProducts.add(productId)) {
+            log.debug("Product {} marked as ready", productId);
+        }
+    }
+
+    public void invalidate(Long productId) {
+        if (readyProducts.remove(productId)) {
+            log.info("Product {} is no longer known ready; stock keys will be re-checked", productId);
+        }
+    }
+}
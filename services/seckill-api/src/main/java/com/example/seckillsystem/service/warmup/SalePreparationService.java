@@ -0,0 +1,233 @@
+package com.example.seckillsystem.service.warmup;
+
+import com.example.seckillsystem.service.admission.StockAdmissionGate;
+import com.example.seckillsystem.service.cluster.ClusterStockAggregator;
+import com.example.seckillsystem.service.inventory.InventoryCacheFacade;
+import com.example.seckillsystem.service.inventory.ProductInventorySnapshot;
+import com.example.seckillsystem.service.inventory.StockBuckets;
+import com.example.seckillsystem.service.keys.SeckillKeys;
+import com.example.seckillsystem.service.props.SeckillProperties;
+import com.example.seckillsystem.service.soldout.SoldOutRegistry;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 开卖前的库存预热：在流量进入前为 catalog 中的全部商品写好桶库存与 {@code :total}。
+ * <p>
+ * 先用一次流水线读取所有商品的 {@code :total}，已存在的（其他实例已预热或活动进行中）直接标记就绪且不覆盖；
+ * 缺失的商品在与请求路径相同的 Redisson 重建锁下再确认一次，然后用一次流水线写入全部桶与总库存。
+ * 预热完成后请求路径只需一次 Redis 调用，首批用户也不会再争抢重建锁。
+ * 同一条流水线还会把商品的 outbox stream 登记到 {@code seckill.stream-registry-key}，供 relay-service 自动发现。
+ */
+@Component
+public class SalePreparationService implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(SalePreparationService.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final SeckillProperties properties;
+    private final SeckillKeys keys;
+    private final InventoryCacheFacade inventoryCacheFacade;
+    private final RedissonClient redissonClient;
+    private final ClusterStockAggregator clusterStockAggregator;
+    private final ProductReadiness readiness;
+    private final StockAdmissionGate admissionGate;
+    private final SoldOutRegistry soldOutRegistry;
+    private final Random random = new Random();
+
+    public SalePreparationService(RedisTemplate<String, Object> redisTemplate,
+                                  SeckillProperties properties,
+                                  SeckillKeys keys,
+                                  InventoryCacheFacade inventoryCacheFacade,
+                                  RedissonClient redissonClient,
+                                  ClusterStockAggregator clusterStockAggregator,
+                                  ProductReadiness readiness,
+                                  StockAdmissionGate admissionGate,
+                                  SoldOutRegistry soldOutRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+        this.keys = keys;
+        this.inventoryCacheFacade = inventoryCacheFacade;
+        this.redissonClient = redissonClient;
+        this.clusterStockAggregator = clusterStockAggregator;
+        this.readiness = readiness;
+        this.admissionGate = admissionGate;
+        this.soldOutRegistry = soldOutRegistry;
+    }
+
+    @Override
+    public void run(String... args) {
+        if (!properties.isSalePreparationEnabled()) {
+            log.info("Sale preparation disabled; stock keys will be warmed lazily on first request");
+            return;
+        }
+        List<Long> productIds = properties.resolvedProductIds();
+        if (productIds.isEmpty()) {
+            log.warn("No productIds configured for sale preparation.");
+            return;
+        }
+        try {
+            prepare(productIds);
+        } catch (Exception e) {
+            // 预热失败不影响启动，请求路径仍会按需重建缓存
+            log.error("Sale preparation failed; falling back to lazy cache warmup", e);
+        }
+    }
+
+    /**
+     * 为指定商品预热库存 key，返回本次新写入的商品数量。
+     */
+    public int prepare(List<Long> productIds) {
+        List<Object> totals = readTotals(productIds);
+        List<Long> missing = new ArrayList<>();
+        for (int i = 0; i < productIds.size(); i++) {
+            if (totals.get(i) != null) {
+                markReady(productIds.get(i));
+                admissionGate.updateRemaining(productIds.get(i), Long.parseLong(String.valueOf(totals.get(i))));
+            } else {
+                missing.add(productIds.get(i));
+            }
+        }
+        if (missing.isEmpty()) {
+            log.info("Sale preparation: all {} products already warm", productIds.size());
+            return 0;
+        }
+
+        Map<Long, RLock> locks = new LinkedHashMap<>();
+        try {
+            for (Long productId : missing) {
+                RLock lock = redissonClient.getLock(properties.getCacheLockKeyPrefix() + productId);
+                if (lock.tryLock(0, properties.getCacheLockLeaseSeconds(), TimeUnit.SECONDS)) {
+                    locks.put(productId, lock);
+                } else {
+                    log.info("Product {} is being warmed by another worker; skipping", productId);
+                }
+            }
+            if (locks.isEmpty()) {
+                return 0;
+            }
+
+            List<Long> locked = new ArrayList<>(locks.keySet());
+            List<Object> recheck = readTotals(locked);
+            List<ProductInventorySnapshot> toWrite = new ArrayList<>();
+            List<Long> absent = new ArrayList<>();
+            for (int i = 0; i < locked.size(); i++) {
+                Long productId = locked.get(i);
+                if (recheck.get(i) != null) {
+                    markReady(productId);
+                    continue;
+                }
+                ProductInventorySnapshot snapshot = inventoryCacheFacade.load(productId);
+                if (snapshot == null) {
+                    absent.add(productId);
+                } else {
+                    toWrite.add(snapshot);
+                }
+            }
+
+            writeStock(toWrite, absent);
+            toWrite.forEach(snapshot -> {
+                markReady(snapshot.productId());
+                admissionGate.updateRemaining(snapshot.productId(), snapshot.totalStock());
+                if (snapshot.totalStock() > 0) {
+                    soldOutRegistry.markReplenished(snapshot.productId());
+                }
+            });
+            log.info("Sale preparation: warmed {} products ({} not found, {} already warm)",
+                    toWrite.size(), absent.size(), productIds.size() - missing.size());
+            return toWrite.size();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted while acquiring sale preparation locks", e);
+            return 0;
+        } finally {
+            locks.values().forEach(lock -> {
+                try {
+                    lock.unlock();
+                } catch (IllegalMonitorStateException ignored) {
+                    // lock already released; ignore
+                }
+            });
+        }
+    }
+
+    private List<Object> readTotals(List<Long> productIds) {
+        return redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                productIds.forEach(productId -> ops.opsForValue().get(keys.totalStockKey(productId)));
+                return null;
+            }
+        });
+    }
+
+    private void writeStock(List<ProductInventorySnapshot> snapshots, List<Long> absent) {
+        if (snapshots.isEmpty() && absent.isEmpty()) {
+            return;
+        }
+        int bucketCount = Math.max(1, properties.getBucketCount());
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                for (ProductInventorySnapshot snapshot : snapshots) {
+                    Long productId = snapshot.productId();
+                    long totalStock = snapshot.totalStock();
+                    if (totalStock <= 0) {
+                        ops.opsForValue().set(keys.totalStockKey(productId), -1L,
+                                properties.getEmptyCacheTtlSeconds(), TimeUnit.SECONDS);
+                        continue;
+                    }
+                    long ttl = cacheTtlSeconds();
+                    for (int i = 1; i <= bucketCount; i++) {
+                        ops.opsForValue().set(keys.bucketKey(productId, i),
+                                StockBuckets.share(totalStock, bucketCount, i), ttl, TimeUnit.SECONDS);
+                    }
+                    // 总库存最后写入：它是“已就绪”的标志
+                    ops.opsForValue().set(keys.totalStockKey(productId), totalStock, ttl, TimeUnit.SECONDS);
+                    // 登记 outbox stream，relay-service 据此发现并分配转发任务
+                    ops.opsForSet().add(keys.streamRegistryKey(), (Object[]) keys.outboxStreamKeys(productId));
+                }
+                for (Long productId : absent) {
+                    ops.opsForValue().set(keys.totalStockKey(productId), -1L,
+                            properties.getEmptyCacheTtlSeconds(), TimeUnit.SECONDS);
+                }
+                return null;
+            }
+        });
+    }
+
+    private void markReady(Long productId) {
+        readiness.markReady(productId);
+        if (keys.isClusterMode()) {
+            clusterStockAggregator.track(productId);
+        }
+    }
+
+    private long cacheTtlSeconds() {
+        long base = Math.max(1, properties.getCacheTtlSeconds());
+        long jitter = Math.max(0, properties.getCacheTtlJitterSeconds());
+        if (jitter == 0) {
+            return base;
+        }
+        return base + random.nextInt((int) Math.max(1, jitter));
+    }
+}
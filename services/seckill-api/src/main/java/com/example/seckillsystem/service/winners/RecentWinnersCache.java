@@ -0,0 +1,172 @@
+package com.example.seckillsystem.service.winners;
+
+import com.example.seckillsystem.service.props.SeckillProperties;
+import com.example.seckillsystem.service.soldout.SoldOutRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * 本实例最近的成功/已购买用户表，用于在访问 Redis 之前直接拦截重复点击。
+ * <p>
+ * 结构是固定容量的组相联表：{@code (productId, userId)} 哈希到某个分段里的一个 4 路组，键以两个 {@code long[]}
+ * 原样保存（不装箱、不分配对象，也不存在哈希碰撞导致的误判），组满时按轮转顺序覆盖最旧的一路。
+ * 覆盖只会让该用户下一次点击重新走 Redis 判重，不影响正确性。
+ * <p>
+ * 每个槽位同时记录写入时商品的纪元号。商品补货或缓存重建（{@link SoldOutRegistry#onReplenished}）时纪元加一，
+ * 旧纪元的记录不再命中——Redis 中的购买标记可能已随重建清空，本地不能继续按旧记录拦截。
+ * 纪元按商品哈希存放在固定大小的数组里，碰撞只会让其他商品的记录提前失效。
+ * <p>
+ * 命中与未命中分别计入 {@code seckill.winners.cache{result=hit|miss}}，占用槽位数见 {@code seckill.winners.cache.size}。
+ */
+@Component
+public class RecentWinnersCache {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final int WAYS = 4;
+    private static final int SEGMENTS = 64;
+    private static final int EPOCH_SLOTS = 1024;
+
+    private final boolean enabled;
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final int setMask;
+    private final AtomicIntegerArray epochs = new AtomicIntegerArray(EPOCH_SLOTS);
+    private final AtomicInteger size = new AtomicInteger();
+    private final Counter hits;
+    private final Counter misses;
+
+    public RecentWinnersCache(SeckillProperties properties, SoldOutRegistry soldOutRegistry, MeterRegistry meterRegistry) {
+        this.enabled = properties.isRecentWinnersEnabled();
+        int setsPerSegment = Integer.highestOneBit(
+                Math.max(1, properties.getRecentWinnersCapacity() / (SEGMENTS * WAYS)));
+        this.setMask = setsPerSegment - 1;
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(setsPerSegment * WAYS);
+        }
+
+        this.hits = Counter.builder("seckill.winners.cache")
+                .description("Recent-winners lookups answered locally")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("seckill.winners.cache")
+                .description("Recent-winners lookups that fell through to Redis")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("seckill.winners.cache.size", size, AtomicInteger::get)
+                .description("Occupied slots in the recent-winners table")
+                .register(meterRegistry);
+
+        soldOutRegistry.onReplenished(this::invalidate);
+    }
+
+    /**
+     * 使该商品已有的记录全部失效。
+     */
+    public void invalidate(long productId) {
+        epochs.incrementAndGet(epochIndex(productId));
+    }
+
+    /**
+     * @return 该用户是否已知在本商品上成功下单过
+     */
+    public boolean contains(long productId, long userId) {
+        if (!enabled) {
+            return false;
+        }
+        long hash = mix(productId, userId);
+        Segment segment = segments[(int) (hash & (SEGMENTS - 1))];
+        int base = setIndex(hash) * WAYS;
+        int epoch = epochs.get(epochIndex(productId));
+        boolean found;
+        synchronized (segment) {
+            found = segment.find(base, productId, userId, epoch) >= 0;
+        }
+        if (found) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return found;
+    }
+
+    /**
+     * 记录一次成功下单（或 Redis 判定的重复购买）。
+     */
+    public void record(long productId, long userId) {
+        if (!enabled) {
+            return;
+        }
+        long hash = mix(productId, userId);
+        Segment segment = segments[(int) (hash & (SEGMENTS - 1))];
+        int set = setIndex(hash);
+        int base = set * WAYS;
+        int epoch = epochs.get(epochIndex(productId));
+        synchronized (segment) {
+            int existing = segment.find(base, productId, userId);
+            if (existing >= 0) {
+                // 同一用户的旧纪元记录直接续用该槽位
+                segment.epochs[existing] = epoch;
+                return;
+            }
+            int way = segment.cursor[set];
+            segment.cursor[set] = (byte) ((way + 1) % WAYS);
+            int slot = base + way;
+            if (segment.products[slot] == EMPTY) {
+                size.incrementAndGet();
+            }
+            segment.products[slot] = productId;
+            segment.users[slot] = userId;
+            segment.epochs[slot] = epoch;
+        }
+    }
+
+    private static int epochIndex(long productId) {
+        return (int) (mix(productId, 0) & (EPOCH_SLOTS - 1));
+    }
+
+    private int setIndex(long hash) {
+        return (int) ((hash >>> 6) & setMask);
+    }
+
+    private static long mix(long productId, long userId) {
+        long h = userId * 0x9E3779B97F4A7C15L + productId;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static final class Segment {
+        private final long[] products;
+        private final long[] users;
+        private final int[] epochs;
+        private final byte[] cursor;
+
+        private Segment(int slots) {
+            this.products = new long[slots];
+            this.users = new long[slots];
+            this.epochs = new int[slots];
+            this.cursor = new byte[slots / WAYS];
+            Arrays.fill(products, EMPTY);
+        }
+
+        private int find(int base, long productId, long userId, int epoch) {
+            int slot = find(base, productId, userId);
+            return slot >= 0 && epochs[slot] == epoch ? slot : -1;
+        }
+
+        private int find(int base, long productId, long userId) {
+            for (int i = base; i < base + WAYS; i++) {
+                if (products[i] == productId && users[i] == userId) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+-- seckill_batch_with_stream.lua
+-- 批量版秒杀脚本：一次 EVALSHA 处理同一商品的多个用户请求，逐个返回结果码。
+-- KEYS:
+--   KEYS[1] = stockKeyPrefix, e.g. "seckill:stock:"
+--   KEYS[2] = userSetKeyPrefix, e.g. "seckill:users:"
+--   KEYS[3] = streamKeyPrefix, e.g. "seckill:stream:"
+-- ARGV:
+--   ARGV[1] = productId
+--   ARGV[2] = 本批请求数 n
+--   ARGV[3] = bucketCount。大于 1 时启用桶遍历模式（同 seckill.lua 的 ARGV[5]），为 0 时只扣减指定桶
+--   ARGV[4] = 购买标记方式："set" 或 "bitmap"（同 seckill.lua 的 ARGV[6]）
+--   ARGV[5] = bitmap 模式下每段位图覆盖的 userId 数量
+--   ARGV[6 + (i-1)*3] = userId_i
+--   ARGV[7 + (i-1)*3] = bucketIndex_i（桶遍历模式下为起始桶）
+--   ARGV[8 + (i-1)*3] = requestId_i
+--
+-- 返回：长度为 n 的数组，第 i 个元素为第 i 个请求的结果码，含义与 seckill.lua 完全一致：
+-- 0 = 成功, 1 = 重复购买, 2 = 总库存已售罄, 3 = 当前桶已空, 4 = totalStockKey 不存在, 99 = 脚本内部错误
+
+local productId = ARGV[1]
+local count = tonumber(ARGV[2])
+local bucketCount = tonumber(ARGV[3] or "0") or 0
+local markerMode = ARGV[4] or "set"
+local markerSegmentBits = tonumber(ARGV[5] or "0") or 0
+
+local totalStockKey = KEYS[1] .. productId .. ":total"
+local userSetKey = KEYS[2] .. productId
+local streamKey = KEYS[3] .. productId
+
+-- 购买标记：set = SISMEMBER/SADD 十进制 userId；bitmap = 按 userId 分段的位图 GETBIT/SETBIT，
+-- 段 key 为 <userSetKey>:bm:<userId / segmentBits>，段内偏移为 userId % segmentBits（要求 userId 为非负整数）
+local function markerLocation(uid)
+    local numericId = tonumber(uid)
+    local segment = math.floor(numericId / markerSegmentBits)
+    return userSetKey .. ":bm:" .. segment, numericId % markerSegmentBits
+end
+
+local function isMarked(uid)
+    if markerMode == "bitmap" then
+        local key, offset = markerLocation(uid)
+        return redis.call("GETBIT", key, offset) == 1
+    end
+    return redis.call("SISMEMBER", userSetKey, uid) == 1
+end
+
+local function mark(uid)
+    if markerMode == "bitmap" then
+        local key, offset = markerLocation(uid)
+        redis.call("SETBIT", key, offset, 1)
+    else
+        redis.call("SADD", userSetKey, uid)
+    end
+end
+
+local results = {}
+
+-- 从 startIndex 开始在脚本内寻找一个仍有库存的桶并扣减，返回实际扣减的桶号；全部为空时返回 nil
+local function deductFromAnyBucket(startIndex)
+    for offset = 0, bucketCount - 1 do
+        local candidate = ((startIndex - 1 + offset) % bucketCount) + 1
+        local candidateKey = KEYS[1] .. productId .. ":bucket_" .. candidate
+        local remainingRaw = redis.call("GET", candidateKey)
+        local remaining = 0
+        if remainingRaw then
+            remaining = tonumber(remainingRaw) or 0
+        end
+        if remaining > 0 then
+            redis.call("DECR", candidateKey)
+            return candidate
+        end
+    end
+    return nil
+end
+
+-- 整批只读取一次总库存，并在本地跟踪扣减结果；key 不存在时整批返回 4
+local totalStockRaw = redis.call("GET", totalStockKey)
+if not totalStockRaw then
+    for i = 1, count do
+        results[i] = 4
+    end
+    return results
+end
+local totalStock = tonumber(totalStockRaw)
+
+for i = 1, count do
+    local base = 6 + (i - 1) * 3
+    local userId = ARGV[base]
+    local bucketIndex = ARGV[base + 1]
+    local requestId = ARGV[base + 2]
+
+    if (not totalStock or totalStock <= 0) then
+        results[i] = 2
+    elseif isMarked(userId) then
+        -- 同一批次内重复出现的用户，在前一次标记之后也会命中这里
+        results[i] = 1
+    else
+        local deducted = false
+        if bucketCount > 1 then
+            local chosenIndex = deductFromAnyBucket(tonumber(bucketIndex))
+            if chosenIndex then
+                bucketIndex = tostring(chosenIndex)
+                deducted = true
+            else
+                results[i] = 3
+            end
+        else
+            local stockBucketKey = KEYS[1] .. productId .. ":bucket_" .. bucketIndex
+            local stock = tonumber(redis.call("DECR", stockBucketKey))
+
+            if (not stock) then
+                results[i] = 99
+            elseif (stock < 0) then
+                redis.call("INCR", stockBucketKey)
+                results[i] = 3
+            else
+                deducted = true
+            end
+        end
+
+        if deducted then
+            totalStock = tonumber(redis.call("DECR", totalStockKey))
+            mark(userId)
+
+            -- outbox v2 格式，同 seckill.lua
+            local payload = "\2" .. requestId .. ":" .. userId .. ":" .. productId .. ":" .. bucketIndex
+            redis.call("XADD", streamKey, "*", "payload", payload)
+            results[i] = 0
+        end
+    end
+end
+
+return results
@@ -0,0 +1,32 @@
+-- seckill_cluster_steal.lua
+-- Redis Cluster 模式下，当用户主桶已空时，从另一个桶（另一个 hash tag / slot）扣减库存。
+-- 调用前用户已由 seckill-cluster.lua 在主桶预占，因此这里不再做去重。
+-- KEYS:
+--   KEYS[1] = 目标桶库存 key,    e.g. "seckill:stock:{1:b7}"
+--   KEYS[2] = 目标桶 outbox stream, e.g. "seckill:stream:{1:b7}"
+-- ARGV:
+--   ARGV[1] = userId
+--   ARGV[2] = productId
+--   ARGV[3] = bucketIndex（目标桶序号）
+--   ARGV[4] = requestId
+--
+-- 返回码：0 = 成功，3 = 目标桶已空
+
+local bucketKey = KEYS[1]
+local streamKey = KEYS[2]
+
+local remainingRaw = redis.call("GET", bucketKey)
+local remaining = 0
+if remainingRaw then
+    remaining = tonumber(remainingRaw) or 0
+end
+if remaining <= 0 then
+    return 3
+end
+redis.call("DECR", bucketKey)
+
+-- outbox v2 格式，同 seckill.lua
+local payload = "\2" .. ARGV[4] .. ":" .. ARGV[1] .. ":" .. ARGV[2] .. ":" .. ARGV[3]
+redis.call("XADD", streamKey, "*", "payload", payload)
+
+return 0
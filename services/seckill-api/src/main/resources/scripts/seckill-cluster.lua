@@ -0,0 +1,59 @@
+-- seckill-cluster.lua
+-- Redis Cluster 模式下在用户主桶上执行的秒杀脚本。所有 KEYS 共享同一个 hash tag {productId:bN}，
+-- 因此落在同一个 slot，可以原子地完成去重 + 扣减 + 写 outbox。
+-- KEYS:
+--   KEYS[1] = 主桶库存 key,   e.g. "seckill:stock:{1:b3}"
+--   KEYS[2] = 主桶购买标记 key：set 模式为集合 "seckill:users:{1:b3}"，
+--             bitmap 模式为该用户所在的位图段 "seckill:users:{1:b3}:bm:<segment>"
+--   KEYS[3] = 主桶 outbox stream, e.g. "seckill:stream:{1:b3}"
+-- ARGV:
+--   ARGV[1] = userId
+--   ARGV[2] = productId
+--   ARGV[3] = bucketIndex（主桶序号）
+--   ARGV[4] = requestId
+--   ARGV[5] = 购买标记方式："set"（默认）或 "bitmap"
+--   ARGV[6] = bitmap 模式下用户在位图段内的偏移
+--
+-- 返回码：
+-- 0 = 成功 (已在主桶扣减并写 stream)
+-- 1 = 重复购买
+-- 3 = 主桶已空。此时用户已被预占到主桶的购买标记集合中，调用方应继续通过
+--     seckill-cluster-steal.lua 从其他桶扣减；若全部失败，必须 SREM 释放预占。
+
+local bucketKey = KEYS[1]
+local userSetKey = KEYS[2]
+local streamKey = KEYS[3]
+
+local userId = ARGV[1]
+local productId = ARGV[2]
+local bucketIndex = ARGV[3]
+local requestId = ARGV[4]
+local markerMode = ARGV[5] or "set"
+local markerOffset = ARGV[6]
+
+-- 1) 去重并标记用户（购买标记以主桶为单位分组，同一用户永远落在同一个主桶）。
+--    成功时即为最终标记；主桶为空时作为跨桶扣减的预占
+if markerMode == "bitmap" then
+    if redis.call("SETBIT", userSetKey, markerOffset, 1) == 1 then
+        return 1
+    end
+elseif redis.call("SADD", userSetKey, userId) == 0 then
+    return 1
+end
+
+-- 2) 尝试在主桶扣减
+local remainingRaw = redis.call("GET", bucketKey)
+local remaining = 0
+if remainingRaw then
+    remaining = tonumber(remainingRaw) or 0
+end
+if remaining <= 0 then
+    return 3
+end
+redis.call("DECR", bucketKey)
+
+-- 3) 写 outbox（v2 格式，同 seckill.lua）
+local payload = "\2" .. requestId .. ":" .. userId .. ":" .. productId .. ":" .. bucketIndex
+redis.call("XADD", streamKey, "*", "payload", payload)
+
+return 0
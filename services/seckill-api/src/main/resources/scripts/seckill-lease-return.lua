@@ -0,0 +1,25 @@
+-- seckill_lease_return.lua
+-- 归还实例未用完的租借库存。
+-- KEYS:
+--   KEYS[1] = stockKeyPrefix, e.g. "seckill:stock:"
+-- ARGV:
+--   ARGV[1] = productId
+--   ARGV[2] = 归还数量
+--   ARGV[3] = 归还到的桶序号
+--
+-- 返回：归还后的总库存；total key 不存在（缓存已失效，将由 L3 回源重建）时返回 -1 且不做任何修改
+
+local productId = ARGV[1]
+local units = tonumber(ARGV[2]) or 0
+local bucketIndex = ARGV[3]
+
+local totalStockKey = KEYS[1] .. productId .. ":total"
+if redis.call("EXISTS", totalStockKey) == 0 then
+    return -1
+end
+if units <= 0 then
+    return tonumber(redis.call("GET", totalStockKey))
+end
+
+redis.call("INCRBY", KEYS[1] .. productId .. ":bucket_" .. bucketIndex, units)
+return redis.call("INCRBY", totalStockKey, units)
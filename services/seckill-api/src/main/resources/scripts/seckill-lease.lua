@@ -0,0 +1,54 @@
+-- seckill_lease.lua
+-- 从商品的各个桶中原子地租借一批库存给某个 seckill-api 实例，由实例在本地内存中扣减。
+-- KEYS:
+--   KEYS[1] = stockKeyPrefix, e.g. "seckill:stock:"
+-- ARGV:
+--   ARGV[1] = productId
+--   ARGV[2] = 期望租借的数量
+--   ARGV[3] = bucketCount
+--
+-- 返回：{ leased, remainingTotal }
+--   leased         = 实际租到的数量（可能小于期望值，库存不足时为 0）
+--   remainingTotal = 租借后 Redis 中剩余（未被租借）的总库存；total key 不存在时为 -1，
+--                    售罄/空值哨兵（-1）按 0 返回，以便调用方区分“已售罄”与“key 丢失”
+
+local productId = ARGV[1]
+local requested = tonumber(ARGV[2]) or 0
+local bucketCount = tonumber(ARGV[3]) or 1
+
+local totalStockKey = KEYS[1] .. productId .. ":total"
+
+local totalStockRaw = redis.call("GET", totalStockKey)
+if not totalStockRaw then
+    return { 0, -1 }
+end
+local totalStock = tonumber(totalStockRaw) or 0
+if totalStock <= 0 or requested <= 0 then
+    return { 0, math.max(totalStock, 0) }
+end
+
+local need = math.min(requested, totalStock)
+local leased = 0
+for bucketIndex = 1, bucketCount do
+    if need <= 0 then
+        break
+    end
+    local bucketKey = KEYS[1] .. productId .. ":bucket_" .. bucketIndex
+    local remainingRaw = redis.call("GET", bucketKey)
+    local remaining = 0
+    if remainingRaw then
+        remaining = tonumber(remainingRaw) or 0
+    end
+    if remaining > 0 then
+        local take = math.min(remaining, need)
+        redis.call("DECRBY", bucketKey, take)
+        need = need - take
+        leased = leased + take
+    end
+end
+
+if leased > 0 then
+    totalStock = tonumber(redis.call("DECRBY", totalStockKey, leased))
+end
+
+return { leased, totalStock }
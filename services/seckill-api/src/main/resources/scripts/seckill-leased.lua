@@ -0,0 +1,39 @@
+-- seckill_leased.lua
+-- 租借模式下的下单脚本：库存已在实例本地扣减，这里只负责去重与写 outbox，不触碰任何库存 key。
+-- KEYS:
+--   KEYS[1] = userSetKeyPrefix, e.g. "seckill:users:"
+--   KEYS[2] = streamKeyPrefix, e.g. "seckill:stream:"
+-- ARGV:
+--   ARGV[1] = userId
+--   ARGV[2] = productId
+--   ARGV[3] = requestId
+--   ARGV[4] = 购买标记方式："set"（默认）或 "bitmap"
+--   ARGV[5] = bitmap 模式下每段位图覆盖的 userId 数量
+--
+-- 返回码：0 = 成功（已标记用户并写 stream），1 = 重复购买（调用方需把本地扣减的库存还回租约）
+
+local userId = ARGV[1]
+local productId = ARGV[2]
+local requestId = ARGV[3]
+local markerMode = ARGV[4] or "set"
+local markerSegmentBits = tonumber(ARGV[5] or "0") or 0
+
+local userSetKey = KEYS[1] .. productId
+local streamKey = KEYS[2] .. productId
+
+if markerMode == "bitmap" then
+    -- SETBIT 返回旧值，一次调用即可完成“检查并标记”
+    local numericId = tonumber(userId)
+    local markerKey = userSetKey .. ":bm:" .. math.floor(numericId / markerSegmentBits)
+    if redis.call("SETBIT", markerKey, numericId % markerSegmentBits, 1) == 1 then
+        return 1
+    end
+elseif redis.call("SADD", userSetKey, userId) == 0 then
+    return 1
+end
+
+-- outbox v2 格式，同 seckill.lua；租借模式不区分桶，bucket 固定为 0
+local payload = "\2" .. requestId .. ":" .. userId .. ":" .. productId .. ":0"
+redis.call("XADD", streamKey, "*", "payload", payload)
+
+return 0
@@ -0,0 +1,66 @@
+-- seckill_rebalance.lua
+-- 桶库存再平衡：当各桶剩余库存的差距超过阈值时，把剩余库存重新均分到所有桶，
+-- 避免用户被固定到已空的桶上收到 BUCKET_EMPTY，而其他桶里还有库存。
+-- 脚本内读取并改写全部桶，整个过程原子完成，不会与扣减脚本交错。
+-- KEYS:
+--   KEYS[1] = stockKeyPrefix, e.g. "seckill:stock:"
+-- ARGV:
+--   ARGV[1] = productId
+--   ARGV[2] = bucketCount
+--   ARGV[3] = 触发阈值：max(桶库存) - min(桶库存) 大于该值时才再平衡
+--
+-- 返回：{ moved, stock_1, ..., stock_n }
+--   moved   = 本次被移动的库存件数；-1 表示有桶 key 不存在（未预热或已过期），未做任何修改
+--   stock_i = 执行后第 i 个桶的剩余库存
+-- 均分规则与 Java 侧预热一致：余数逐个分给前 remainder 个桶。写回时保留原有 TTL（KEEPTTL，Redis >= 6.0）。
+
+local productId = ARGV[1]
+local bucketCount = tonumber(ARGV[2]) or 1
+local threshold = tonumber(ARGV[3]) or 1
+
+local stocks = {}
+local sum = 0
+local minStock = nil
+local maxStock = nil
+for i = 1, bucketCount do
+    local raw = redis.call("GET", KEYS[1] .. productId .. ":bucket_" .. i)
+    if not raw then
+        return { -1 }
+    end
+    local stock = math.max(tonumber(raw) or 0, 0)
+    stocks[i] = stock
+    sum = sum + stock
+    if not minStock or stock < minStock then
+        minStock = stock
+    end
+    if not maxStock or stock > maxStock then
+        maxStock = stock
+    end
+end
+
+local result = { 0 }
+if maxStock - minStock <= threshold then
+    for i = 1, bucketCount do
+        result[i + 1] = stocks[i]
+    end
+    return result
+end
+
+local base = math.floor(sum / bucketCount)
+local remainder = sum % bucketCount
+local moved = 0
+for i = 1, bucketCount do
+    local target = base
+    if i <= remainder then
+        target = target + 1
+    end
+    if target > stocks[i] then
+        moved = moved + (target - stocks[i])
+    end
+    if target ~= stocks[i] then
+        redis.call("SET", KEYS[1] .. productId .. ":bucket_" .. i, target, "KEEPTTL")
+    end
+    result[i + 1] = target
+end
+result[1] = moved
+return result
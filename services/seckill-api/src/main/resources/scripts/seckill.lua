@@ -8,11 +8,18 @@
 --   ARGV[2] = productId
 --   ARGV[3] = bucketIndex
 --   ARGV[4] = requestId
+--   ARGV[5] = bucketCount（可选）。大于 1 时启用桶遍历模式：从 ARGV[3] 指定的桶开始，
+--             在脚本内依次尝试其余 :bucket_N，一次调用内完成多桶扣减
+--   ARGV[6] = 购买标记方式（可选）："set"（默认）或 "bitmap"
+--   ARGV[7] = bitmap 模式下每段位图覆盖的 userId 数量
 
 local userId = ARGV[1]
 local productId = ARGV[2]
 local bucketIndex = ARGV[3]
 local requestId = ARGV[4]
+local bucketCount = tonumber(ARGV[5] or "0") or 0
+local markerMode = ARGV[6] or "set"
+local markerSegmentBits = tonumber(ARGV[7] or "0") or 0
 
 -- construct keys (keep same pattern as your Java side)
 local totalStockKey = KEYS[1] .. productId .. ":total"
@@ -20,57 +27,105 @@ local stockBucketKey = KEYS[1] .. productId .. ":bucket_" .. bucketIndex
 local userSetKey = KEYS[2] .. productId
 local streamKey = KEYS[3] .. productId
 
+-- 购买标记：set = SISMEMBER/SADD 十进制 userId；bitmap = 按 userId 分段的位图 GETBIT/SETBIT，
+-- 段 key 为 <userSetKey>:bm:<userId / segmentBits>，段内偏移为 userId % segmentBits（要求 userId 为非负整数）
+local function markerLocation(uid)
+    local numericId = tonumber(uid)
+    local segment = math.floor(numericId / markerSegmentBits)
+    return userSetKey .. ":bm:" .. segment, numericId % markerSegmentBits
+end
+
+local function isMarked(uid)
+    if markerMode == "bitmap" then
+        local key, offset = markerLocation(uid)
+        return redis.call("GETBIT", key, offset) == 1
+    end
+    return redis.call("SISMEMBER", userSetKey, uid) == 1
+end
+
+local function mark(uid)
+    if markerMode == "bitmap" then
+        local key, offset = markerLocation(uid)
+        redis.call("SETBIT", key, offset, 1)
+    else
+        redis.call("SADD", userSetKey, uid)
+    end
+end
+
 -- 返回码说明（调用端请依据业务处理）:
 -- 0 = 成功 (已减库存并已写 stream)
 -- 1 = 重复购买 (user 已在 set 中)
 -- 2 = 总库存已售罄
--- 3 = 当前桶已空 (try another bucket)
+-- 3 = 当前桶已空 (try another bucket)；桶遍历模式下表示所有桶均已空
+-- 4 = totalStockKey 不存在（未预热、TTL 过期或故障切换后丢失），调用方应重建缓存后重试
 -- 99 = 脚本内部错误（建议记录/告警并重试）
 
--- 1) 检查总库存（如果 totalStockKey 不存在或 <=0，视为售罄）
+-- 1) 检查总库存（key 不存在返回 4 交给调用方重建；<=0 为售罄或空值哨兵）
 local totalStockRaw = redis.call("GET", totalStockKey)
-local totalStock = nil
-if totalStockRaw then
-    totalStock = tonumber(totalStockRaw)
+if not totalStockRaw then
+    return 4
 end
+local totalStock = tonumber(totalStockRaw)
 if (not totalStock or totalStock <= 0) then
     return 2
 end
 
 -- 2) 检查是否已购买
-if redis.call("SISMEMBER", userSetKey, userId) == 1 then
+if isMarked(userId) then
     return 1
 end
 
--- 3) 扣减桶库存（DECR 在 key 不存在时会创建并返回 -1/-n，注意提前加载桶）
-local stock = redis.call("DECR", stockBucketKey)
-stock = tonumber(stock)
+-- 3) 扣减桶库存
+if bucketCount > 1 then
+    -- 桶遍历模式：先 GET 再 DECR，空桶只读不写，避免无谓的 DECR/INCR 回滚
+    local startIndex = tonumber(bucketIndex)
+    local chosenIndex = nil
+    for offset = 0, bucketCount - 1 do
+        local candidate = ((startIndex - 1 + offset) % bucketCount) + 1
+        local candidateKey = KEYS[1] .. productId .. ":bucket_" .. candidate
+        local remainingRaw = redis.call("GET", candidateKey)
+        local remaining = 0
+        if remainingRaw then
+            remaining = tonumber(remainingRaw) or 0
+        end
+        if remaining > 0 then
+            redis.call("DECR", candidateKey)
+            chosenIndex = candidate
+            break
+        end
+    end
+    if not chosenIndex then
+        return 3
+    end
+    bucketIndex = tostring(chosenIndex)
+else
+    -- 单桶模式（DECR 在 key 不存在时会创建并返回 -1/-n，注意提前加载桶）
+    local stock = redis.call("DECR", stockBucketKey)
+    stock = tonumber(stock)
 
-if (not stock) then
-    -- 不应发生：表示 bucketKey 未被初始化或脚本执行异常
-    -- 尽量返回错误码，由调用方决定重试/降级
-    -- 不尝试手工修复，返回 99
-    return 99
-end
+    if (not stock) then
+        -- 不应发生：表示 bucketKey 未被初始化或脚本执行异常
+        -- 尽量返回错误码，由调用方决定重试/降级
+        -- 不尝试手工修复，返回 99
+        return 99
+    end
 
-if (stock < 0) then
-    -- 超卖保护：将扣减回滚（将负数加回）
-    redis.call("INCR", stockBucketKey)
-    return 3
+    if (stock < 0) then
+        -- 超卖保护：将扣减回滚（将负数加回）
+        redis.call("INCR", stockBucketKey)
+        return 3
+    end
 end
 
 -- 4) 减总库存并标记用户
 redis.call("DECR", totalStockKey)
-redis.call("SADD", userSetKey, userId)
+mark(userId)
 
 -- 5) 生成 payload 并写入 Redis Stream（作为 outbox）
-local payload = cjson.encode({
-    requestId = requestId,
-    userId = userId,
-    productId = productId,
-    bucket = bucketIndex,
-    ts = tostring(redis.call("TIME")[1])  -- 可选时间戳 (seconds)
-})
+-- v2 格式：版本字节 0x02 + 以 ':' 分隔的十进制字段 requestId:userId:productId:bucket。
+-- 直接拼接 ARGV 字符串，不做 JSON 编码，也不调用 TIME（下单时间可从 Snowflake requestId 还原）。
+-- Lua 数字是双精度浮点，无法无损表示 63 位 requestId，因此字段保持十进制文本而不是定长整数。
+local payload = "\2" .. requestId .. ":" .. userId .. ":" .. productId .. ":" .. bucketIndex
 
 -- XADD: 将事件追加到 stream（streamKey），条目 field = "payload"
 -- 注意：若 XADD 失败会抛出错误（极少见，需在运维层面保障）
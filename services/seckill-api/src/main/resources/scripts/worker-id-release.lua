@@ -0,0 +1,11 @@
+-- worker-id-release.lua
+-- 实例关闭时归还 workerId，仅当租约仍属于本实例时删除。
+-- KEYS[1] = <workerIdKeyPrefix><workerId>
+-- ARGV[1] = 实例令牌
+--
+-- 返回：1 = 已归还，0 = 租约不存在或不属于本实例
+
+if redis.call("GET", KEYS[1]) == ARGV[1] then
+    return redis.call("DEL", KEYS[1])
+end
+return 0
@@ -0,0 +1,18 @@
+-- worker-id-renew.lua
+-- 续期 Snowflake workerId 租约；租约已过期且未被占用时重新占有。
+-- KEYS[1] = <workerIdKeyPrefix><workerId>
+-- ARGV[1] = 实例令牌
+-- ARGV[2] = 租约有效期（毫秒）
+--
+-- 返回：1 = 本实例仍持有该 workerId，0 = 已被其他实例占用
+
+local holder = redis.call("GET", KEYS[1])
+if holder == false then
+    redis.call("SET", KEYS[1], ARGV[1], "PX", ARGV[2])
+    return 1
+end
+if holder == ARGV[1] then
+    redis.call("PEXPIRE", KEYS[1], ARGV[2])
+    return 1
+end
+return 0
@@ -0,0 +1,45 @@
+package com.example.seckillsystem.service.result;
+
+import com.example.seckillsystem.service.dto.OrderStatus;
+import com.example.seckillsystem.service.result.OrderResultService.StoredResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class StoredResultTests {
+
+    @Test
+    void parsesStatusCodeAndUserId() {
+        assertEquals(new StoredResult(OrderStatus.CREATED, 42L), StoredResult.parse("C:42"));
+        assertEquals(new StoredResult(OrderStatus.FAILED, 7L), StoredResult.parse("F:7"));
+        assertEquals(new StoredResult(OrderStatus.REJECTED, 1L), StoredResult.parse("R:1"));
+    }
+
+    @Test
+    void acceptsNonStringValues() {
+        Object raw = new StringBuilder("C:9");
+        assertEquals(new StoredResult(OrderStatus.CREATED, 9L), StoredResult.parse(raw));
+    }
+
+    @Test
+    void rejectsMalformedValues() {
+        assertNull(StoredResult.parse(null));
+        assertNull(StoredResult.parse(""));
+        assertNull(StoredResult.parse("C"));
+        assertNull(StoredResult.parse("C42"));
+        assertNull(StoredResult.parse("CC:42"));
+        assertNull(StoredResult.parse("X:42"));
+        assertNull(StoredResult.parse("C:"));
+        assertNull(StoredResult.parse("C:abc"));
+    }
+
+    @Test
+    void resultIsOnlyVisibleToTheBuyer() {
+        StoredResult stored = new StoredResult(OrderStatus.CREATED, 42L);
+        assertEquals(Optional.of(OrderStatus.CREATED), stored.visibleTo(42L));
+        assertEquals(Optional.empty(), stored.visibleTo(43L));
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.seckillsystem.bench;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Controller 入口处 {@code BloomFilter.mightContain} 的开销。
+ * <ul>
+ *     <li>{@code sizing=production}：与 {@code CacheConfig} 相同的 10000 预期条目、1% 误判率；
+ *     商品数超过 10000 时误判率上升，位数组大小不变。</li>
+ *     <li>{@code sizing=catalog}：按实际商品数创建，位数组随商品数增长（更大的商品表会落出 CPU 缓存）。</li>
+ * </ul>
+ * hit 查询已登记的商品 ID，miss 查询从未登记的 ID（即防穿透要拦截的请求）。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BloomFilterBenchmark {
+
+    /**
+     * 与 {@code CacheConfig#productBloomFilter} 保持一致。
+     */
+    private static final int PRODUCTION_EXPECTED_INSERTIONS = 10_000;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final int PROBE_MASK = (1 << 12) - 1;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int catalogSize;
+
+    @Param({"production", "catalog"})
+    public String sizing;
+
+    private BloomFilter<Long> filter;
+    private final long[] hitIds = new long[PROBE_MASK + 1];
+    private final long[] missIds = new long[PROBE_MASK + 1];
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int expected = "catalog".equals(sizing) ? catalogSize : PRODUCTION_EXPECTED_INSERTIONS;
+        filter = BloomFilter.create(Funnels.longFunnel(), expected, FALSE_POSITIVE_RATE);
+        for (long id = 1; id <= catalogSize; id++) {
+            filter.put(id);
+        }
+        // 探测 ID 预先生成并打散，避免每次都命中同一组缓存行
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i <= PROBE_MASK; i++) {
+            hitIds[i] = 1 + random.nextLong(catalogSize);
+            missIds[i] = catalogSize + 1 + random.nextLong(Long.MAX_VALUE - catalogSize - 1);
+        }
+    }
+
+    @Benchmark
+    public boolean mightContainHit() {
+        return filter.mightContain(hitIds[cursor++ & PROBE_MASK]);
+    }
+
+    @Benchmark
+    public boolean mightContainMiss() {
+        return filter.mightContain(missIds[cursor++ & PROBE_MASK]);
+    }
+}
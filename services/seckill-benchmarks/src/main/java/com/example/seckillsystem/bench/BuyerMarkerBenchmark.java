@@ -0,0 +1,149 @@
+package com.example.seckillsystem.bench;
+
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.ScanIterator;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import io.lettuce.core.api.sync.RedisCommands;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 购买标记（SET vs 分段 BITMAP）的内存与延迟对比，直接连本地 redis-server 运行：
+ * <pre>
+ * java -cp target/benchmarks.jar com.example.seckillsystem.bench.BuyerMarkerBenchmark \
+ *     redis://localhost:6379 1000000 1 1048576
+ * </pre>
+ * 参数依次为 Redis URI、购买者数量、userId 步长（大于 1 模拟稀疏 ID）、位图段大小。
+ * 输出两种方式的总内存（MEMORY USAGE）、流水线批量查询的平均耗时和逐条同步查询的 p50/p99。
+ */
+public final class BuyerMarkerBenchmark {
+
+    private static final String SET_KEY = "bench:marker:set";
+    private static final String BITMAP_PREFIX = "bench:marker:set:bm:";
+    private static final int PIPELINE_BATCH = 1000;
+    private static final int SYNC_SAMPLES = 20_000;
+
+    private BuyerMarkerBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String uri = args.length > 0 ? args[0] : "redis://localhost:6379";
+        int buyers = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        long stride = args.length > 2 ? Long.parseLong(args[2]) : 1L;
+        long segmentBits = args.length > 3 ? Long.parseLong(args[3]) : 1L << 20;
+
+        RedisClient client = RedisClient.create(uri);
+        try (StatefulRedisConnection<String, String> connection = client.connect()) {
+            RedisCommands<String, String> sync = connection.sync();
+            cleanup(sync);
+
+            long[] userIds = new long[buyers];
+            for (int i = 0; i < buyers; i++) {
+                userIds[i] = 10_000_000L + i * stride;
+            }
+
+            long setLoadNanos = load(connection, userIds, (async, id) ->
+                    async.sadd(SET_KEY, String.valueOf(id)));
+            long bitmapLoadNanos = load(connection, userIds, (async, id) ->
+                    async.setbit(BITMAP_PREFIX + Math.floorDiv(id, segmentBits), Math.floorMod(id, segmentBits), 1));
+
+            long setBytes = sync.memoryUsage(SET_KEY);
+            long bitmapBytes = 0;
+            int segments = 0;
+            ScanIterator<String> scan = ScanIterator.scan(sync, ScanArgs.Builder.matches(BITMAP_PREFIX + "*").limit(1000));
+            while (scan.hasNext()) {
+                bitmapBytes += sync.memoryUsage(scan.next());
+                segments++;
+            }
+
+            long setLookupNanos = load(connection, userIds, (async, id) ->
+                    async.sismember(SET_KEY, String.valueOf(id)));
+            long bitmapLookupNanos = load(connection, userIds, (async, id) ->
+                    async.getbit(BITMAP_PREFIX + Math.floorDiv(id, segmentBits), Math.floorMod(id, segmentBits)));
+
+            long[] setLatency = sampleLatency(userIds, id -> sync.sismember(SET_KEY, String.valueOf(id)));
+            long[] bitmapLatency = sampleLatency(userIds, id ->
+                    sync.getbit(BITMAP_PREFIX + Math.floorDiv(id, segmentBits), Math.floorMod(id, segmentBits)));
+
+            System.out.printf("buyers=%d stride=%d segmentBits=%d%n", buyers, stride, segmentBits);
+            System.out.printf("%-8s %14s %10s %16s %18s %10s %10s%n",
+                    "marker", "memory(bytes)", "keys", "load(ns/op)", "lookup(ns/op)", "p50(us)", "p99(us)");
+            System.out.printf("%-8s %14d %10d %16d %18d %10.1f %10.1f%n", "SET", setBytes, 1,
+                    setLoadNanos / buyers, setLookupNanos / buyers, setLatency[0] / 1000.0, setLatency[1] / 1000.0);
+            System.out.printf("%-8s %14d %10d %16d %18d %10.1f %10.1f%n", "BITMAP", bitmapBytes, segments,
+                    bitmapLoadNanos / buyers, bitmapLookupNanos / buyers,
+                    bitmapLatency[0] / 1000.0, bitmapLatency[1] / 1000.0);
+
+            cleanup(sync);
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    private static long load(StatefulRedisConnection<String, String> connection, long[] userIds,
+                             PipelinedCall call) throws Exception {
+        RedisAsyncCommands<String, String> async = connection.async();
+        connection.setAutoFlushCommands(false);
+        long start = System.nanoTime();
+        try {
+            List<RedisFuture<?>> inFlight = new ArrayList<>(PIPELINE_BATCH);
+            for (long id : userIds) {
+                inFlight.add(call.apply(async, id));
+                if (inFlight.size() == PIPELINE_BATCH) {
+                    connection.flushCommands();
+                    awaitAll(inFlight);
+                }
+            }
+            connection.flushCommands();
+            awaitAll(inFlight);
+        } finally {
+            connection.setAutoFlushCommands(true);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void awaitAll(List<RedisFuture<?>> futures) throws Exception {
+        for (RedisFuture<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        futures.clear();
+    }
+
+    private static long[] sampleLatency(long[] userIds, SyncCall call) {
+        long[] samples = new long[Math.min(SYNC_SAMPLES, userIds.length)];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < samples.length; i++) {
+            long id = userIds[random.nextInt(userIds.length)];
+            long start = System.nanoTime();
+            call.apply(id);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return new long[]{samples[samples.length / 2], samples[(int) (samples.length * 0.99)]};
+    }
+
+    private static void cleanup(RedisCommands<String, String> sync) {
+        sync.del(SET_KEY);
+        ScanIterator<String> scan = ScanIterator.scan(sync, ScanArgs.Builder.matches(BITMAP_PREFIX + "*").limit(1000));
+        while (scan.hasNext()) {
+            sync.del(scan.next());
+        }
+    }
+
+    @FunctionalInterface
+    private interface PipelinedCall {
+        RedisFuture<?> apply(RedisAsyncCommands<String, String> async, long userId);
+    }
+
+    @FunctionalInterface
+    private interface SyncCall {
+        Object apply(long userId);
+    }
+}
@@ -0,0 +1,293 @@
+package com.example.seckillsystem.bench;
+
+import com.example.orderservice.consumer.OrderPayloadDecoder;
+import com.example.orderservice.consumer.OrderProcessingService;
+import com.example.orderservice.consumer.OrderStreamMessage;
+import com.example.orderservice.consumer.SeckillOrderRabbitListener;
+import com.example.orderservice.stream.OrderStreamConsumer;
+import com.example.orderservice.stream.OrderStreamProperties;
+import com.example.relayservice.config.RedisConfig;
+import com.example.relayservice.config.RelayProperties;
+import com.example.relayservice.config.RelayProperties.StreamBinding;
+import com.example.relayservice.metrics.RelayMetrics;
+import com.example.relayservice.partition.RelayMembership;
+import com.example.relayservice.partition.StreamAssignment;
+import com.example.relayservice.relay.FlowControl;
+import com.example.relayservice.relay.RedisStreamRelay;
+import com.example.streamsupport.StreamBookkeeping;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 对比 order-service 的两种接入方式从 XADD 到 {@link OrderProcessingService#handle} 的端到端延迟与吞吐，
+ * 在本地 redis-server（见 {@link LocalRedisServer}）上运行：
+ * <ul>
+ *     <li>{@code relay}：{@link RedisStreamRelay} 发布到一个内存中的假 broker，broker 在 {@code --broker-hop-micros}
+ *     后返回 confirm、同样延迟后投递给 {@link SeckillOrderRabbitListener}；</li>
+ *     <li>{@code stream}：{@link OrderStreamConsumer} 直接以消费组读取 stream。</li>
+ * </ul>
+ * 两种模式都用同一个不访问数据库的 {@link OrderProcessingService} 替身，因此差异只来自接入路径本身。
+ * 生产端以 {@code --rate} 条/秒匀速 XADD，载荷格式与 seckill-api 的 Lua 脚本一致。
+ * <pre>
+ * java -cp services/seckill-benchmarks/target/benchmarks.jar \
+ *     com.example.seckillsystem.bench.IngestPathBenchmark --messages=100000 --rate=20000 --broker-hop-micros=200
+ * </pre>
+ */
+public final class IngestPathBenchmark {
+
+    private static final String STREAM_KEY = "seckill:stream:1";
+    private static final long USER_ID_BASE = 1_000_000L;
+
+    private IngestPathBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int messages = intArg(args, "messages", 100_000);
+        int rate = intArg(args, "rate", 20_000);
+        int batchSize = intArg(args, "batch-size", 100);
+        int brokerHopMicros = intArg(args, "broker-hop-micros", 200);
+
+        try (LocalRedisServer redisServer = LocalRedisServer.start()) {
+            StringRedisTemplate redisTemplate = new StringRedisTemplate(redisServer.connectionFactory());
+            Result relay = runRelay(redisTemplate, messages, rate, batchSize, brokerHopMicros);
+            Result stream = runStream(redisTemplate, messages, rate, batchSize);
+
+            System.out.printf("%nmessages=%d rate=%d/s batch-size=%d broker-hop=%dus%n",
+                    messages, rate, batchSize, brokerHopMicros);
+            System.out.printf("%-8s %10s %10s %10s %10s %10s%n", "path", "msg/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+            relay.print("relay");
+            stream.print("stream");
+        }
+    }
+
+    private static Result runRelay(StringRedisTemplate redisTemplate, int messages, int rate,
+                                   int batchSize, int brokerHopMicros) throws Exception {
+        resetStream(redisTemplate, "relay-group");
+        RelayProperties properties = new RelayProperties();
+        properties.setBatchSize(batchSize);
+        properties.setBlockTimeout(Duration.ofMillis(10));
+        properties.setInstanceId("relay-bench");
+        properties.getDiscovery().setEnabled(false);
+        StreamBinding binding = new StreamBinding();
+        binding.setStreamKey(STREAM_KEY);
+        binding.setGroup("relay-group");
+        binding.setExchange("seckill.exchange");
+        binding.setRoutingKey("seckill.order.created");
+        properties.setStreams(List.of(binding));
+
+        RedisConfig redisConfig = new RedisConfig();
+        StreamAssignment assignment = new StreamAssignment(redisTemplate, redisConfig.leaseAcquireScript(),
+                redisConfig.leaseReleaseScript(), properties,
+                new RelayMembership(redisTemplate, properties));
+        assignment.afterPropertiesSet();
+        InMemoryBroker broker = new InMemoryBroker(brokerHopMicros);
+        RelayMetrics metrics = new RelayMetrics(redisTemplate, assignment, new SimpleMeterRegistry());
+        RedisStreamRelay relay = new RedisStreamRelay(redisTemplate,
+                redisConfig.streamPayloadTemplate(redisTemplate.getConnectionFactory()), broker, properties,
+                new StreamBookkeeping(redisTemplate), new FlowControl(properties, metrics));
+        relay.afterPropertiesSet();
+        StreamBinding active = assignment.activeBindings().get(0);
+
+        RecordingProcessingService processing = new RecordingProcessingService(messages);
+        SeckillOrderRabbitListener listener =
+                new SeckillOrderRabbitListener(new OrderPayloadDecoder(new ObjectMapper()), processing);
+
+        Thread relayThread = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted() && processing.done.getCount() > 0) {
+                long backoffNanos = relay.backoffNanos(active);
+                if (backoffNanos > 0) {
+                    LockSupport.parkNanos(backoffNanos);
+                }
+                relay.poll(active);
+            }
+        }, "bench-relay");
+        Thread listenerThread = new Thread(() -> {
+            try {
+                while (processing.done.getCount() > 0) {
+                    Message message = broker.deliveries.poll(100, TimeUnit.MILLISECONDS);
+                    if (message != null) {
+                        listener.handle(message);
+                    }
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }, "bench-listener");
+        relayThread.start();
+        listenerThread.start();
+
+        long elapsed = produce(redisTemplate, processing, messages, rate);
+        relayThread.join();
+        listenerThread.join();
+        broker.shutdown();
+        assignment.destroy();
+        return new Result(elapsed, messages, processing.latencies);
+    }
+
+    private static Result runStream(StringRedisTemplate redisTemplate, int messages, int rate,
+                                    int batchSize) throws Exception {
+        OrderStreamProperties properties = new OrderStreamProperties();
+        resetStream(redisTemplate, properties.getGroup());
+        properties.setConsumerName("order-bench");
+        properties.setRegistryKey("");
+        properties.setKeys(List.of(STREAM_KEY));
+        properties.setBatchSize(batchSize);
+        properties.setBlockTimeout(Duration.ofMillis(10));
+        properties.setDiscoveryInterval(Duration.ofSeconds(1));
+
+        RecordingProcessingService processing = new RecordingProcessingService(messages);
+        OrderStreamConsumer consumer = new OrderStreamConsumer(redisTemplate, properties,
+                new OrderPayloadDecoder(new ObjectMapper()), processing, null, properties.getMaxStreams() + 2);
+        consumer.start();
+        long elapsed = produce(redisTemplate, processing, messages, rate);
+        consumer.stop();
+        return new Result(elapsed, messages, processing.latencies);
+    }
+
+    /**
+     * 以固定速率 XADD，每条记下发送时刻；返回从第一条发送到最后一条处理完成的耗时。
+     */
+    private static long produce(StringRedisTemplate redisTemplate, RecordingProcessingService processing,
+                                int messages, int rate) throws InterruptedException {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, rate);
+        long start = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            long due = start + i * intervalNanos;
+            while (System.nanoTime() < due) {
+                Thread.onSpinWait();
+            }
+            String payload = "\u0002" + (7169392345678901234L + i) + ":" + (USER_ID_BASE + i) + ":1:" + (i % 10 + 1);
+            processing.sentAt[i] = System.nanoTime();
+            redisTemplate.opsForStream().add(StreamRecords.newRecord()
+                    .in(STREAM_KEY)
+                    .ofMap(Collections.singletonMap("payload", payload)));
+        }
+        if (!processing.done.await(60, TimeUnit.SECONDS)) {
+            System.out.printf("Timed out with %d messages unprocessed%n", processing.done.getCount());
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void resetStream(StringRedisTemplate redisTemplate, String group) {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        });
+        redisTemplate.opsForStream().add(StreamRecords.newRecord()
+                .in(STREAM_KEY)
+                .ofMap(Collections.singletonMap("bootstrap", "1")));
+        redisTemplate.opsForStream().trim(STREAM_KEY, 0);
+        redisTemplate.opsForStream().createGroup(STREAM_KEY, ReadOffset.latest(), group);
+    }
+
+    private static int intArg(String[] args, String name, int defaultValue) {
+        String prefix = "--" + name + "=";
+        for (String arg : args) {
+            if (arg.startsWith(prefix)) {
+                return Integer.parseInt(arg.substring(prefix.length()));
+            }
+        }
+        return defaultValue;
+    }
+
+    private record Result(long elapsedNanos, int messages, long[] latencies) {
+
+        void print(String path) {
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            System.out.printf("%-8s %10.0f %10.3f %10.3f %10.3f %10.3f%n", path,
+                    messages / (elapsedNanos / 1e9),
+                    percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.99) / 1e6,
+                    percentile(sorted, 0.999) / 1e6, sorted[sorted.length - 1] / 1e6);
+        }
+
+        private static long percentile(long[] sorted, double p) {
+            return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+        }
+    }
+
+    /**
+     * 不访问数据库的 {@link OrderProcessingService}：按 userId 记下从 XADD 到处理的延迟，重复投递只计第一次。
+     */
+    private static final class RecordingProcessingService extends OrderProcessingService {
+
+        private final long[] sentAt;
+        private final long[] latencies;
+        private final boolean[] seen;
+        private final CountDownLatch done;
+
+        private RecordingProcessingService(int messages) {
+            super(null, null, null);
+            this.sentAt = new long[messages];
+            this.latencies = new long[messages];
+            this.seen = new boolean[messages];
+            this.done = new CountDownLatch(messages);
+        }
+
+        @Override
+        public synchronized void handle(OrderStreamMessage message) {
+            int index = (int) (message.getUserId() - USER_ID_BASE);
+            if (!seen[index]) {
+                seen[index] = true;
+                latencies[index] = System.nanoTime() - sentAt[index];
+                done.countDown();
+            }
+        }
+    }
+
+    /**
+     * 内存中的 broker：{@code send} 之后经过一跳延迟返回 confirm，同时再经过一跳把消息放入投递队列。
+     */
+    private static final class InMemoryBroker extends RabbitTemplate {
+
+        private final BlockingQueue<Message> deliveries = new LinkedBlockingQueue<>();
+        private final ScheduledExecutorService network = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "bench-broker");
+            t.setDaemon(true);
+            return t;
+        });
+        private final long hopMicros;
+
+        private InMemoryBroker(long hopMicros) {
+            this.hopMicros = hopMicros;
+        }
+
+        @Override
+        public <T> T invoke(OperationsCallback<T> action,
+                            com.rabbitmq.client.ConfirmCallback acks,
+                            com.rabbitmq.client.ConfirmCallback nacks) {
+            return action.doInRabbit(this);
+        }
+
+        @Override
+        public void send(String exchange, String routingKey, Message message, CorrelationData correlationData) {
+            network.schedule(() -> {
+                deliveries.add(message);
+                correlationData.getFuture().set(new CorrelationData.Confirm(true, null));
+            }, hopMicros, TimeUnit.MICROSECONDS);
+        }
+
+        private void shutdown() {
+            network.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.seckillsystem.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 对比两次 JMH JSON 结果：
+ * <pre>
+ * java -cp services/seckill-benchmarks/target/benchmarks.jar com.example.seckillsystem.bench.JmhResultDiff \
+ *     jmh-results/base.json jmh-results/head.json 5
+ * </pre>
+ * 按“benchmark + 参数”逐项输出两次分数与变化百分比。第三个参数为容忍的回退百分比（默认 5），
+ * 任意一项回退超过该值时以退出码 1 结束，可直接用于 CI。
+ * 回退方向由分数单位决定：时间类单位（{@code ns/op} 等）越大越差，吞吐类单位（{@code ops/s} 等）越小越差。
+ */
+public final class JmhResultDiff {
+
+    private JmhResultDiff() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: JmhResultDiff <baseline.json> <candidate.json> [tolerancePercent]");
+            System.exit(2);
+        }
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) : 5.0;
+        Map<String, Score> baseline = load(new File(args[0]));
+        Map<String, Score> candidate = load(new File(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, Score> entry : candidate.entrySet()) {
+            Score before = baseline.get(entry.getKey());
+            Score after = entry.getValue();
+            if (before == null) {
+                System.out.printf("%-80s %14s -> %14.3f %s (new)%n", entry.getKey(), "-", after.value, after.unit);
+                continue;
+            }
+            double change = (after.value - before.value) / before.value * 100.0;
+            double regression = after.higherIsBetter() ? -change : change;
+            boolean regressed = regression > tolerance;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-80s %14.3f -> %14.3f %s (%+.1f%%)%s%n", entry.getKey(),
+                    before.value, after.value, after.unit, change, regressed ? "  REGRESSION" : "");
+        }
+        for (String removed : baseline.keySet()) {
+            if (!candidate.containsKey(removed)) {
+                System.out.printf("%-80s (missing in candidate)%n", removed);
+            }
+        }
+
+        if (regressions > 0) {
+            System.out.printf("%d benchmark(s) regressed by more than %.1f%%%n", regressions, tolerance);
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, Score> load(File file) throws IOException {
+        JsonNode root = new ObjectMapper().readTree(file);
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonNode run : root) {
+            StringBuilder key = new StringBuilder(run.path("benchmark").asText());
+            key.append(" [").append(run.path("mode").asText()).append(", threads=")
+                    .append(run.path("threads").asInt());
+            JsonNode params = run.path("params");
+            Map<String, String> sorted = new TreeMap<>();
+            for (Iterator<Map.Entry<String, JsonNode>> it = params.fields(); it.hasNext(); ) {
+                Map.Entry<String, JsonNode> param = it.next();
+                sorted.put(param.getKey(), param.getValue().asText());
+            }
+            sorted.forEach((name, value) -> key.append(", ").append(name).append('=').append(value));
+            key.append(']');
+
+            JsonNode metric = run.path("primaryMetric");
+            scores.put(key.toString(), new Score(metric.path("score").asDouble(), metric.path("scoreUnit").asText()));
+        }
+        return scores;
+    }
+
+    private record Score(double value, String unit) {
+
+        boolean higherIsBetter() {
+            return unit.startsWith("ops/");
+        }
+    }
+}
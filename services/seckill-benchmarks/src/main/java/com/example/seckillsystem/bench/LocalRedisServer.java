@@ -0,0 +1,86 @@
+package com.example.seckillsystem.bench;
+
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 压测专用的本地 redis-server 进程：关闭持久化，只监听 127.0.0.1，随 JMH fork 结束而销毁。
+ * <p>
+ * 可执行文件取自 {@code -Dbench.redis.server}（默认从 PATH 查找 {@code redis-server}），
+ * 端口取自 {@code -Dbench.redis.port}（默认 6390，避免与开发环境的 6379 冲突）。
+ * 由于进程只为压测启动，调用方可以放心执行 FLUSHDB。
+ */
+public final class LocalRedisServer implements AutoCloseable {
+
+    private final Process process;
+    private final int port;
+    private final LettuceConnectionFactory connectionFactory;
+
+    private LocalRedisServer(Process process, int port) {
+        this.process = process;
+        this.port = port;
+        this.connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("127.0.0.1", port));
+        this.connectionFactory.afterPropertiesSet();
+    }
+
+    public static LocalRedisServer start() throws IOException, InterruptedException {
+        String executable = System.getProperty("bench.redis.server", "redis-server");
+        int port = Integer.getInteger("bench.redis.port", 6390);
+        Process process = new ProcessBuilder(executable,
+                "--port", String.valueOf(port),
+                "--bind", "127.0.0.1",
+                "--save", "",
+                "--appendonly", "no")
+                .redirectErrorStream(true)
+                .redirectOutput(new File(System.getProperty("java.io.tmpdir"), "seckill-bench-redis.log"))
+                .start();
+        awaitPort(process, port);
+        return new LocalRedisServer(process, port);
+    }
+
+    public LettuceConnectionFactory connectionFactory() {
+        return connectionFactory;
+    }
+
+    public int port() {
+        return port;
+    }
+
+    private static void awaitPort(Process process, int port) throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IOException("redis-server exited with code " + process.exitValue()
+                        + " (is port " + port + " already in use?)");
+            }
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress("127.0.0.1", port), 200);
+                return;
+            } catch (IOException e) {
+                Thread.sleep(50);
+            }
+        }
+        process.destroyForcibly();
+        throw new IOException("redis-server did not start listening on port " + port);
+    }
+
+    @Override
+    public void close() {
+        connectionFactory.destroy();
+        process.destroy();
+        try {
+            if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            process.destroyForcibly();
+        }
+    }
+}
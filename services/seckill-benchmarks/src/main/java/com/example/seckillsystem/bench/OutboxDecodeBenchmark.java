@@ -0,0 +1,56 @@
+package com.example.seckillsystem.bench;
+
+import com.example.orderservice.consumer.OrderPayloadDecoder;
+import com.example.orderservice.consumer.OrderStreamMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * order-service 消费端解码 outbox 载荷的开销：旧版 cjson JSON（Jackson）对比 v2 紧凑格式（逐字节解析）。
+ * 配合 {@code -prof gc} 查看每条消息的分配量。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OutboxDecodeBenchmark {
+
+    @Param({"json", "v2"})
+    public String format;
+
+    private OrderPayloadDecoder decoder;
+    private byte[] body;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        decoder = new OrderPayloadDecoder(new ObjectMapper());
+        String requestId = "7169392345678901234";
+        String payload = "json".equals(format)
+                // 与 cjson.encode 的输出一致：数字字段在 ARGV 中是字符串
+                ? "{\"requestId\":\"" + requestId + "\",\"userId\":\"1000042\",\"productId\":\"1\","
+                        + "\"bucket\":\"3\",\"ts\":\"1718000000\"}"
+                : "\u0002" + requestId + ":1000042:1:3";
+        body = payload.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public OrderStreamMessage decode() throws Exception {
+        return decoder.decode(body);
+    }
+}
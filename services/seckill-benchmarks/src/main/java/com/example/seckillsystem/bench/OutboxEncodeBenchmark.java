@@ -0,0 +1,137 @@
+package com.example.seckillsystem.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Redis 端生成 outbox 条目的开销：把 seckill.lua 第 5 步单独拿出来，在本地 redis-server（见 {@link LocalRedisServer}）上
+ * 对比旧版 {@code cjson.encode + TIME} 与 v2 字符串拼接，两者都以相同参数执行 XADD（MAXLEN ~ 限制 Stream 长度）。
+ * <p>
+ * Redis 单线程执行脚本，客户端看到的延迟只反映了一部分差别；每个 trial 结束时额外打印 redis-server 在测量期间
+ * 消耗的 CPU（{@code INFO cpu}）与 EVALSHA 的平均耗时（{@code INFO commandstats}），以此比较服务端的每条成本。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OutboxEncodeBenchmark {
+
+    private static final String JSON_SCRIPT = """
+            local payload = cjson.encode({
+                requestId = ARGV[1],
+                userId = ARGV[2],
+                productId = ARGV[3],
+                bucket = ARGV[4],
+                ts = tostring(redis.call("TIME")[1])
+            })
+            redis.call("XADD", KEYS[1], "MAXLEN", "~", "10000", "*", "payload", payload)
+            return 0
+            """;
+
+    private static final String V2_SCRIPT = """
+            local payload = "\\2" .. ARGV[1] .. ":" .. ARGV[2] .. ":" .. ARGV[3] .. ":" .. ARGV[4]
+            redis.call("XADD", KEYS[1], "MAXLEN", "~", "10000", "*", "payload", payload)
+            return 0
+            """;
+
+    @Param({"json", "v2"})
+    public String format;
+
+    private LocalRedisServer redisServer;
+    private StringRedisTemplate redisTemplate;
+    private DefaultRedisScript<Long> script;
+    private List<String> keys;
+    private final AtomicLong requestIds = new AtomicLong(7169392345678901234L);
+
+    private double cpuBefore;
+    private long callsBefore;
+    private long usecBefore;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        redisServer = LocalRedisServer.start();
+        redisTemplate = new StringRedisTemplate(redisServer.connectionFactory());
+        script = new DefaultRedisScript<>("json".equals(format) ? JSON_SCRIPT : V2_SCRIPT, Long.class);
+        keys = Collections.singletonList("seckill:bench:outbox");
+        redisTemplate.execute(script, keys, "1", "1", "1", "0");
+
+        Properties cpu = info("cpu");
+        cpuBefore = cpuSeconds(cpu);
+        long[] stats = evalshaStats(info("commandstats"));
+        callsBefore = stats[0];
+        usecBefore = stats[1];
+    }
+
+    @Benchmark
+    public Long xadd() {
+        return redisTemplate.execute(script, keys,
+                Long.toString(requestIds.incrementAndGet()), "1000042", "1", "3");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        try {
+            double cpu = cpuSeconds(info("cpu")) - cpuBefore;
+            long[] stats = evalshaStats(info("commandstats"));
+            long calls = stats[0] - callsBefore;
+            long usec = stats[1] - usecBefore;
+            if (calls > 0) {
+                System.out.printf("%n[redis-server] format=%s calls=%d cpu=%.2fs (%.2fus/call) evalsha=%.2fus/call%n",
+                        format, calls, cpu, cpu * 1e6 / calls, (double) usec / calls);
+            }
+        } finally {
+            redisServer.close();
+        }
+    }
+
+    private Properties info(String section) {
+        Properties properties = redisTemplate.execute((RedisConnection connection) -> connection.info(section));
+        return properties == null ? new Properties() : properties;
+    }
+
+    private static double cpuSeconds(Properties cpu) {
+        return Double.parseDouble(cpu.getProperty("used_cpu_user", "0"))
+                + Double.parseDouble(cpu.getProperty("used_cpu_sys", "0"));
+    }
+
+    /**
+     * {@code cmdstat_evalsha:calls=N,usec=M,...}
+     */
+    private static long[] evalshaStats(Properties commandStats) {
+        String line = commandStats.getProperty("cmdstat_evalsha");
+        long calls = 0;
+        long usec = 0;
+        if (line != null) {
+            for (String part : line.split(",")) {
+                if (part.startsWith("calls=")) {
+                    calls = Long.parseLong(part.substring(6));
+                } else if (part.startsWith("usec=")) {
+                    usec = Long.parseLong(part.substring(5));
+                }
+            }
+        }
+        return new long[]{calls, usec};
+    }
+}
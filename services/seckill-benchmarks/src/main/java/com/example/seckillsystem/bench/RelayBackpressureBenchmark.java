@@ -0,0 +1,256 @@
+package com.example.seckillsystem.bench;
+
+import com.example.relayservice.config.RedisConfig;
+import com.example.relayservice.config.RelayProperties;
+import com.example.relayservice.config.RelayProperties.StreamBinding;
+import com.example.relayservice.metrics.RelayMetrics;
+import com.example.relayservice.partition.RelayMembership;
+import com.example.relayservice.partition.StreamAssignment;
+import com.example.relayservice.relay.FlowControl;
+import com.example.relayservice.relay.RedisStreamRelay;
+import com.example.streamsupport.StreamBookkeeping;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * broker 变慢（例如 RabbitMQ 内存告警）时静态批次与 {@link FlowControl} 自适应批次的对比，在本地 redis-server
+ * （见 {@link LocalRedisServer}）上运行。假 broker 串行处理发布，每条消息占用一段服务时间后返回确认，
+ * 因此确认延迟随在途消息数增长；从 {@code --slow-after-ms} 起的 {@code --slow-ms} 内服务时间由
+ * {@code --fast-micros} 变为 {@code --slow-micros}。
+ * <ul>
+ *     <li>{@code static}：COUNT = {@code --batch-size}，窗口 = {@code --max-in-flight}；</li>
+ *     <li>{@code adaptive}：同样的初始值，由 AIMD 流控调整。</li>
+ * </ul>
+ * 输出总耗时、重复发布数（确认超时后经 XAUTOCLAIM 重新投递）、进入 DLQ 的条数以及结束时的 COUNT / 窗口。
+ * <pre>
+ * java -cp services/seckill-benchmarks/target/benchmarks.jar \
+ *     com.example.seckillsystem.bench.RelayBackpressureBenchmark --messages=200000 --slow-micros=1000
+ * </pre>
+ */
+public final class RelayBackpressureBenchmark {
+
+    private static final String STREAM_KEY = "seckill:stream:1";
+    private static final String GROUP = "relay-group";
+
+    private RelayBackpressureBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new Options(args);
+        try (LocalRedisServer redisServer = LocalRedisServer.start()) {
+            StringRedisTemplate redisTemplate = new StringRedisTemplate(redisServer.connectionFactory());
+            Result fixed = run(redisTemplate, options, false);
+            Result adaptive = run(redisTemplate, options, true);
+
+            System.out.printf("%nmessages=%d batch-size=%d max-in-flight=%d confirm-timeout=%dms "
+                            + "service=%dus -> %dus for %dms%n",
+                    options.messages, options.batchSize, options.maxInFlight, options.confirmTimeoutMillis,
+                    options.fastMicros, options.slowMicros, options.slowMillis);
+            System.out.printf("%-9s %10s %10s %12s %8s %8s %8s%n",
+                    "mode", "seconds", "msg/s", "republished", "dlq", "count", "window");
+            fixed.print("static", options.messages);
+            adaptive.print("adaptive", options.messages);
+        }
+    }
+
+    private static Result run(StringRedisTemplate redisTemplate, Options options, boolean adaptive) {
+        prepareStream(redisTemplate, options.messages);
+        RelayProperties properties = new RelayProperties();
+        properties.setBatchSize(options.batchSize);
+        properties.setMaxInFlight(options.maxInFlight);
+        properties.setBlockTimeout(Duration.ofMillis(10));
+        properties.setConfirmTimeout(Duration.ofMillis(options.confirmTimeoutMillis));
+        properties.setClaimIdle(Duration.ofMillis(100));
+        properties.setClaimMaxPages(50);
+        properties.setInstanceId("relay-bench");
+        properties.getDiscovery().setEnabled(false);
+        properties.getFlow().setEnabled(adaptive);
+        properties.getFlow().setMaxBatchSize(Math.max(options.batchSize, properties.getFlow().getMaxBatchSize()));
+        properties.getFlow().setMaxInFlight(Math.max(options.maxInFlight, properties.getFlow().getMaxInFlight()));
+        StreamBinding template = new StreamBinding();
+        template.setStreamKey(STREAM_KEY);
+        template.setGroup(GROUP);
+        template.setExchange("seckill.exchange");
+        template.setRoutingKey("seckill.order.created");
+        properties.setStreams(List.of(template));
+
+        RedisConfig redisConfig = new RedisConfig();
+        StreamAssignment assignment = new StreamAssignment(redisTemplate, redisConfig.leaseAcquireScript(),
+                redisConfig.leaseReleaseScript(), properties,
+                new RelayMembership(redisTemplate, properties));
+        assignment.afterPropertiesSet();
+        StreamBinding binding = assignment.activeBindings().get(0);
+        SlowingBroker broker = new SlowingBroker(options);
+        FlowControl flowControl = new FlowControl(properties,
+                new RelayMetrics(redisTemplate, assignment, new SimpleMeterRegistry()));
+        RedisStreamRelay relay = new RedisStreamRelay(redisTemplate,
+                redisConfig.streamPayloadTemplate(redisTemplate.getConnectionFactory()), broker, properties,
+                new StreamBookkeeping(redisTemplate), flowControl);
+        relay.afterPropertiesSet();
+
+        long claimIntervalNanos = TimeUnit.MILLISECONDS.toNanos(200);
+        long start = System.nanoTime();
+        broker.start(start);
+        long nextClaim = start + claimIntervalNanos;
+        while (true) {
+            long backoffNanos = relay.backoffNanos(binding);
+            if (backoffNanos > 0) {
+                LockSupport.parkNanos(backoffNanos);
+            }
+            int read = relay.poll(binding);
+            if (System.nanoTime() - nextClaim >= 0) {
+                relay.reclaim(binding);
+                nextClaim = System.nanoTime() + claimIntervalNanos;
+            }
+            if (read == 0 && drained(redisTemplate)) {
+                break;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        broker.shutdown();
+        Long dlq = redisTemplate.opsForStream().size(STREAM_KEY + ":dlq");
+        FlowControl.Flow flow = flowControl.flow(STREAM_KEY);
+        Result result = new Result(elapsed, broker.sent.get(), dlq == null ? 0 : dlq, flow.batchSize(), flow.window());
+        assignment.destroy();
+        return result;
+    }
+
+    /**
+     * 消费组已读到最新条目且 PEL 为空：所有条目要么已确认，要么已移入 DLQ。流控退避期间 {@code poll} 也返回 0，不能单独作为结束条件。
+     */
+    private static boolean drained(StringRedisTemplate redisTemplate) {
+        String lastGenerated = redisTemplate.opsForStream().info(STREAM_KEY).lastGeneratedId();
+        return redisTemplate.opsForStream().groups(STREAM_KEY).stream()
+                .filter(group -> GROUP.equals(group.groupName()))
+                .anyMatch(group -> lastGenerated.equals(group.lastDeliveredId()) && group.pendingCount() == 0);
+    }
+
+    private static void prepareStream(StringRedisTemplate redisTemplate, int messages) {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        });
+        redisTemplate.opsForStream().createGroup(STREAM_KEY, ReadOffset.from("0-0"), GROUP);
+        int chunk = 1000;
+        for (int from = 0; from < messages; from += chunk) {
+            int to = Math.min(messages, from + chunk);
+            int base = from;
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (int i = base; i < to; i++) {
+                    byte[] key = STREAM_KEY.getBytes(StandardCharsets.UTF_8);
+                    String payload = "\u0002" + (7169392345678901234L + i) + ":" + (1_000_000 + i) + ":1:" + (i % 10 + 1);
+                    connection.streamCommands().xAdd(key, Map.of("payload".getBytes(StandardCharsets.UTF_8),
+                            payload.getBytes(StandardCharsets.UTF_8)));
+                }
+                return null;
+            });
+        }
+    }
+
+    private record Result(long elapsedNanos, long published, long dlq, int batchSize, int window) {
+
+        void print(String mode, int messages) {
+            double seconds = elapsedNanos / 1e9;
+            System.out.printf("%-9s %10.2f %10.0f %12d %8d %8d %8d%n", mode, seconds, messages / seconds,
+                    Math.max(0, published - messages), dlq, batchSize, window);
+        }
+    }
+
+    private static final class Options {
+        private final int messages;
+        private final int batchSize;
+        private final int maxInFlight;
+        private final long confirmTimeoutMillis;
+        private final long fastMicros;
+        private final long slowMicros;
+        private final long slowAfterMillis;
+        private final long slowMillis;
+
+        private Options(String[] args) {
+            this.messages = (int) longArg(args, "messages", 200_000);
+            this.batchSize = (int) longArg(args, "batch-size", 500);
+            this.maxInFlight = (int) longArg(args, "max-in-flight", 2048);
+            this.confirmTimeoutMillis = longArg(args, "confirm-timeout-ms", 1000);
+            this.fastMicros = longArg(args, "fast-micros", 5);
+            this.slowMicros = longArg(args, "slow-micros", 1000);
+            this.slowAfterMillis = longArg(args, "slow-after-ms", 500);
+            this.slowMillis = longArg(args, "slow-ms", 3000);
+        }
+
+        private static long longArg(String[] args, String name, long defaultValue) {
+            String prefix = "--" + name + "=";
+            for (String arg : args) {
+                if (arg.startsWith(prefix)) {
+                    return Long.parseLong(arg.substring(prefix.length()));
+                }
+            }
+            return defaultValue;
+        }
+    }
+
+    /**
+     * 串行处理发布的假 broker：每条消息在前一条完成后再占用一段服务时间，完成时返回正向确认。
+     * {@code invoke} 直接在当前线程执行回调。
+     */
+    private static final class SlowingBroker extends RabbitTemplate {
+
+        private final Options options;
+        private final AtomicLong sent = new AtomicLong();
+        private final ScheduledExecutorService confirms = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "bench-broker");
+            t.setDaemon(true);
+            return t;
+        });
+        private long startNanos;
+        private long busyUntilNanos;
+
+        private SlowingBroker(Options options) {
+            this.options = options;
+        }
+
+        private void start(long startNanos) {
+            this.startNanos = startNanos;
+            this.busyUntilNanos = startNanos;
+        }
+
+        @Override
+        public <T> T invoke(OperationsCallback<T> action,
+                            com.rabbitmq.client.ConfirmCallback acks,
+                            com.rabbitmq.client.ConfirmCallback nacks) {
+            return action.doInRabbit(this);
+        }
+
+        @Override
+        public synchronized void send(String exchange, String routingKey, Message message,
+                                      CorrelationData correlationData) {
+            sent.incrementAndGet();
+            long now = System.nanoTime();
+            long sinceStartMillis = TimeUnit.NANOSECONDS.toMillis(now - startNanos);
+            boolean slow = sinceStartMillis >= options.slowAfterMillis
+                    && sinceStartMillis < options.slowAfterMillis + options.slowMillis;
+            busyUntilNanos = Math.max(busyUntilNanos, now)
+                    + TimeUnit.MICROSECONDS.toNanos(slow ? options.slowMicros : options.fastMicros);
+            confirms.schedule(() -> correlationData.getFuture().set(new CorrelationData.Confirm(true, null)),
+                    busyUntilNanos - now, TimeUnit.NANOSECONDS);
+        }
+
+        private void shutdown() {
+            confirms.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.example.seckillsystem.bench;
+
+import com.example.relayservice.config.RedisConfig;
+import com.example.relayservice.config.RelayProperties;
+import com.example.relayservice.config.RelayProperties.StreamBinding;
+import com.example.relayservice.metrics.RelayMetrics;
+import com.example.relayservice.partition.RelayMembership;
+import com.example.relayservice.partition.StreamAssignment;
+import com.example.relayservice.relay.FlowControl;
+import com.example.relayservice.relay.RedisStreamRelay;
+import com.example.relayservice.relay.StreamPollers;
+import com.example.streamsupport.StreamBookkeeping;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * relay 的吞吐与每条消息的 Redis 命令数，在本地 redis-server（见 {@link LocalRedisServer}）上运行，
+ * RabbitMQ 由一个立即确认的假 {@link RabbitTemplate} 代替，因此结果只反映 relay 自身与 Redis 的开销：
+ * <ul>
+ *     <li>{@code per-record}：按改造前的方式逐条结算，每条记录单独 {@code XACK}、{@code XDEL}、{@code HDEL}；</li>
+ *     <li>{@code relay}：当前的 {@link RedisStreamRelay}，整批发布后由 {@link StreamBookkeeping} 一次流水线结算。</li>
+ * </ul>
+ * 两种模式读取方式相同（XREADGROUP，COUNT = {@code --batch-size}）。命令数取自 {@code INFO commandstats}。
+ * <p>
+ * 另外在 {@code --streams} 个 stream 上比较依次轮询（{@code serial}）与每个 stream 一个常驻任务（{@code pollers}）的吞吐。
+ * <pre>
+ * java -cp services/seckill-benchmarks/target/benchmarks.jar \
+ *     com.example.seckillsystem.bench.RelayThroughputBenchmark --messages=200000 --batch-size=50
+ * </pre>
+ */
+public final class RelayThroughputBenchmark {
+
+    private static final String STREAM_KEY = "seckill:stream:1";
+    private static final String GROUP = "relay-group";
+
+    private RelayThroughputBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int messages = intArg(args, "messages", 200_000);
+        int batchSize = intArg(args, "batch-size", 50);
+        int streams = intArg(args, "streams", 8);
+
+        try (LocalRedisServer redisServer = LocalRedisServer.start()) {
+            StringRedisTemplate redisTemplate = new StringRedisTemplate(redisServer.connectionFactory());
+            Result perRecord = runPerRecord(redisTemplate, messages, batchSize);
+            Result relay = runRelay(redisTemplate, messages, batchSize);
+            Result serial = runMultiStream(redisTemplate, messages, batchSize, streams, false);
+            Result pollers = runMultiStream(redisTemplate, messages, batchSize, streams, true);
+
+            System.out.printf("%nmessages=%d batch-size=%d streams=%d (serial/pollers)%n", messages, batchSize, streams);
+            System.out.printf("%-12s %12s %14s  %s%n", "mode", "msg/s", "cmds/message", "commands");
+            perRecord.print("per-record", messages);
+            relay.print("relay", messages);
+            serial.print("serial", messages);
+            pollers.print("pollers", messages);
+        }
+    }
+
+    /**
+     * 改造前的结算方式：每条记录确认后依次 XACK、XDEL、HDEL，各自一次往返。
+     */
+    private static Result runPerRecord(StringRedisTemplate redisTemplate, int messages, int batchSize) {
+        prepareStream(redisTemplate, messages);
+        ConfirmingRabbitTemplate rabbit = new ConfirmingRabbitTemplate();
+        StreamOperations<String, String, String> ops = redisTemplate.opsForStream();
+        long start = System.nanoTime();
+        while (rabbit.sent.get() < messages) {
+            List<MapRecord<String, String, String>> records = ops.read(
+                    Consumer.from(GROUP, "relay-1"),
+                    StreamReadOptions.empty().count(batchSize),
+                    StreamOffset.create(STREAM_KEY, ReadOffset.lastConsumed()));
+            if (records == null || records.isEmpty()) {
+                break;
+            }
+            for (MapRecord<String, String, String> record : records) {
+                CorrelationData correlation = new CorrelationData(record.getId().getValue());
+                rabbit.send("seckill.exchange", "seckill.order.created",
+                        new Message(record.getValue().get("payload").getBytes(StandardCharsets.UTF_8)), correlation);
+                ops.acknowledge(STREAM_KEY, GROUP, record.getId());
+                ops.delete(STREAM_KEY, record.getId());
+                redisTemplate.opsForHash().delete(STREAM_KEY + ":attempts", record.getId().getValue());
+            }
+        }
+        return new Result(System.nanoTime() - start, commandStats(redisTemplate));
+    }
+
+    private static Result runRelay(StringRedisTemplate redisTemplate, int messages, int batchSize) {
+        prepareStream(redisTemplate, messages);
+        RelayProperties properties = relayProperties(batchSize, List.of(STREAM_KEY));
+        RedisConfig redisConfig = new RedisConfig();
+        StreamAssignment assignment = new StreamAssignment(redisTemplate, redisConfig.leaseAcquireScript(),
+                redisConfig.leaseReleaseScript(), properties,
+                new RelayMembership(redisTemplate, properties));
+        assignment.afterPropertiesSet();
+        StreamBinding binding = assignment.activeBindings().get(0);
+        ConfirmingRabbitTemplate rabbit = new ConfirmingRabbitTemplate();
+        RelayMetrics metrics = new RelayMetrics(redisTemplate, assignment, new SimpleMeterRegistry());
+        RedisStreamRelay relay = new RedisStreamRelay(redisTemplate,
+                redisConfig.streamPayloadTemplate(redisTemplate.getConnectionFactory()), rabbit, properties,
+                new StreamBookkeeping(redisTemplate), new FlowControl(properties, metrics));
+        relay.afterPropertiesSet();
+
+        resetStats(redisTemplate);
+        long start = System.nanoTime();
+        while (rabbit.sent.get() < messages) {
+            if (relay.poll(binding) == 0) {
+                break;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        Map<String, Long> stats = commandStats(redisTemplate);
+        assignment.destroy();
+        return new Result(elapsed, stats);
+    }
+
+    /**
+     * 多个 stream 时的两种调度：{@code serial} 在一个线程上依次读取每个 stream（改造前的 {@code pollStreams} 循环），
+     * {@code pollers} 由 {@link StreamPollers} 为每个 stream 启动常驻轮询任务。消息平均分布在各 stream 上。
+     */
+    private static Result runMultiStream(StringRedisTemplate redisTemplate, int messages, int batchSize,
+                                         int streams, boolean concurrent) throws InterruptedException {
+        List<String> streamKeys = new ArrayList<>();
+        for (int i = 1; i <= streams; i++) {
+            streamKeys.add("seckill:stream:" + i);
+        }
+        prepareStreams(redisTemplate, messages, streamKeys);
+        RelayProperties properties = relayProperties(batchSize, streamKeys);
+        properties.setMaxStreams(streams);
+        RedisConfig redisConfig = new RedisConfig();
+        StreamAssignment assignment = new StreamAssignment(redisTemplate, redisConfig.leaseAcquireScript(),
+                redisConfig.leaseReleaseScript(), properties,
+                new RelayMembership(redisTemplate, properties));
+        assignment.afterPropertiesSet();
+        ConfirmingRabbitTemplate rabbit = new ConfirmingRabbitTemplate();
+        RelayMetrics metrics = new RelayMetrics(redisTemplate, assignment, new SimpleMeterRegistry());
+        RedisStreamRelay relay = new RedisStreamRelay(redisTemplate,
+                redisConfig.streamPayloadTemplate(redisTemplate.getConnectionFactory()), rabbit, properties,
+                new StreamBookkeeping(redisTemplate), new FlowControl(properties, metrics));
+        relay.afterPropertiesSet();
+
+        resetStats(redisTemplate);
+        long start = System.nanoTime();
+        if (concurrent) {
+            StreamPollers pollers = new StreamPollers(relay, assignment, properties, metrics,
+                    properties.getMaxStreams() + 2);
+            pollers.start();
+            while (rabbit.sent.get() < messages) {
+                Thread.sleep(1);
+            }
+            pollers.stop();
+        } else {
+            while (rabbit.sent.get() < messages) {
+                for (StreamBinding binding : assignment.activeBindings()) {
+                    relay.poll(binding);
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        Map<String, Long> stats = commandStats(redisTemplate);
+        assignment.destroy();
+        return new Result(elapsed, stats);
+    }
+
+    private static RelayProperties relayProperties(int batchSize, List<String> streamKeys) {
+        RelayProperties properties = new RelayProperties();
+        properties.setBatchSize(batchSize);
+        properties.setBlockTimeout(Duration.ofMillis(10));
+        properties.setInstanceId("relay-bench");
+        properties.getDiscovery().setEnabled(false);
+        // 固定 COUNT = --batch-size，便于与逐条结算方式对比
+        properties.getFlow().setEnabled(false);
+        List<StreamBinding> bindings = new ArrayList<>();
+        for (String streamKey : streamKeys) {
+            StreamBinding binding = new StreamBinding();
+            binding.setStreamKey(streamKey);
+            binding.setGroup(GROUP);
+            binding.setExchange("seckill.exchange");
+            binding.setRoutingKey("seckill.order.created");
+            bindings.add(binding);
+        }
+        properties.setStreams(bindings);
+        return properties;
+    }
+
+    private static void prepareStream(StringRedisTemplate redisTemplate, int messages) {
+        prepareStreams(redisTemplate, messages, List.of(STREAM_KEY));
+    }
+
+    private static void prepareStreams(StringRedisTemplate redisTemplate, int messages, List<String> streamKeys) {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        });
+        for (String streamKey : streamKeys) {
+            redisTemplate.opsForStream().createGroup(streamKey, ReadOffset.from("0-0"), GROUP);
+        }
+        int chunk = 1000;
+        for (int from = 0; from < messages; from += chunk) {
+            int to = Math.min(messages, from + chunk);
+            int base = from;
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (int i = base; i < to; i++) {
+                    byte[] key = streamKeys.get(i % streamKeys.size()).getBytes(StandardCharsets.UTF_8);
+                    String payload = "\u0002" + (7169392345678901234L + i) + ":" + (1_000_000 + i) + ":1:" + (i % 10 + 1);
+                    connection.streamCommands().xAdd(key, Map.of("payload".getBytes(StandardCharsets.UTF_8),
+                            payload.getBytes(StandardCharsets.UTF_8)));
+                }
+                return null;
+            });
+        }
+        resetStats(redisTemplate);
+    }
+
+    private static void resetStats(StringRedisTemplate redisTemplate) {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().resetConfigStats();
+            return null;
+        });
+    }
+
+    /**
+     * {@code cmdstat_<name>:calls=N,...}，去掉统计本身用到的 INFO/CONFIG。
+     */
+    private static Map<String, Long> commandStats(StringRedisTemplate redisTemplate) {
+        Properties info = redisTemplate.execute((RedisConnection connection) -> connection.serverCommands().info("commandstats"));
+        Map<String, Long> calls = new TreeMap<>();
+        if (info == null) {
+            return calls;
+        }
+        for (String name : info.stringPropertyNames()) {
+            String command = name.replace("cmdstat_", "");
+            if (!name.startsWith("cmdstat_") || command.equals("info") || command.startsWith("config")) {
+                continue;
+            }
+            for (String part : info.getProperty(name).split(",")) {
+                if (part.startsWith("calls=")) {
+                    calls.put(command, Long.parseLong(part.substring(6)));
+                }
+            }
+        }
+        return calls;
+    }
+
+    private static int intArg(String[] args, String name, int defaultValue) {
+        String prefix = "--" + name + "=";
+        for (String arg : args) {
+            if (arg.startsWith(prefix)) {
+                return Integer.parseInt(arg.substring(prefix.length()));
+            }
+        }
+        return defaultValue;
+    }
+
+    private record Result(long elapsedNanos, Map<String, Long> commands) {
+
+        void print(String mode, int messages) {
+            long total = commands.values().stream().mapToLong(Long::longValue).sum();
+            System.out.printf("%-12s %12.0f %14.3f  %s%n", mode, messages / (elapsedNanos / 1e9),
+                    (double) total / messages, commands);
+        }
+    }
+
+    /**
+     * 立即正向确认每条消息的假 broker；{@code invoke} 直接在当前线程执行回调。
+     */
+    private static final class ConfirmingRabbitTemplate extends RabbitTemplate {
+
+        private final AtomicLong sent = new AtomicLong();
+
+        @Override
+        public <T> T invoke(OperationsCallback<T> action,
+                            com.rabbitmq.client.ConfirmCallback acks,
+                            com.rabbitmq.client.ConfirmCallback nacks) {
+            return action.doInRabbit(this);
+        }
+
+        @Override
+        public void send(String exchange, String routingKey, Message message, CorrelationData correlationData) {
+            sent.incrementAndGet();
+            correlationData.getFuture().set(new CorrelationData.Confirm(true, null));
+        }
+    }
+}
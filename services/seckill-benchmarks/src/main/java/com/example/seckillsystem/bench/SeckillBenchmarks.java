@@ -0,0 +1,52 @@
+package com.example.seckillsystem.bench;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 压测入口。参数与 JMH 命令行完全相同，区别只在于默认把结果写成 JSON，便于在提交之间比较：
+ * <pre>
+ * (cd services/stream-support &amp;&amp; mvn -q install)
+ * (cd services/seckill-api &amp;&amp; mvn -q install -Pbench -DskipTests)
+ * (cd services/order-service &amp;&amp; mvn -q install -Pbench -DskipTests)
+ * (cd services/relay-service &amp;&amp; mvn -q install -Pbench -DskipTests)
+ * (cd services/seckill-benchmarks &amp;&amp; mvn -q package)
+ * java -Dbench.label=$(git rev-parse --short HEAD) -jar services/seckill-benchmarks/target/benchmarks.jar
+ * java -jar services/seckill-benchmarks/target/benchmarks.jar SeckillServiceBenchmark -p backend=fake
+ * java -jar services/seckill-benchmarks/target/benchmarks.jar "Outbox.*Benchmark" -prof gc
+ * java -cp services/seckill-benchmarks/target/benchmarks.jar com.example.seckillsystem.bench.RelayThroughputBenchmark
+ * </pre>
+ * 结果默认写入 {@code jmh-results/<bench.label>.json}（未指定 label 时使用时间戳）；显式传入 {@code -rf}/{@code -rff} 时以命令行为准。
+ * 两次结果用 {@link JmhResultDiff} 对比。
+ */
+public final class SeckillBenchmarks {
+
+    private SeckillBenchmarks() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+
+        if (!commandLine.getResultFormat().hasValue() && !commandLine.getResult().hasValue()) {
+            String label = System.getProperty("bench.label",
+                    LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")));
+            File output = new File(System.getProperty("bench.output.dir", "jmh-results"), label + ".json");
+            File parent = output.getParentFile();
+            if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+                throw new IllegalStateException("Cannot create result directory " + parent);
+            }
+            options.resultFormat(ResultFormatType.JSON).result(output.getPath());
+            System.out.println("JMH results will be written to " + output.getPath());
+        }
+
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.seckillsystem.bench;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 阻塞入口 {@code POST /seckill/{id}} 与响应式入口 {@code POST /seckill/reactive/{id}} 的对比压测，
+ * 直接打到一个运行中的 seckill-api 实例（绕过网关，使用 X-User-Id 头）：
+ * <pre>
+ * java -cp target/benchmarks.jar com.example.seckillsystem.bench.SeckillEndpointBenchmark \
+ *     http://localhost:8080 1 200000 5000
+ * </pre>
+ * 参数依次为实例地址、商品 ID、每条路径的请求数、最大并发（同时在途的请求数）。
+ * 两条路径使用不相交的 userId 区间，避免互相命中重复购买；商品库存应大于请求数，否则大部分请求会以 410 快速返回。
+ * 输出吞吐、p50/p99/max 延迟、状态码分布，以及压测期间从 actuator 采样到的服务端存活线程数峰值。
+ */
+public final class SeckillEndpointBenchmark {
+
+    private static final Pattern METRIC_VALUE = Pattern.compile("\"value\"\\s*:\\s*([0-9.Ee+-]+)");
+
+    private SeckillEndpointBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        long productId = args.length > 1 ? Long.parseLong(args[1]) : 1L;
+        int requests = args.length > 2 ? Integer.parseInt(args[2]) : 200_000;
+        int concurrency = args.length > 3 ? Integer.parseInt(args[3]) : 5_000;
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors())))
+                .build();
+
+        Result servlet = run(client, baseUrl, baseUrl + "/seckill/" + productId,
+                requests, concurrency, 100_000_000L);
+        Result reactive = run(client, baseUrl, baseUrl + "/seckill/reactive/" + productId,
+                requests, concurrency, 200_000_000L);
+
+        System.out.printf("requests=%d, concurrency=%d%n", requests, concurrency);
+        servlet.print("servlet ");
+        reactive.print("reactive");
+        System.exit(0);
+    }
+
+    private static Result run(HttpClient client, String baseUrl, String url,
+                              int requests, int concurrency, long userIdBase) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(concurrency);
+        long[] latencies = new long[requests];
+        Map<Integer, AtomicInteger> statuses = new ConcurrentHashMap<>();
+        AtomicLong peakThreads = new AtomicLong(-1);
+
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> peakThreads.accumulateAndGet(liveThreads(client, baseUrl), Math::max),
+                0, 200, TimeUnit.MILLISECONDS);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            inFlight.acquire();
+            int index = i;
+            HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("X-User-Id", String.valueOf(userIdBase + i))
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build();
+            long sent = System.nanoTime();
+            CompletableFuture<HttpResponse<Void>> future =
+                    client.sendAsync(request, HttpResponse.BodyHandlers.discarding());
+            future.whenComplete((response, error) -> {
+                latencies[index] = System.nanoTime() - sent;
+                int status = error == null ? response.statusCode() : -1;
+                statuses.computeIfAbsent(status, s -> new AtomicInteger()).incrementAndGet();
+                inFlight.release();
+            });
+        }
+        inFlight.acquire(concurrency);
+        long elapsed = System.nanoTime() - start;
+        sampler.shutdownNow();
+
+        return new Result(requests, elapsed, latencies, new TreeMap<>(statuses), peakThreads.get());
+    }
+
+    private static long liveThreads(HttpClient client, String baseUrl) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/metrics/jvm.threads.live"))
+                    .timeout(Duration.ofSeconds(2))
+                    .GET()
+                    .build();
+            String body = client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+            Matcher matcher = METRIC_VALUE.matcher(body);
+            return matcher.find() ? (long) Double.parseDouble(matcher.group(1)) : -1;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private record Result(int requests, long elapsedNanos, long[] latencies,
+                          Map<Integer, AtomicInteger> statuses, long peakServerThreads) {
+
+        void print(String label) {
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            double seconds = elapsedNanos / 1e9;
+            System.out.printf("%s: %.0f req/s, p50=%.2fms, p99=%.2fms, max=%.2fms, peakServerThreads=%d, statuses=%s%n",
+                    label,
+                    requests / seconds,
+                    sorted[(int) (sorted.length * 0.50)] / 1e6,
+                    sorted[Math.min(sorted.length - 1, (int) (sorted.length * 0.99))] / 1e6,
+                    sorted[sorted.length - 1] / 1e6,
+                    peakServerThreads,
+                    statuses);
+        }
+    }
+}
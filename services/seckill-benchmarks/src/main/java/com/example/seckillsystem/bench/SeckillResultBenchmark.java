@@ -0,0 +1,61 @@
+package com.example.seckillsystem.bench;
+
+import com.example.seckillsystem.service.dto.SeckillResult;
+import com.example.seckillsystem.service.id.SnowflakeIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SeckillResult} 的构造开销：成功结果需要拼接带 requestId 的提示文案，拒绝结果只是固定字段。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SeckillResultBenchmark {
+
+    private SnowflakeIdGenerator idGenerator;
+    private String requestId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        idGenerator = new SnowflakeIdGenerator(1);
+        requestId = Long.toString(idGenerator.nextId());
+    }
+
+    @Benchmark
+    public SeckillResult queued() {
+        return SeckillResult.queued(requestId);
+    }
+
+    /**
+     * 热路径上的实际组合：生成 requestId、转字符串、构造成功结果。
+     */
+    @Benchmark
+    public SeckillResult queuedWithNewRequestId() {
+        return SeckillResult.queued(Long.toString(idGenerator.nextId()));
+    }
+
+    @Benchmark
+    public SeckillResult soldOut() {
+        return SeckillResult.soldOut();
+    }
+
+    @Benchmark
+    public SeckillResult duplicate() {
+        return SeckillResult.duplicate();
+    }
+}
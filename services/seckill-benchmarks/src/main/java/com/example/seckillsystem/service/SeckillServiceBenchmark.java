@@ -0,0 +1,228 @@
+package com.example.seckillsystem.service;
+
+import com.example.seckillsystem.bench.LocalRedisServer;
+import com.example.seckillsystem.config.RedisConfig;
+import com.example.seckillsystem.service.admission.StockAdmissionGate;
+import com.example.seckillsystem.service.batch.SeckillBatchCoordinator;
+import com.example.seckillsystem.service.cluster.ClusterSeckillExecutor;
+import com.example.seckillsystem.service.cluster.ClusterStockAggregator;
+import com.example.seckillsystem.service.dto.SeckillResult;
+import com.example.seckillsystem.service.id.SnowflakeIdGenerator;
+import com.example.seckillsystem.service.inventory.InventoryCacheFacade;
+import com.example.seckillsystem.service.keys.SeckillKeys;
+import com.example.seckillsystem.service.lease.StockLeaseManager;
+import com.example.seckillsystem.service.metrics.SeckillMetrics;
+import com.example.seckillsystem.service.props.SeckillProperties;
+import com.example.seckillsystem.service.result.OrderResultService;
+import com.example.seckillsystem.service.soldout.SoldOutRegistry;
+import com.example.seckillsystem.service.warmup.ProductReadiness;
+import com.example.seckillsystem.service.winners.RecentWinnersCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SeckillService#submitSeckillOrder} 的 Java 侧开销（单机 key 布局、非租借、非合并模式）。
+ * <ul>
+ *     <li>{@code backend=fake}（默认）：Lua 调用由进程内的假 {@link RedisTemplate} 直接返回成功，
+ *     结果只包含参数拼装、准入、requestId 生成、最近成功用户表等 Java 代码的开销。</li>
+ *     <li>{@code backend=redis}：启动一个本地 redis-server（见 {@link LocalRedisServer}），执行真实的 {@code seckill.lua}，
+ *     与 fake 的差值即为一次 EVALSHA 往返与脚本本身的开销。需要 PATH 中有 redis-server；只跑 fake 时传 {@code -p backend=fake}。</li>
+ * </ul>
+ * 所有协作者都按生产配置构造（批量合并、租借、集群执行器按默认配置关闭，不在热路径上）；
+ * fake 模式没有可连接的 Redis，Redisson 以调用即失败的代理代替，预热已完成时热路径不会用到它。
+ * 该类放在 {@code service} 包下，以便直接测量包级可见的 {@code chooseBucket}。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SeckillServiceBenchmark {
+
+    private static final Long PRODUCT_ID = 1L;
+    private static final Long REPEAT_USER_ID = -1L;
+    /**
+     * 每个桶的库存足够大，压测期间不会卖完。
+     */
+    private static final long STOCK_PER_BUCKET = 1_000_000_000L;
+
+    @Param({"fake", "redis"})
+    public String backend;
+
+    private SeckillService service;
+    private SeckillKeys keys;
+    private SeckillProperties properties;
+    private RedisTemplate<String, Object> redisTemplate;
+    private LocalRedisServer redisServer;
+    private RedissonClient redissonClient;
+    private SeckillBatchCoordinator batchCoordinator;
+    private StockLeaseManager leaseManager;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        properties = new SeckillProperties();
+        properties.setWorkerId(1);
+        keys = new SeckillKeys(properties);
+
+        RedisConfig redisConfig = new RedisConfig();
+        StringRedisTemplate stringRedisTemplate;
+        if ("redis".equals(backend)) {
+            redisServer = LocalRedisServer.start();
+            redisTemplate = redisConfig.redisTemplate(redisServer.connectionFactory());
+            stringRedisTemplate = new StringRedisTemplate(redisServer.connectionFactory());
+            Config redissonConfig = new Config();
+            redissonConfig.useSingleServer().setAddress("redis://127.0.0.1:" + redisServer.port());
+            redissonClient = Redisson.create(redissonConfig);
+            seedStock();
+        } else {
+            redisTemplate = new LuaSuccessRedisTemplate();
+            // 仅在批量执行超时后写失败结果时使用，fake 后端不会触发
+            stringRedisTemplate = new StringRedisTemplate();
+            redissonClient = unavailableRedisson();
+        }
+
+        StockAdmissionGate admissionGate = new StockAdmissionGate(properties);
+        SoldOutRegistry soldOutRegistry = new SoldOutRegistry(redisTemplate, properties,
+                new RedisMessageListenerContainer());
+        batchCoordinator = new SeckillBatchCoordinator(redisTemplate, redisConfig.seckillBatchScript(), properties, keys);
+        leaseManager = new StockLeaseManager(redisTemplate, redisConfig.seckillLeaseScript(),
+                redisConfig.seckillLeaseReturnScript(), properties, soldOutRegistry);
+        RecentWinnersCache recentWinners = new RecentWinnersCache(properties, soldOutRegistry, new SimpleMeterRegistry());
+        ProductReadiness readiness = new ProductReadiness();
+        // 预热已完成：热路径不访问重建流程（Redisson 锁与 L3 回源）
+        readiness.markReady(PRODUCT_ID);
+        recentWinners.record(PRODUCT_ID, REPEAT_USER_ID);
+
+        service = new SeckillService(
+                redisTemplate,
+                redisConfig.seckillScriptV5(),
+                properties,
+                new InventoryCacheFacade(productId -> Optional.empty()),
+                redissonClient,
+                batchCoordinator,
+                keys,
+                new ClusterSeckillExecutor(redisTemplate, redisConfig.seckillClusterScript(),
+                        redisConfig.seckillClusterStealScript(), properties, keys),
+                new ClusterStockAggregator(redisTemplate, properties, keys, readiness, admissionGate, soldOutRegistry),
+                leaseManager,
+                redisConfig.seckillLeasedScript(),
+                new SnowflakeIdGenerator(0),
+                readiness,
+                admissionGate,
+                soldOutRegistry,
+                recentWinners,
+                new OrderResultService(stringRedisTemplate, properties),
+                new SeckillMetrics(properties, new SimpleMeterRegistry()));
+    }
+
+    @TearDown(Level.Iteration)
+    public void resetRedis() {
+        if (redisServer != null) {
+            // 清掉 outbox stream 与买家标记，避免内存随迭代持续增长
+            redisTemplate.execute((RedisCallback<Object>) connection -> {
+                connection.serverCommands().flushDb();
+                return null;
+            });
+            seedStock();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        batchCoordinator.destroy();
+        leaseManager.destroy();
+        if (redisServer != null) {
+            redissonClient.shutdown();
+            redisServer.close();
+        }
+    }
+
+    @Benchmark
+    public SeckillResult submit(UserCursor users) {
+        return service.submitSeckillOrder(PRODUCT_ID, users.next());
+    }
+
+    /**
+     * 已成功用户重复点击：由最近成功用户表在本地判定，不访问 Redis。
+     */
+    @Benchmark
+    public SeckillResult repeatClick() {
+        return service.submitSeckillOrder(PRODUCT_ID, REPEAT_USER_ID);
+    }
+
+    @Benchmark
+    public int chooseBucket(UserCursor users) {
+        return service.chooseBucket(PRODUCT_ID, users.next(), 0);
+    }
+
+    private void seedStock() {
+        int bucketCount = Math.max(1, properties.getBucketCount());
+        for (int i = 1; i <= bucketCount; i++) {
+            redisTemplate.opsForValue().set(keys.bucketKey(PRODUCT_ID, i), STOCK_PER_BUCKET);
+        }
+        redisTemplate.opsForValue().set(keys.totalStockKey(PRODUCT_ID), STOCK_PER_BUCKET * bucketCount);
+    }
+
+    private static RedissonClient unavailableRedisson() {
+        return (RedissonClient) Proxy.newProxyInstance(RedissonClient.class.getClassLoader(),
+                new Class<?>[]{RedissonClient.class}, (proxy, method, args) -> {
+                    throw new IllegalStateException("backend=fake has no Redis; " + method.getName() + " is not available");
+                });
+    }
+
+    /**
+     * 每个压测线程使用互不相交的 userId 区间，保证 {@code submit} 每次都是新用户。
+     */
+    @State(Scope.Thread)
+    public static class UserCursor {
+        private long next;
+
+        @Setup(Level.Trial)
+        public void setUp(ThreadParams threadParams) {
+            next = (threadParams.getThreadIndex() + 1L) * 1_000_000_000_000L;
+        }
+
+        long next() {
+            return next++;
+        }
+    }
+
+    /**
+     * 脚本调用直接返回成功码 0，不建立任何连接。
+     */
+    static final class LuaSuccessRedisTemplate extends RedisTemplate<String, Object> {
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T execute(RedisScript<T> script, List<String> keys, Object... args) {
+            return (T) Long.valueOf(0L);
+        }
+    }
+}
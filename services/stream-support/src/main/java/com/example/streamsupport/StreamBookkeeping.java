@@ -0,0 +1,166 @@
+package com.example.streamsupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一个消费批次的 Redis 记账：确认成功的记录与失败的记录先在 {@link Batch} 中收集，批次结束时用一次流水线完成
+ * <ul>
+ *     <li>一条 {@code XACK} 确认全部成功记录（{@link StreamTarget#deleteAcked()} 时再加一条 {@code XDEL}）；</li>
+ *     <li>仅对重新投递的批次执行一条 {@code HDEL} 清理重试计数——XREADGROUP 新读到的记录不可能有计数；</li>
+ *     <li>每条失败记录一条 {@code HINCRBY}。</li>
+ * </ul>
+ * 达到 {@code maxAttempts} 的记录再用一次流水线写入 DLQ 并确认，由 {@link #flush} 返回给调用方做后续处理。
+ */
+public class StreamBookkeeping {
+
+    private static final Logger log = LoggerFactory.getLogger(StreamBookkeeping.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    public StreamBookkeeping(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * @param redelivery 批次来自 reclaim（XAUTOCLAIM）而不是 XREADGROUP 新读取
+     */
+    public Batch begin(StreamTarget target, boolean redelivery) {
+        return new Batch(target, redelivery);
+    }
+
+    /**
+     * @return 本批次中重试次数耗尽、已移入 DLQ 的记录
+     */
+    public List<DeadLetter> flush(Batch batch) {
+        if (batch.acked.isEmpty() && batch.failed.isEmpty()) {
+            return Collections.emptyList();
+        }
+        StreamTarget target = batch.target;
+        RecordId[] ackIds = batch.acked.toArray(new RecordId[0]);
+
+        List<Object> results = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                if (ackIds.length > 0) {
+                    ops.opsForStream().acknowledge(target.streamKey(), target.group(), ackIds);
+                    if (target.deleteAcked()) {
+                        ops.opsForStream().delete(target.streamKey(), ackIds);
+                    }
+                    if (batch.redelivery) {
+                        ops.opsForHash().delete(target.attemptsKey(), (Object[]) idValues(ackIds));
+                    }
+                }
+                for (DeadLetter failure : batch.failed) {
+                    ops.opsForHash().increment(target.attemptsKey(), failure.record().getId().getValue(), 1);
+                }
+                return null;
+            }
+        });
+
+        // HINCRBY 是流水线中的最后 failed.size() 条命令
+        List<DeadLetter> exhausted = new ArrayList<>();
+        int offset = results.size() - batch.failed.size();
+        for (int i = 0; i < batch.failed.size(); i++) {
+            DeadLetter failure = batch.failed.get(i);
+            long attempts = ((Number) results.get(offset + i)).longValue();
+            if (attempts >= target.maxAttempts()) {
+                exhausted.add(new DeadLetter(failure.record(), failure.reason(), attempts));
+            } else {
+                log.warn("Retry scheduled for stream entry {} attempts={} reason={}",
+                        failure.record().getId(), attempts, failure.reason());
+            }
+        }
+        if (!exhausted.isEmpty()) {
+            moveToDlq(target, exhausted);
+        }
+        return exhausted;
+    }
+
+    private void moveToDlq(StreamTarget target, List<DeadLetter> exhausted) {
+        RecordId[] ids = exhausted.stream().map(failure -> failure.record().getId()).toArray(RecordId[]::new);
+        long failedAt = System.currentTimeMillis();
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                for (DeadLetter failure : exhausted) {
+                    Map<String, String> entry = new LinkedHashMap<>();
+                    failure.record().getValue().forEach((field, value) -> entry.put(field, text(value)));
+                    entry.put("error", failure.reason());
+                    entry.put("attempts", String.valueOf(failure.attempts()));
+                    entry.put("failedAt", String.valueOf(failedAt));
+                    ops.opsForStream().add(target.dlqKey(), entry);
+                }
+                ops.opsForStream().acknowledge(target.streamKey(), target.group(), ids);
+                if (target.deleteAcked()) {
+                    ops.opsForStream().delete(target.streamKey(), ids);
+                }
+                ops.opsForHash().delete(target.attemptsKey(), (Object[]) idValues(ids));
+                return null;
+            }
+        });
+        exhausted.forEach(failure -> log.error("Moved stream entry {} to DLQ {} after {} attempts",
+                failure.record().getId(), target.dlqKey(), failure.attempts()));
+    }
+
+    /**
+     * 读取方可能按原始字节读取字段值（relay 的载荷直通）；写入 DLQ 时统一还原为文本，载荷均为 ASCII。
+     */
+    private static String text(Object value) {
+        return value instanceof byte[] bytes ? new String(bytes, StandardCharsets.UTF_8) : String.valueOf(value);
+    }
+
+    private static String[] idValues(RecordId[] ids) {
+        String[] values = new String[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            values[i] = ids[i].getValue();
+        }
+        return values;
+    }
+
+    /**
+     * 单个批次的结算结果，只在处理该批次的线程内使用。
+     */
+    public static final class Batch {
+        private final StreamTarget target;
+        private final boolean redelivery;
+        private final List<RecordId> acked = new ArrayList<>();
+        private final List<DeadLetter> failed = new ArrayList<>();
+
+        private Batch(StreamTarget target, boolean redelivery) {
+            this.target = target;
+            this.redelivery = redelivery;
+        }
+
+        public void acked(MapRecord<String, String, ?> record) {
+            acked.add(record.getId());
+        }
+
+        public void failed(MapRecord<String, String, ?> record, String reason) {
+            failed.add(new DeadLetter(record, reason == null ? "unknown" : reason, 0));
+        }
+    }
+
+    /**
+     * 失败的记录；由 {@link #flush} 返回时 {@code attempts} 为累计处理次数。
+     */
+    public record DeadLetter(MapRecord<String, String, ?> record, String reason, long attempts) {
+    }
+}
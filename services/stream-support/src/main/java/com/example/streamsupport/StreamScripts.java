@@ -0,0 +1,69 @@
+package com.example.streamsupport;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * outbox stream 消费端共用的 Lua 脚本：
+ * <ul>
+ *     <li>{@code scripts/stream-autoclaim.lua}：从持久化游标处 XAUTOCLAIM 一页空闲条目；</li>
+ *     <li>{@code scripts/stream-trim.lua}：按所有（非孤立）消费组的确认进度 {@code XTRIM MINID ~}，结果见 {@link TrimOutcome}。</li>
+ * </ul>
+ */
+public final class StreamScripts {
+
+    /**
+     * autoclaim 返回的下一页游标为该值时表示 PEL 已扫完一轮。
+     */
+    public static final String SWEEP_COMPLETE = "0-0";
+
+    private StreamScripts() {
+    }
+
+    @SuppressWarnings("rawtypes")
+    public static DefaultRedisScript<List> autoClaim() {
+        return script("scripts/stream-autoclaim.lua", List.class);
+    }
+
+    /**
+     * 参数：孤立消费组的判定时长（毫秒，0 表示不跳过）；返回值用 {@link TrimOutcome#of} 解析。
+     */
+    @SuppressWarnings("rawtypes")
+    public static DefaultRedisScript<List> trim() {
+        return script("scripts/stream-trim.lua", List.class);
+    }
+
+    /**
+     * 把 autoclaim 的扁平返回 {@code { nextCursor, id1, payload1, ... }} 还原为记录；payload 缺失的记录值为空 map。
+     */
+    public static List<MapRecord<String, String, String>> claimedRecords(String streamKey, List<String> reply) {
+        if (reply == null || reply.size() < 3) {
+            return Collections.emptyList();
+        }
+        List<MapRecord<String, String, String>> claimed = new ArrayList<>(reply.size() / 2);
+        for (int i = 1; i + 1 < reply.size(); i += 2) {
+            String payload = reply.get(i + 1);
+            Map<String, String> value = payload == null
+                    ? Collections.emptyMap()
+                    : Collections.singletonMap("payload", payload);
+            claimed.add(StreamRecords.newRecord().in(streamKey).withId(RecordId.of(reply.get(i))).ofMap(value));
+        }
+        return claimed;
+    }
+
+    private static <T> DefaultRedisScript<T> script(String path, Class<T> resultType) {
+        DefaultRedisScript<T> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource(path)));
+        script.setResultType(resultType);
+        return script;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.streamsupport;
+
+/**
+ * 一个被消费的 outbox stream 及其记账 key：重试计数保存在 {@code attemptsKey} 哈希中，
+ * 超过 {@code maxAttempts} 的记录写入 {@code dlqKey}。{@code deleteAcked} 为 true 时确认后同时 XDEL。
+ */
+public record StreamTarget(String streamKey, String group, String attemptsKey, String dlqKey,
+                           long maxAttempts, boolean deleteAcked) {
+
+    /**
+     * 默认 key 布局：{@code <streamKey>:attempts} 与 {@code <streamKey>:dlq}，确认后保留条目由裁剪脚本回收。
+     */
+    public static StreamTarget of(String streamKey, String group, long maxAttempts) {
+        return new StreamTarget(streamKey, group, streamKey + ":attempts", streamKey + ":dlq", maxAttempts, false);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.streamsupport;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 一次 {@code stream-trim.lua} 的结果：裁剪条数、实际使用的下界 ID，以及因孤立而未参与下界计算的消费组。
+ */
+public record TrimOutcome(long trimmed, String floorId, List<String> skippedGroups) {
+
+    private static final TrimOutcome NONE = new TrimOutcome(0, "0-0", Collections.emptyList());
+
+    /**
+     * 解析脚本的扁平返回 {@code { trimmed, floorId, skippedGroup... }}。
+     */
+    public static TrimOutcome of(List<?> reply) {
+        if (reply == null || reply.size() < 2) {
+            return NONE;
+        }
+        List<String> skipped = new ArrayList<>(reply.size() - 2);
+        for (int i = 2; i < reply.size(); i++) {
+            skipped.add(String.valueOf(reply.get(i)));
+        }
+        return new TrimOutcome(((Number) reply.get(0)).longValue(), String.valueOf(reply.get(1)), skipped);
+    }
+
+    /**
+     * 下界 ID 的时间戳；没有可用下界（未裁剪）时为 0。
+     */
+    public long floorMillis() {
+        int dash = floorId.indexOf('-');
+        return Long.parseLong(dash < 0 ? floorId : floorId.substring(0, dash));
+    }
+}
@@ -0,0 +1,44 @@
+-- stream-autoclaim.lua
+-- relay-service 与 order-service（stream 直连模式）共用，见 StreamScripts。
+-- 从持久化游标处认领一页空闲的待确认条目（XAUTOCLAIM），并把下一页游标写回。
+-- KEYS:
+--   KEYS[1] = streamKey
+--   KEYS[2] = cursorKey（与 stream 同一 hash tag，集群模式下落在同一 slot）
+-- ARGV:
+--   ARGV[1] = group
+--   ARGV[2] = consumer（认领到本实例名下）
+--   ARGV[3] = min-idle-time（毫秒）
+--   ARGV[4] = COUNT
+--
+-- 返回扁平数组：{ nextCursor, id1, payload1, id2, payload2, ... }
+--   payload 字段缺失时为 nil；nextCursor 为 "0-0" 表示本轮已扫完整个 PEL。
+-- 条目已被删除但仍挂在 PEL 中的（Redis 6.2 以 nil 内容返回）直接 XACK，不再返回。
+
+local cursor = redis.call("GET", KEYS[2])
+if not cursor then
+    cursor = "0-0"
+end
+
+local reply = redis.call("XAUTOCLAIM", KEYS[1], ARGV[1], ARGV[2], ARGV[3], cursor, "COUNT", ARGV[4])
+local nextCursor = reply[1]
+redis.call("SET", KEYS[2], nextCursor)
+
+local result = { nextCursor }
+for _, entry in ipairs(reply[2]) do
+    local id = entry[1]
+    local fields = entry[2]
+    if not fields then
+        redis.call("XACK", KEYS[1], ARGV[1], id)
+    else
+        local payload = false
+        for i = 1, #fields, 2 do
+            if fields[i] == "payload" then
+                payload = fields[i + 1]
+                break
+            end
+        end
+        result[#result + 1] = id
+        result[#result + 1] = payload
+    end
+end
+return result
@@ -0,0 +1,86 @@
+-- stream-trim.lua
+-- relay-service 与 order-service（stream 直连模式）共用，见 StreamScripts。
+-- 按消费组的确认进度裁剪 outbox Stream（替代逐条 XDEL）。
+-- KEYS:
+--   KEYS[1] = streamKey
+-- ARGV:
+--   ARGV[1] = 孤立消费组的判定时长（毫秒），0 表示不跳过任何消费组
+--
+-- 安全下界：对 Stream 上的每个消费组，
+--   - 有待确认条目时取 XPENDING 汇总中的最小 ID；
+--   - 没有待确认条目时取 last-delivered-id（该 ID 及之前的条目都已投递并确认）。
+-- 所有消费组取最小值作为 MINID。XTRIM MINID 只删除严格小于 MINID 的条目，因此任何组尚未确认或尚未读取的条目都不会被删。
+-- 使用 "~" 近似裁剪：Redis 只整块释放 listpack 节点，可能少删但绝不会多删。
+-- 没有消费组时无法判断哪些条目已被处理，不做任何裁剪。
+--
+-- 孤立消费组：没有任何 consumer、且 last-delivered-id 早于 ARGV[1] 毫秒之前的组（例如切换消费模式后遗留的组）。
+-- 这样的组不参与下界计算，否则它的进度会让裁剪永远停在原地；跳过的组名随结果返回，由调用方告警。
+-- 所有消费组都是孤立组时不裁剪。
+--
+-- 返回：{ 被裁剪的条目数, 实际使用的下界 ID（未裁剪时为 "0-0"）, 被跳过的消费组名... }
+
+local streamKey = KEYS[1]
+local staleMillis = tonumber(ARGV[1]) or 0
+if redis.call("EXISTS", streamKey) == 0 then
+    return { 0, "0-0" }
+end
+
+local groups = redis.call("XINFO", "GROUPS", streamKey)
+if #groups == 0 then
+    return { 0, "0-0" }
+end
+
+-- Stream ID 形如 "<ms>-<seq>"，两段分别按数值比较
+local function idLess(a, b)
+    local aMs, aSeq = string.match(a, "^(%d+)-(%d+)$")
+    local bMs, bSeq = string.match(b, "^(%d+)-(%d+)$")
+    aMs, bMs = tonumber(aMs), tonumber(bMs)
+    if aMs ~= bMs then
+        return aMs < bMs
+    end
+    return tonumber(aSeq) < tonumber(bSeq)
+end
+
+local nowMillis = 0
+if staleMillis > 0 then
+    local time = redis.call("TIME")
+    nowMillis = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+end
+
+local floor = nil
+local skipped = {}
+for _, group in ipairs(groups) do
+    -- XINFO GROUPS 的每个元素是扁平的 name/value 列表
+    local info = {}
+    for i = 1, #group, 2 do
+        info[group[i]] = group[i + 1]
+    end
+
+    local lastDelivered = info["last-delivered-id"]
+    local deliveredMillis = tonumber(string.match(lastDelivered, "^(%d+)-")) or 0
+    if staleMillis > 0 and tonumber(info["consumers"]) == 0 and nowMillis - deliveredMillis >= staleMillis then
+        table.insert(skipped, info["name"])
+    else
+        local groupFloor = lastDelivered
+        if tonumber(info["pending"]) > 0 then
+            local summary = redis.call("XPENDING", streamKey, info["name"])
+            groupFloor = summary[2]
+        end
+        if floor == nil or idLess(groupFloor, floor) then
+            floor = groupFloor
+        end
+    end
+end
+
+local trimmed = 0
+if floor == nil then
+    floor = "0-0"
+elseif floor ~= "0-0" then
+    trimmed = redis.call("XTRIM", streamKey, "MINID", "~", floor)
+end
+
+local result = { trimmed, floor }
+for _, name in ipairs(skipped) do
+    table.insert(result, name)
+end
+return result